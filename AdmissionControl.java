@@ -0,0 +1,91 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 按原子数加权的准入控制：成键前先估算原子数，低于阈值的轻任务直接在请求线程上执行，
+ * 重任务交给独立的有界线程池，且同时处理的原子总数不超过 max-heavy-atoms，避免拖慢轻请求
+ */
+@Component
+public class AdmissionControl implements DisposableBean {
+
+    private final CrystalVizProperties.Admission config;
+    private final ThreadPoolExecutor heavyPool;
+    private final Semaphore atomBudget;
+    private final int budget;
+
+    @Autowired
+    public AdmissionControl(CrystalVizProperties properties) {
+        this.config = properties.getAdmission();
+        int threads = config.getHeavyThreads() > 0
+                ? config.getHeavyThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.heavyPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getHeavyQueue())), r -> {
+            Thread t = new Thread(r, "crystal-heavy-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.budget = (int) Math.min(Integer.MAX_VALUE, Math.max(1, config.getMaxHeavyAtoms()));
+        // 公平信号量：大任务不会被源源不断的小任务饿死
+        this.atomBudget = new Semaphore(budget, true);
+    }
+
+    public boolean isHeavy(long estimatedAtoms) {
+        return estimatedAtoms >= config.getHeavyThresholdAtoms();
+    }
+
+    /**
+     * 在重任务线程池中执行 work，执行前按原子数占用配额（超过总配额的任务独占全部配额）
+     * 队列已满时抛出 ServerBusyException
+     */
+    public <T> CompletableFuture<T> submitHeavy(long estimatedAtoms, Supplier<T> work) {
+        int weight = (int) Math.min(Math.max(estimatedAtoms, 1), budget);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                atomBudget.acquireUninterruptibly(weight);
+                try {
+                    return work.get();
+                } finally {
+                    atomBudget.release(weight);
+                }
+            }, heavyPool);
+        } catch (RejectedExecutionException e) {
+            throw new ServerBusyException("重任务队列已满，请稍后重试");
+        }
+    }
+
+    // 等待结果，并把任务中抛出的异常原样抛出（保留 @ResponseStatus 映射）
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        heavyPool.shutdownNow();
+    }
+}
@@ -0,0 +1,109 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTests {
+
+    private static AdmissionControl admission(int threads, int queue, long maxHeavyAtoms) {
+        CrystalVizProperties properties = new CrystalVizProperties();
+        properties.getAdmission().setHeavyThresholdAtoms(1000);
+        properties.getAdmission().setHeavyThreads(threads);
+        properties.getAdmission().setHeavyQueue(queue);
+        properties.getAdmission().setMaxHeavyAtoms(maxHeavyAtoms);
+        return new AdmissionControl(properties);
+    }
+
+    @Test
+    void classifiesByEstimatedAtoms() {
+        AdmissionControl admission = admission(1, 1, 10_000);
+        assertFalse(admission.isHeavy(999));
+        assertTrue(admission.isHeavy(1000));
+        admission.destroy();
+    }
+
+    @Test
+    void atomBudgetLimitsConcurrentHeavyWork() {
+        // 4 个线程，但配额只够同时处理两个 5000 原子的任务
+        AdmissionControl admission = admission(4, 16, 10_000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int n = i;
+            futures.add(admission.submitHeavy(5000, () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return n;
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, AdmissionControl.await(futures.get(i)));
+        }
+        assertEquals(2, peak.get());
+        admission.destroy();
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullAndRethrowsTaskErrors() throws Exception {
+        AdmissionControl admission = admission(1, 1, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocking = admission.submitHeavy(2000, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        });
+        CompletableFuture<Integer> queued = admission.submitHeavy(2000, () -> {
+            throw new StructureTooLargeException(2000, 1000);
+        });
+        assertThrows(ServerBusyException.class, () -> admission.submitHeavy(2000, () -> 3));
+
+        release.countDown();
+        assertEquals(1, AdmissionControl.await(blocking));
+        assertThrows(StructureTooLargeException.class, () -> AdmissionControl.await(queued));
+        admission.destroy();
+    }
+
+    @Test
+    void fullJobRegistryRejectsBeforeSubmitting() {
+        CrystalVizProperties properties = new CrystalVizProperties();
+        properties.getAdmission().setMaxJobs(1);
+        AsyncJobRegistry jobs = new AsyncJobRegistry(properties);
+        CompletableFuture<Integer> running = new CompletableFuture<>();
+        String id = jobs.register(() -> running);
+        assertSame(running, jobs.get(id));
+
+        // 任务表已满：不会调用 submit，也就不会留下无法轮询的重任务
+        AtomicInteger submitted = new AtomicInteger();
+        assertThrows(ServerBusyException.class, () -> jobs.register(() -> {
+            submitted.incrementAndGet();
+            return CompletableFuture.completedFuture(1);
+        }));
+        assertEquals(0, submitted.get());
+
+        // 已完成的任务可以被清理，腾出位置
+        running.complete(1);
+        jobs.register(() -> CompletableFuture.completedFuture(2));
+    }
+}
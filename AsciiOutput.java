@@ -0,0 +1,96 @@
+package com.brother.crystalviz.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 面向导出的 ASCII 缓冲输出
+ * 浮点数按固定小数位直接写成字节，替代逐行 String.format，避免格式化解析和临时字符串
+ */
+public final class AsciiOutput implements AutoCloseable {
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+    };
+
+    private final OutputStream out;
+    private final byte[] buf = new byte[64 * 1024];
+    private final byte[] digits = new byte[20];
+    private int pos;
+
+    public AsciiOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    public AsciiOutput write(char ch) throws IOException {
+        if (pos == buf.length) flushBuffer();
+        buf[pos++] = (byte) ch;
+        return this;
+    }
+
+    // 仅用于 ASCII 文本（元素符号、关键字等）
+    public AsciiOutput write(String s) throws IOException {
+        for (int k = 0; k < s.length(); k++) {
+            write(s.charAt(k));
+        }
+        return this;
+    }
+
+    public AsciiOutput newline() throws IOException {
+        return write('\n');
+    }
+
+    public AsciiOutput write(long v) throws IOException {
+        if (v < 0) {
+            write('-');
+            if (v == Long.MIN_VALUE) return write("9223372036854775808");
+            v = -v;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v > 0);
+        while (n > 0) write((char) digits[--n]);
+        return this;
+    }
+
+    /**
+     * 按固定小数位输出，例如 fixed(-1.5, 6) -> "-1.500000"
+     * 数字部分与 %.{decimals}f 一致（舍入到最近值），但舍入后为零的负数不带负号：
+     * fixed(-1e-7, 6) 输出 "0.000000"，而 %.6f 输出 "-0.000000"；超出 long 精度范围时退回 Double.toString
+     */
+    public AsciiOutput fixed(double v, int decimals) throws IOException {
+        if (Double.isNaN(v) || Double.isInfinite(v) || Math.abs(v) >= 1e12 || decimals > 9) {
+            return write(Double.toString(v));
+        }
+        long scale = POW10[decimals];
+        long scaled = Math.round(Math.abs(v) * scale);
+        if (v < 0 && scaled != 0) write('-');
+        write(scaled / scale);
+        if (decimals > 0) {
+            write('.');
+            long frac = scaled % scale;
+            for (int k = decimals - 1; k >= 0; k--) {
+                write((char) ('0' + (frac / POW10[k]) % 10));
+            }
+        }
+        return this;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+}
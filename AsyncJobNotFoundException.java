@@ -0,0 +1,15 @@
+package com.brother.crystalviz.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 异步任务不存在或结果已过期，接口返回 404
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class AsyncJobNotFoundException extends RuntimeException {
+
+    public AsyncJobNotFoundException(String id) {
+        super("异步任务不存在或已过期: " + id);
+    }
+}
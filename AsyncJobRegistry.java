@@ -0,0 +1,77 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 异步任务表：按 UUID 保存以 Prefer: respond-async 提交的重任务，结果在完成后保留 job-ttl 供轮询
+ */
+@Component
+public class AsyncJobRegistry {
+
+    private final CrystalVizProperties properties;
+    // 插入顺序即提交顺序
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    @Autowired
+    public AsyncJobRegistry(CrystalVizProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 先在任务表中占位，再调用 submit 提交任务；任务表已满且没有可清理的已完成任务时抛出 ServerBusyException，
+     * 此时不会提交任何工作。submit 自身抛出的异常（如重任务队列已满）原样抛出，不占用位置
+     */
+    public synchronized String register(Supplier<? extends CompletableFuture<?>> submit) {
+        evictExpired();
+        if (jobs.size() >= properties.getAdmission().getMaxJobs()) {
+            Iterator<Job> it = jobs.values().iterator();
+            while (it.hasNext() && jobs.size() >= properties.getAdmission().getMaxJobs()) {
+                if (it.next().future.isDone()) {
+                    it.remove();
+                }
+            }
+            if (jobs.size() >= properties.getAdmission().getMaxJobs()) {
+                throw new ServerBusyException("异步任务过多，请稍后重试");
+            }
+        }
+        CompletableFuture<?> future = submit.get();
+        String id = UUID.randomUUID().toString();
+        Job job = new Job(future);
+        future.whenComplete((result, error) -> job.completedAt = System.currentTimeMillis());
+        jobs.put(id, job);
+        return id;
+    }
+
+    // 任务不存在或结果已过期时抛出 AsyncJobNotFoundException
+    public synchronized CompletableFuture<?> get(String id) {
+        evictExpired();
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new AsyncJobNotFoundException(id);
+        }
+        return job.future;
+    }
+
+    private void evictExpired() {
+        long deadline = System.currentTimeMillis() - properties.getAdmission().getJobTtl().toMillis();
+        jobs.values().removeIf(job -> job.future.isDone() && job.completedAt > 0 && job.completedAt < deadline);
+    }
+
+    private static final class Job {
+        final CompletableFuture<?> future;
+        volatile long completedAt;
+
+        Job(CompletableFuture<?> future) {
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.brother.crystalviz.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 重任务以 Prefer: respond-async 提交时返回的 202 响应体，结果通过 GET /api/crystal/jobs/{jobId} 轮询
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsyncJobResponse {
+    private String jobId;
+    // RUNNING：排队或执行中
+    private String status;
+}
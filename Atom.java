@@ -1,12 +1,15 @@
 package com.brother.crystalviz.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor; // 必须导入这个
 
 @Data
 @AllArgsConstructor // 生成全参构造函数 (Service里用到了)
-@NoArgsConstructor  // <--- 【关键修复】必须加这个，否则前端传JSON后端会报400
+// <--- 【关键修复】必须加这个，否则前端传JSON后端会报400
+// 同时显式指定无参构造器反序列化：前端只传 element/x/y/z 时，缺省的 radius 不能走全参构造器
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
 public class Atom {
     private String element;
     private double x;
@@ -0,0 +1,21 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 编辑会话中对单个原子的修改：未给出的字段保持原值
+ */
+@Data
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+@AllArgsConstructor
+public class AtomEdit {
+    // 原子在会话结构中的下标
+    private int index;
+    private String element;
+    private Double x;
+    private Double y;
+    private Double z;
+}
@@ -0,0 +1,15 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+@AllArgsConstructor
+public class AtomEditRequest {
+    private List<AtomEdit> edits;
+}
@@ -0,0 +1,171 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.model.Atom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 结构体数组形式的原子表：坐标存放在 double[] 中，元素用 short 编号指向去重后的元素符号表
+ * 用于超晶胞等大结构，避免为每个原子创建 Atom 对象
+ */
+public final class AtomTable {
+
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private short[] element;
+    private int size;
+
+    // 元素符号表：编号 -> 符号，以及反查
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, Short> symbolIds = new HashMap<>();
+
+    public AtomTable(int capacity) {
+        int cap = Math.max(16, capacity);
+        x = new double[cap];
+        y = new double[cap];
+        z = new double[cap];
+        element = new short[cap];
+    }
+
+    // 直接接管已填好的数组（从快照读出），数组长度均为 size
+    static AtomTable wrap(double[] x, double[] y, double[] z, short[] element, List<String> symbols) {
+        AtomTable table = new AtomTable(0);
+        table.x = x;
+        table.y = y;
+        table.z = z;
+        table.element = element;
+        table.size = x.length;
+        for (String symbol : symbols) {
+            table.elementId(symbol);
+        }
+        return table;
+    }
+
+    public static AtomTable of(List<Atom> atoms) {
+        AtomTable table = new AtomTable(atoms.size());
+        for (Atom atom : atoms) {
+            table.add(atom.getElement(), atom.getX(), atom.getY(), atom.getZ());
+        }
+        return table;
+    }
+
+    public int add(String symbol, double px, double py, double pz) {
+        return add(elementId(symbol), px, py, pz);
+    }
+
+    public int add(short elementId, double px, double py, double pz) {
+        if (size == x.length) {
+            int cap = size + (size >> 1) + 1;
+            x = Arrays.copyOf(x, cap);
+            y = Arrays.copyOf(y, cap);
+            z = Arrays.copyOf(z, cap);
+            element = Arrays.copyOf(element, cap);
+        }
+        x[size] = px;
+        y[size] = py;
+        z[size] = pz;
+        element[size] = elementId;
+        return size++;
+    }
+
+    // 元素符号登记到符号表，返回其编号
+    public short elementId(String symbol) {
+        Short id = symbolIds.get(symbol);
+        if (id == null) {
+            if (symbols.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("元素种类过多");
+            }
+            id = (short) symbols.size();
+            symbols.add(symbol);
+            symbolIds.put(symbol, id);
+        }
+        return id;
+    }
+
+    /**
+     * 沿真实晶格矢量平移生成 nx × ny × nz 超晶胞，原子顺序为 (i, j, k, 原胞原子)
+     */
+    public AtomTable replicate(Lattice lattice, int nx, int ny, int nz) {
+        long total = (long) size * nx * ny * nz;
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new StructureTooLargeException(total, Integer.MAX_VALUE - 8);
+        }
+        AtomTable out = new AtomTable((int) total);
+        out.symbols.addAll(symbols);
+        out.symbolIds.putAll(symbolIds);
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                for (int k = 0; k < nz; k++) {
+                    double tx = lattice.toCartesianX(i, j, k);
+                    double ty = lattice.toCartesianY(i, j, k);
+                    double tz = lattice.toCartesianZ(i, j, k);
+                    for (int s = 0; s < size; s++) {
+                        out.add(element[s], x[s] + tx, y[s] + ty, z[s] + tz);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    // 编辑会话中就地修改单个原子
+    public void setPosition(int i, double px, double py, double pz) {
+        x[i] = px;
+        y[i] = py;
+        z[i] = pz;
+    }
+
+    public void setElement(int i, String symbol) {
+        element[i] = elementId(symbol);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getZ(int i) {
+        return z[i];
+    }
+
+    public short getElementId(int i) {
+        return element[i];
+    }
+
+    public String getElement(int i) {
+        return symbols.get(element[i]);
+    }
+
+    public List<String> getSymbols() {
+        return symbols;
+    }
+
+    // 坐标数组直接交给 CellList 等算法使用，长度可能大于 size
+    double[] xs() {
+        return x;
+    }
+
+    double[] ys() {
+        return y;
+    }
+
+    double[] zs() {
+        return z;
+    }
+
+    short[] elementIds() {
+        return element;
+    }
+}
@@ -0,0 +1,107 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批处理执行器：固定大小的线程池（默认每个 CPU 核一个线程）并行执行任务
+ * 每个批次最多 max-in-flight 个任务在途，达到上限时暂停从输入中取任务，防止大批次占满堆
+ */
+@Component
+public class BatchExecutor implements DisposableBean {
+
+    private final ExecutorService pool;
+    private final int maxInFlight;
+
+    @Autowired
+    public BatchExecutor(CrystalVizProperties properties) {
+        CrystalVizProperties.Batch batch = properties.getBatch();
+        int threads = batch.getParallelism() > 0 ? batch.getParallelism() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "crystal-batch-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.maxInFlight = Math.max(1, batch.getMaxInFlight());
+    }
+
+    /**
+     * 接收任务结果；对同一批次的调用是串行的，实现不必线程安全
+     * error 不为 null 时表示该任务抛出了异常
+     */
+    public interface Sink<T> {
+        void accept(T result, Exception error) throws IOException;
+    }
+
+    /**
+     * 依次从 jobs 取任务提交执行，每完成一个就交给 sink，返回时所有任务均已写出
+     * sink 抛出 IOException（如客户端断开）后不再取新任务，其余在途任务的结果被丢弃，异常在最后抛出
+     */
+    public <T> void execute(Iterator<? extends Callable<T>> jobs, Sink<T> sink) throws IOException, InterruptedException {
+        Semaphore permits = new Semaphore(maxInFlight);
+        Object writeLock = new Object();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        try {
+            while (failure.get() == null) {
+                permits.acquire();
+                // 取下一个任务可能阻塞在读取请求体上，此时在途任务照常完成和写出
+                if (failure.get() != null || !jobs.hasNext()) {
+                    permits.release();
+                    break;
+                }
+                Callable<T> job = jobs.next();
+                try {
+                    pool.execute(() -> {
+                        try {
+                            T result = null;
+                            Exception error = null;
+                            try {
+                                result = job.call();
+                            } catch (Exception e) {
+                                error = e;
+                            }
+                            synchronized (writeLock) {
+                                if (failure.get() == null) {
+                                    try {
+                                        sink.accept(result, error);
+                                    } catch (IOException e) {
+                                        failure.set(e);
+                                    }
+                                }
+                            }
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        } finally {
+            // 等待在途任务全部结束，保证返回后不再有线程写输出流
+            permits.acquireUninterruptibly(maxInFlight);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchExecutorTests {
+
+    private static BatchExecutor executor(int parallelism, int maxInFlight) {
+        CrystalVizProperties properties = new CrystalVizProperties();
+        properties.getBatch().setParallelism(parallelism);
+        properties.getBatch().setMaxInFlight(maxInFlight);
+        return new BatchExecutor(properties);
+    }
+
+    // 按需生成任务，并记录同时已取出但尚未写出的任务数
+    private static Iterator<Callable<Integer>> jobs(int count, AtomicInteger inFlight, AtomicInteger peak) {
+        return new Iterator<>() {
+            int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Callable<Integer> next() {
+                int i = next++;
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return () -> {
+                    if (i % 7 == 3) throw new IllegalStateException("job " + i);
+                    Thread.sleep(i % 3);
+                    return i;
+                };
+            }
+        };
+    }
+
+    @Test
+    void everyJobIsReportedOnceWithBoundedInFlight() throws Exception {
+        BatchExecutor executor = executor(4, 8);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Set<Integer> done = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+
+        executor.execute(jobs(200, inFlight, peak), (result, error) -> {
+            inFlight.decrementAndGet();
+            if (error != null) {
+                errors.add(error.getMessage());
+            } else {
+                assertTrue(done.add(result));
+            }
+        });
+        executor.destroy();
+
+        assertEquals(200, done.size() + errors.size());
+        assertEquals(29, errors.size());
+        assertTrue(peak.get() <= 8, "peak in flight " + peak.get());
+        assertEquals(0, inFlight.get());
+    }
+
+    @Test
+    void sinkFailureStopsTakingJobs() {
+        BatchExecutor executor = executor(2, 4);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Iterator<Callable<Integer>> jobs = jobs(10_000, inFlight, peak);
+        AtomicInteger written = new AtomicInteger();
+
+        assertThrows(IOException.class, () -> executor.execute(jobs, (result, error) -> {
+            if (written.incrementAndGet() == 5) throw new IOException("client closed");
+        }));
+        executor.destroy();
+
+        assertEquals(5, written.get());
+        assertTrue(jobs.hasNext());
+    }
+}
@@ -0,0 +1,22 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批处理任务（NDJSON 的一行）：普通的 CrystalRequest 字段即可生成结构，
+ * 给出 cif（CIF 全文）或 cifPath（相对 crystalviz.batch.cif-root 的路径）时改为导入 CIF
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+public class BatchJob extends CrystalRequest {
+    // 调用方自定义的任务标识，原样写回结果
+    private String id;
+    private String cif;
+    private String cifPath;
+    // 导出格式 xyz | extxyz | poscar | cif；为空时返回完整结构
+    private String format;
+}
@@ -0,0 +1,30 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批处理结果（NDJSON 的一行），按任务完成顺序写出；index 为任务在请求中的序号（忽略空行，从 0 开始）
+ * 任务失败时只有 index、id 和 error
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+    private int index;
+    private String id;
+    // 结构的内容哈希，与 /generate、/import 返回的 ETag 相同
+    private String structureId;
+    private Integer atomCount;
+    private Integer bondCount;
+    private CrystalResponse structure;
+    // 指定 format 时的导出文件内容
+    private String content;
+    private String error;
+
+    public BatchResult(int index, String id) {
+        this.index = index;
+        this.id = id;
+    }
+}
@@ -0,0 +1,74 @@
+package com.brother.crystalviz.service;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 基准测试用的确定性结构：岩盐型 Na/Cl 简单立方点阵（间距 2.82 Å）按固定种子加微小扰动
+ * 同样的参数总是生成完全相同的结构，每个原子约有 6 条 Na–Cl 键
+ */
+public final class BenchmarkStructures {
+
+    static final double SPACING = 2.82;
+    private static final double JITTER = 0.05;
+    private static final long SEED = 42;
+
+    private BenchmarkStructures() {
+    }
+
+    // 含化学键的完整结构，晶格为覆盖全部格点的立方晶胞
+    public static Structure rockSaltStructure(int atoms) {
+        double length = side(atoms) * SPACING;
+        return new CrystalService().assemble(rockSalt(atoms),
+                Lattice.fromParameters(length, length, length, 90, 90, 90), false);
+    }
+
+    // 每边的格点数，保证 side³ >= atoms
+    static int side(int atoms) {
+        int side = (int) Math.ceil(Math.cbrt(atoms));
+        while ((long) side * side * side < atoms) side++;
+        return side;
+    }
+
+    public static AtomTable rockSalt(int atoms) {
+        int side = side(atoms);
+        Random random = new Random(SEED);
+        AtomTable table = new AtomTable(atoms);
+        short na = table.elementId("Na"), cl = table.elementId("Cl");
+        for (int i = 0; i < atoms; i++) {
+            int x = i % side, y = (i / side) % side, z = i / (side * side);
+            table.add((x + y + z) % 2 == 0 ? na : cl,
+                    x * SPACING + jitter(random), y * SPACING + jitter(random), z * SPACING + jitter(random));
+        }
+        return table;
+    }
+
+    // 与 rockSalt 相同排布的 CIF 文本，晶胞边长为 side × 2.82 Å，坐标写为分数坐标
+    public static String rockSaltCif(int atoms) {
+        int side = side(atoms);
+        double length = side * SPACING;
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(256 + atoms * 48);
+        sb.append("data_bench_").append(atoms).append('\n');
+        for (String axis : new String[]{"a", "b", "c"}) {
+            sb.append("_cell_length_").append(axis).append(' ').append(length).append('\n');
+        }
+        sb.append("_cell_angle_alpha 90\n_cell_angle_beta 90\n_cell_angle_gamma 90\n");
+        sb.append("loop_\n_atom_site_label\n_atom_site_type_symbol\n")
+                .append("_atom_site_fract_x\n_atom_site_fract_y\n_atom_site_fract_z\n");
+        for (int i = 0; i < atoms; i++) {
+            int x = i % side, y = (i / side) % side, z = i / (side * side);
+            String element = (x + y + z) % 2 == 0 ? "Na" : "Cl";
+            sb.append(element).append(i + 1).append(' ').append(element)
+                    .append(String.format(Locale.ROOT, " %.6f %.6f %.6f\n",
+                            (x * SPACING + jitter(random)) / length,
+                            (y * SPACING + jitter(random)) / length,
+                            (z * SPACING + jitter(random)) / length));
+        }
+        return sb.toString();
+    }
+
+    private static double jitter(Random random) {
+        return (random.nextDouble() * 2 - 1) * JITTER;
+    }
+}
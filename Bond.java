@@ -1,4 +1,5 @@
 package com.brother.crystalviz.model;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Data
@@ -7,4 +8,11 @@ import lombok.*;
 public class Bond {
     private Atom start;
     private Atom end;
+    // 周期性成键时 end 所在的周期像 (na, nb, nc)，即 end 需平移 na*a + nb*b + nc*c；非周期模式为 null
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private int[] image;
+
+    public Bond(Atom start, Atom end) {
+        this(start, end, null);
+    }
 }
\ No newline at end of file
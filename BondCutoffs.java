@@ -0,0 +1,56 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+
+/**
+ * 按结构预先计算的元素对截断矩阵
+ * 下标为 AtomTable 的元素编号，成键判定只需一次数组访问，不再在内层循环中查找字符串
+ */
+final class BondCutoffs {
+
+    private final int kinds;
+    // 键长上限的平方，kinds × kinds 行优先存放
+    private final double[] max2;
+    private final double min2;
+    private final double maxCutoff;
+
+    private BondCutoffs(int kinds, double[] max2, double min2, double maxCutoff) {
+        this.kinds = kinds;
+        this.max2 = max2;
+        this.min2 = min2;
+        this.maxCutoff = maxCutoff;
+    }
+
+    static BondCutoffs of(AtomTable atoms, CrystalVizProperties.Bonding bonding) {
+        int kinds = atoms.getSymbols().size();
+        boolean covalent = bonding.getRule() == CrystalVizProperties.BondRule.COVALENT;
+
+        double[] radii = new double[kinds];
+        for (int e = 0; e < kinds; e++) {
+            radii[e] = PeriodicTable.covalentRadius(PeriodicTable.atomicNumber(atoms.getSymbols().get(e)));
+        }
+
+        double[] max2 = new double[kinds * kinds];
+        double maxCutoff = 0;
+        for (int e = 0; e < kinds; e++) {
+            for (int f = 0; f < kinds; f++) {
+                double r = radii[e] + radii[f] + bonding.getCovalentTolerance();
+                // 未知元素（无共价半径）退回固定窗口上限
+                double cutoff = covalent && !Double.isNaN(r) ? r : bonding.getMaxLength();
+                max2[e * kinds + f] = cutoff * cutoff;
+                maxCutoff = Math.max(maxCutoff, cutoff);
+            }
+        }
+        double min = covalent ? bonding.getCovalentMinLength() : bonding.getMinLength();
+        return new BondCutoffs(kinds, max2, min * min, kinds == 0 ? bonding.getMaxLength() : maxCutoff);
+    }
+
+    boolean isBond(int e, int f, double dist2) {
+        return dist2 >= min2 && dist2 <= max2[e * kinds + f];
+    }
+
+    // 所有元素对中最大的截断距离，用作近邻搜索半径
+    double getMaxCutoff() {
+        return maxCutoff;
+    }
+}
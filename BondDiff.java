@@ -0,0 +1,20 @@
+package com.brother.crystalviz.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 一次编辑后的化学键变化，每条键为一对原子下标 [start, end]（start < end）
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BondDiff {
+    private List<int[]> added;
+    private List<int[]> removed;
+    // 编辑后的总键数，便于前端核对
+    private int bondCount;
+}
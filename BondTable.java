@@ -0,0 +1,95 @@
+package com.brother.crystalviz.service;
+
+import java.util.Arrays;
+
+/**
+ * 化学键表：端点以原子下标成对存放，周期性成键时另存 end 的周期像偏移 (na, nb, nc)
+ * 与 AtomTable 配合使用，不持有 Atom 对象
+ */
+public final class BondTable {
+
+    private int[] ends;
+    private int[] images;
+    private int size;
+
+    public BondTable(int capacity, boolean periodic) {
+        int cap = Math.max(16, capacity);
+        ends = new int[cap * 2];
+        images = periodic ? new int[cap * 3] : null;
+    }
+
+    // 由排序后的 PairBuffer 构建（非周期）
+    static BondTable of(PairBuffer pairs) {
+        BondTable table = new BondTable(pairs.size(), false);
+        for (int k = 0; k < pairs.size(); k++) {
+            table.add(pairs.first(k), pairs.second(k));
+        }
+        return table;
+    }
+
+    // 直接接管端点数组 [start0, end0, start1, ...] 与像偏移数组（非周期为 null）
+    static BondTable wrap(int[] ends, int[] images) {
+        BondTable table = new BondTable(0, false);
+        table.ends = ends;
+        table.images = images;
+        table.size = ends.length / 2;
+        return table;
+    }
+
+    public void add(int start, int end) {
+        grow();
+        ends[2 * size] = start;
+        ends[2 * size + 1] = end;
+        size++;
+    }
+
+    public void add(int start, int end, int na, int nb, int nc) {
+        grow();
+        ends[2 * size] = start;
+        ends[2 * size + 1] = end;
+        images[3 * size] = na;
+        images[3 * size + 1] = nb;
+        images[3 * size + 2] = nc;
+        size++;
+    }
+
+    private void grow() {
+        if (2 * size == ends.length) {
+            int cap = size + (size >> 1) + 1;
+            ends = Arrays.copyOf(ends, cap * 2);
+            if (images != null) {
+                images = Arrays.copyOf(images, cap * 3);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getStart(int k) {
+        return ends[2 * k];
+    }
+
+    public int getEnd(int k) {
+        return ends[2 * k + 1];
+    }
+
+    public boolean isPeriodic() {
+        return images != null;
+    }
+
+    // 端点与像偏移数组，长度可能大于 size
+    int[] ends() {
+        return ends;
+    }
+
+    int[] images() {
+        return images;
+    }
+
+    // axis: 0/1/2 对应 a/b/c 方向的周期像偏移
+    public int getImage(int k, int axis) {
+        return images[3 * k + axis];
+    }
+}
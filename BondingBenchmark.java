@@ -0,0 +1,50 @@
+package com.brother.crystalviz.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 成键与重叠检查（Cell List 路径），结构见 BenchmarkStructures
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BondingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int atoms;
+
+    private final CrystalService service = new CrystalService();
+    private AtomTable table;
+
+    @Setup
+    public void setUp() {
+        table = BenchmarkStructures.rockSalt(atoms);
+    }
+
+    @Benchmark
+    public BondTable calculateBonds() {
+        return service.calculateBonds(table);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public List<String> checkErrors() {
+        return service.checkErrors(table);
+    }
+}
@@ -0,0 +1,20 @@
+package com.brother.crystalviz.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 结构缓存统计，GET /api/crystal/cache/stats 返回
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    // 缓存结构的估算占用字节数
+    private long weightBytes;
+}
@@ -0,0 +1,253 @@
+package com.brother.crystalviz.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 空间哈希（Cell List）近邻搜索
+ * 按截断半径把原子分箱，只比较相邻格子里的原子对，复杂度近似 O(N)
+ * 坐标以 double[] 传入，整个过程不创建 Atom 对象
+ */
+public final class CellList {
+
+    @FunctionalInterface
+    public interface PairVisitor {
+        // i < j，dist2 为两原子距离的平方
+        void visit(int i, int j, double dist2);
+    }
+
+    @FunctionalInterface
+    public interface PairFilter {
+        // 返回 true 的原子对被收集
+        boolean accept(int i, int j, double dist2);
+    }
+
+    // 13 个“正向”相邻格子（半壳），加上格子本身即可覆盖 27 邻域且每对原子只访问一次
+    private static final int[][] HALF_SHELL = buildHalfShell();
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final double cellSize;
+    private final double minX, minY, minZ;
+    private final int nx, ny, nz;
+    // CSR 布局：cellAtoms[cellStart[c] .. cellStart[c+1]) 为格子 c 内的原子下标
+    private final int[] cellStart;
+    private final int[] cellAtoms;
+
+    public CellList(double[] x, double[] y, double[] z, int n, double cutoff) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+
+        double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY, loZ = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY, hiZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (!Double.isFinite(x[i]) || !Double.isFinite(y[i]) || !Double.isFinite(z[i])) {
+                throw new IllegalArgumentException("第 " + i + " 个原子坐标非法");
+            }
+            loX = Math.min(loX, x[i]); hiX = Math.max(hiX, x[i]);
+            loY = Math.min(loY, y[i]); hiY = Math.max(hiY, y[i]);
+            loZ = Math.min(loZ, z[i]); hiZ = Math.max(hiZ, z[i]);
+        }
+        if (n == 0) {
+            loX = loY = loZ = hiX = hiY = hiZ = 0;
+        }
+        this.minX = loX;
+        this.minY = loY;
+        this.minZ = loZ;
+
+        // 格子边长不小于截断半径；结构很稀疏时放大格子，避免格子数远超原子数
+        double size = Math.max(cutoff, 1e-6);
+        double maxCells = Math.max(64, 2.0 * n);
+        while (dim(hiX - loX, size) * dim(hiY - loY, size) * dim(hiZ - loZ, size) > maxCells) {
+            size *= 1.26;
+        }
+        this.cellSize = size;
+        this.nx = (int) dim(hiX - loX, size);
+        this.ny = (int) dim(hiY - loY, size);
+        this.nz = (int) dim(hiZ - loZ, size);
+
+        // 计数排序建立 CSR 索引
+        int cells = nx * ny * nz;
+        int[] cellOf = new int[n];
+        int[] start = new int[cells + 1];
+        for (int i = 0; i < n; i++) {
+            int c = cellIndex(x[i], y[i], z[i]);
+            cellOf[i] = c;
+            start[c + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            start[c + 1] += start[c];
+        }
+        int[] fill = new int[cells];
+        int[] atoms = new int[n];
+        for (int i = 0; i < n; i++) {
+            int c = cellOf[i];
+            atoms[start[c] + fill[c]++] = i;
+        }
+        this.cellStart = start;
+        this.cellAtoms = atoms;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * 遍历所有距离不超过 maxDist 的原子对，每对只回调一次
+     */
+    public void forEachPair(double maxDist, PairVisitor visitor) {
+        if (maxDist > cellSize) {
+            throw new IllegalArgumentException("搜索半径 " + maxDist + " 超过格子边长 " + cellSize);
+        }
+        visitCells(0, nx * ny * nz, maxDist * maxDist, visitor);
+    }
+
+    /**
+     * 并行收集距离不超过 maxDist 且通过 filter 的原子对
+     * 按格子编号切成若干块（每块约 chunkAtoms 个原子），每块一个 fork/join 任务并写入自己的缓冲区，热路径上无锁；
+     * 各块按格子顺序拼接，结果与 forEachPair 的回调顺序完全相同
+     */
+    PairBuffer collectPairs(double maxDist, PairFilter filter, ForkJoinPool pool, int chunkAtoms) {
+        if (maxDist > cellSize) {
+            throw new IllegalArgumentException("搜索半径 " + maxDist + " 超过格子边长 " + cellSize);
+        }
+        double max2 = maxDist * maxDist;
+        List<int[]> ranges = chunks(chunkAtoms);
+
+        PairBuffer[] parts = new PairBuffer[ranges.size()];
+        List<RecursiveAction> tasks = new ArrayList<>(ranges.size());
+        for (int k = 0; k < ranges.size(); k++) {
+            int part = k;
+            int[] range = ranges.get(k);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    PairBuffer buffer = new PairBuffer(cellStart[range[1]] - cellStart[range[0]]);
+                    visitCells(range[0], range[1], max2, (i, j, d2) -> {
+                        if (filter.accept(i, j, d2)) {
+                            buffer.add(i, j);
+                        }
+                    });
+                    parts[part] = buffer;
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        return PairBuffer.concat(parts);
+    }
+
+    /**
+     * 按原子数把格子编号切成若干连续区间 [from, to)，每块约 chunkAtoms 个原子
+     * cellStart 是前缀和，块边界落在格子边界上
+     */
+    List<int[]> chunks(int chunkAtoms) {
+        int cells = nx * ny * nz;
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        for (int c = 0; c < cells; c++) {
+            if (cellStart[c + 1] - cellStart[from] >= chunkAtoms) {
+                ranges.add(new int[]{from, c + 1});
+                from = c + 1;
+            }
+        }
+        if (from < cells) {
+            ranges.add(new int[]{from, cells});
+        }
+        return ranges;
+    }
+
+    /**
+     * 只遍历 chunks 返回的一块格子，各块的原子对互不重复，合起来与 forEachPair 相同
+     */
+    void forEachPair(int[] chunk, double maxDist, PairVisitor visitor) {
+        if (maxDist > cellSize) {
+            throw new IllegalArgumentException("搜索半径 " + maxDist + " 超过格子边长 " + cellSize);
+        }
+        visitCells(chunk[0], chunk[1], maxDist * maxDist, visitor);
+    }
+
+    // 处理编号在 [from, to) 内的格子：格子内部的原子对，以及与半壳相邻格子之间的原子对
+    private void visitCells(int from, int to, double max2, PairVisitor visitor) {
+        for (int c = from; c < to; c++) {
+            int begin = cellStart[c];
+            int end = cellStart[c + 1];
+            if (begin == end) continue;
+            int cx = c % nx;
+            int cy = (c / nx) % ny;
+            int cz = c / (nx * ny);
+
+            // 同一格子内
+            for (int p = begin; p < end; p++) {
+                for (int q = p + 1; q < end; q++) {
+                    visit(cellAtoms[p], cellAtoms[q], max2, visitor);
+                }
+            }
+
+            // 半壳相邻格子
+            for (int[] off : HALF_SHELL) {
+                int ox = cx + off[0], oy = cy + off[1], oz = cz + off[2];
+                if (ox < 0 || oy < 0 || oz < 0 || ox >= nx || oy >= ny || oz >= nz) continue;
+                int o = (oz * ny + oy) * nx + ox;
+                int oBegin = cellStart[o];
+                int oEnd = cellStart[o + 1];
+                for (int p = begin; p < end; p++) {
+                    for (int q = oBegin; q < oEnd; q++) {
+                        visit(cellAtoms[p], cellAtoms[q], max2, visitor);
+                    }
+                }
+            }
+        }
+    }
+
+    private void visit(int a, int b, double max2, PairVisitor visitor) {
+        int i = Math.min(a, b);
+        int j = Math.max(a, b);
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        double dz = z[i] - z[j];
+        double d2 = dx * dx + dy * dy + dz * dz;
+        if (d2 <= max2) {
+            visitor.visit(i, j, d2);
+        }
+    }
+
+    private int cellIndex(double px, double py, double pz) {
+        int cx = clamp((int) ((px - minX) / cellSize), nx);
+        int cy = clamp((int) ((py - minY) / cellSize), ny);
+        int cz = clamp((int) ((pz - minZ) / cellSize), nz);
+        return (cz * ny + cy) * nx + cx;
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : (v >= n ? n - 1 : v);
+    }
+
+    private static double dim(double extent, double size) {
+        return Math.floor(extent / size) + 1;
+    }
+
+    private static int[][] buildHalfShell() {
+        int[][] shell = new int[13][];
+        int k = 0;
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    boolean forward = dz > 0 || (dz == 0 && (dy > 0 || (dy == 0 && dx > 0)));
+                    if (forward) {
+                        shell[k++] = new int[]{dx, dy, dz};
+                    }
+                }
+            }
+        }
+        return shell;
+    }
+}
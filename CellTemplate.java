@@ -0,0 +1,67 @@
+package com.brother.crystalviz.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内置晶格类型的原胞模板：元素与分数坐标在类加载时建好，之后只读共享
+ * 生成时按请求的晶格一次性批量转换为笛卡尔坐标
+ */
+final class CellTemplate {
+
+    private static final Map<String, CellTemplate> TEMPLATES = new HashMap<>();
+    // 未知类型按简单立方处理
+    private static final CellTemplate DEFAULT = new CellTemplate(new String[]{"Fe"}, new double[][]{{0, 0, 0}});
+
+    static {
+        // 钋是唯一简单立方堆积的单质
+        TEMPLATES.put("SC", new CellTemplate(new String[]{"Po"}, new double[][]{{0, 0, 0}}));
+        TEMPLATES.put("BCC", new CellTemplate(new String[]{"Fe", "Fe"},
+                new double[][]{{0, 0, 0}, {0.5, 0.5, 0.5}}));
+        TEMPLATES.put("FCC", new CellTemplate(new String[]{"Cu", "Cu", "Cu", "Cu"},
+                new double[][]{{0, 0, 0}, {0.5, 0.5, 0}, {0.5, 0, 0.5}, {0, 0.5, 0.5}}));
+        // 岩盐结构：Na 占面心立方格点，Cl 相对位移 (0.5, 0.5, 0.5)
+        TEMPLATES.put("NaCl", new CellTemplate(new String[]{"Na", "Na", "Na", "Na", "Cl", "Cl", "Cl", "Cl"},
+                new double[][]{{0, 0, 0}, {0.5, 0.5, 0}, {0.5, 0, 0.5}, {0, 0.5, 0.5},
+                        {0.5, 0.5, 0.5}, {0.5, 0, 0}, {0, 0.5, 0}, {0, 0, 0.5}}));
+        // 六方密堆：(0, 0, 0) 与 (2/3, 1/3, 1/2)，需要请求给出 gamma = 120°
+        TEMPLATES.put("HEX", new CellTemplate(new String[]{"Mg", "Mg"},
+                new double[][]{{0, 0, 0}, {2.0 / 3.0, 1.0 / 3.0, 0.5}}));
+    }
+
+    private final List<String> symbols;
+    private final short[] elements;
+    private final double[] u, v, w;
+
+    private CellTemplate(String[] sites, double[][] frac) {
+        AtomTable registry = new AtomTable(sites.length);
+        this.elements = new short[sites.length];
+        this.u = new double[sites.length];
+        this.v = new double[sites.length];
+        this.w = new double[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            elements[i] = registry.elementId(sites[i]);
+            u[i] = frac[i][0];
+            v[i] = frac[i][1];
+            w[i] = frac[i][2];
+        }
+        this.symbols = List.copyOf(registry.getSymbols());
+    }
+
+    static CellTemplate of(String latticeType) {
+        return TEMPLATES.getOrDefault(latticeType, DEFAULT);
+    }
+
+    int size() {
+        return elements.length;
+    }
+
+    // 按晶格把模板放置为笛卡尔坐标的原子表，每次返回新的可修改副本
+    AtomTable place(Lattice lattice) {
+        int n = elements.length;
+        double[] x = new double[n], y = new double[n], z = new double[n];
+        lattice.toCartesian(u, v, w, x, y, z, n);
+        return AtomTable.wrap(x, y, z, elements.clone(), symbols);
+    }
+}
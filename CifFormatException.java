@@ -0,0 +1,16 @@
+package com.brother.crystalviz.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 上传的 CIF 内容无法解析（如对称操作格式错误）时抛出，接口返回 400
+ * 继承 IllegalArgumentException，按参数错误处理的调用方（批处理）无需改动
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class CifFormatException extends IllegalArgumentException {
+
+    public CifFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,43 @@
+package com.brother.crystalviz.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CIF 导入全流程（分词、解析、成键、校验报告），输入为 BenchmarkStructures 生成的合成 CIF
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CifImportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int atoms;
+
+    private final CrystalService service = new CrystalService();
+    private String cif;
+
+    @Setup
+    public void setUp() {
+        cif = BenchmarkStructures.rockSaltCif(atoms);
+    }
+
+    @Benchmark
+    public Structure importCif() {
+        return service.importCifLogic(cif);
+    }
+}
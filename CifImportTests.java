@@ -0,0 +1,165 @@
+package com.brother.crystalviz.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CifImportTests {
+
+    private static final String NACL_CIF = String.join("\n",
+            "data_NaCl",
+            "_chemical_name_common 'sodium chloride' # 注释",
+            "_cell_length_a 5.6402(3)",
+            "_cell_length_b 5.6402(3)",
+            "_cell_length_c 5.6402(3)",
+            "_cell_angle_alpha 90",
+            "_cell_angle_beta 90",
+            "_cell_angle_gamma 90",
+            "_publ_section_comment",
+            ";",
+            " loop_ _atom_site_label 这里是文本域，不应被解析",
+            ";",
+            "loop_",
+            "_atom_site_label",
+            "_atom_site_type_symbol",
+            "_atom_site_fract_x",
+            "_atom_site_fract_y",
+            "_atom_site_fract_z",
+            "Na1 Na+ 0.0 0.0 0.0",
+            "Cl1 Cl- 0.5 0.5 0.5",
+            "loop_",
+            "_atom_site_aniso_label",
+            "_atom_site_aniso_U_11",
+            "Na1 0.01(1)",
+            "Cl1 0.02(1)",
+            "");
+
+    private final CrystalService service = new CrystalService();
+
+    @AfterEach
+    void close() {
+        service.destroy();
+    }
+
+    @Test
+    void importsCellAndAtomSites() {
+        Structure structure = service.importCifLogic(NACL_CIF);
+
+        assertEquals(5.6402, structure.getLattice().getA(), 1e-12);
+        assertEquals(90, structure.getLattice().getGamma(), 1e-12);
+        assertEquals(2, structure.getAtoms().size());
+        assertEquals("Na", structure.getAtoms().getElement(0));
+        assertEquals("Cl", structure.getAtoms().getElement(1));
+        assertEquals(2.8201, structure.getAtoms().getX(1), 1e-9);
+    }
+
+    @Test
+    void expandsSymmetryAndMergesSpecialPositions() {
+        String cif = String.join("\n",
+                "data_Cu",
+                "_cell_length_a 3.615",
+                "_cell_length_b 3.615",
+                "_cell_length_c 3.615",
+                "loop_",
+                "_space_group_symop_id",
+                "_space_group_symop_operation_xyz",
+                "1 'x, y, z'",
+                "2 'x, y+1/2, z+1/2'",
+                "3 '1/2+x, y, 1/2+z'",
+                "4 'x+1/2, y+1/2, z'",
+                "5 '-x, -y, -z'",
+                "loop_",
+                "_atom_site_label",
+                "_atom_site_fract_x",
+                "_atom_site_fract_y",
+                "_atom_site_fract_z",
+                "Cu1 0 0 0",
+                "");
+        assertEquals(4, service.importCifLogic(cif).getAtoms().size());
+
+        // 六方晶胞中 (1/3, 2/3, z) 位于三重轴上，四位小数的坐标也应合并为一个位置
+        String hex = String.join("\n",
+                "data_hex",
+                "_cell_length_a 3.21",
+                "_cell_length_b 3.21",
+                "_cell_length_c 5.21",
+                "_cell_angle_gamma 120",
+                "loop_",
+                "_symmetry_equiv_pos_as_xyz",
+                "x,y,z",
+                "-y,x-y,z",
+                "-x+y,-x,z",
+                "loop_",
+                "_atom_site_label",
+                "_atom_site_fract_x",
+                "_atom_site_fract_y",
+                "_atom_site_fract_z",
+                "Mg1 0.3333 0.6667 0.25",
+                "Mg2 0.1 0.2 0.5",
+                "");
+        AtomTable atoms = service.importCifLogic(hex).getAtoms();
+        assertEquals(4, atoms.size());
+        // 完整晶格矩阵：b 轴与 x 轴成 120°
+        assertEquals(3.21 * (0.3333 - 0.6667 * 0.5), atoms.getX(0), 1e-9);
+    }
+
+    @Test
+    void malformedSymmetryOperatorIsReportedByName() {
+        String cif = String.join("\n",
+                "data_bad",
+                "_cell_length_a 4",
+                "_cell_length_b 4",
+                "_cell_length_c 4",
+                "loop_",
+                "_symmetry_equiv_pos_as_xyz",
+                "x,y,z",
+                "-x,1.2.3+y,z",
+                "loop_",
+                "_atom_site_label",
+                "_atom_site_fract_x",
+                "_atom_site_fract_y",
+                "_atom_site_fract_z",
+                "Fe1 0.1 0.2 0.3",
+                "");
+        CifFormatException e = assertThrows(CifFormatException.class, () -> service.importCifLogic(cif));
+        assertTrue(e.getMessage().contains("第 2 个"));
+        assertTrue(e.getMessage().contains("-x,1.2.3+y,z"));
+        assertThrows(CifFormatException.class, () -> SymmetryOperations.compile(List.of("x,y")));
+    }
+
+    @Test
+    void tokenizesQuotedValuesAndTextFields() throws IOException {
+        CifTokenizer tokens = new CifTokenizer(new StringReader("_a 'it''s ok' \"x y\"\n;\nline1\nline2\n;\n_b ?"));
+        assertEquals(CifTokenizer.Type.TAG, tokens.next());
+        assertEquals(CifTokenizer.Type.VALUE, tokens.next());
+        assertEquals("it''s ok", tokens.text());
+        assertEquals(CifTokenizer.Type.VALUE, tokens.next());
+        assertEquals("x y", tokens.text());
+        assertEquals(CifTokenizer.Type.VALUE, tokens.next());
+        assertEquals("\nline1\nline2", tokens.text());
+        assertEquals(CifTokenizer.Type.TAG, tokens.next());
+        assertEquals(CifTokenizer.Type.VALUE, tokens.next());
+        assertTrue(Double.isNaN(tokens.number()));
+        assertEquals(CifTokenizer.Type.EOF, tokens.next());
+    }
+
+    @Test
+    void numbersMatchDoubleParseDouble() throws IOException {
+        Random random = new Random(1);
+        for (int k = 0; k < 5000; k++) {
+            String text = (random.nextBoolean() ? "-" : "") + random.nextInt(100000) + "." + random.nextInt(1000000)
+                    + (random.nextInt(4) == 0 ? "e" + (random.nextInt(40) - 20) : "");
+            CifTokenizer tokens = new CifTokenizer(new StringReader(text + "(12)"));
+            tokens.next();
+            assertEquals(Double.parseDouble(text), tokens.number(), 0.0, text);
+        }
+    }
+}
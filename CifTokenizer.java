@@ -0,0 +1,253 @@
+package com.brother.crystalviz.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * 流式 CIF 词法分析器
+ * 直接从 Reader 按块读取，逐个产出 token，不做整文件拷贝、不使用正则；
+ * 支持 # 注释、单/双引号值、分号文本域 (;...;)，数值可就地解析（含 0.123(5) 形式的不确定度）
+ */
+public final class CifTokenizer {
+
+    public enum Type { TAG, LOOP, DATA, VALUE, EOF }
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private final char[] in = new char[8192];
+    private int pos;
+    private int limit;
+    private boolean lineStart = true;
+    private int prev = '\n';
+
+    // 当前 token（复用缓冲区，不为每个 token 分配 String）
+    private char[] tok = new char[64];
+    private int len;
+    private Type type;
+    private boolean quoted;
+
+    public CifTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * 读取下一个 token
+     */
+    public Type next() throws IOException {
+        len = 0;
+        quoted = false;
+        int ch;
+        // 跳过空白和注释
+        while (true) {
+            ch = read();
+            if (ch < 0) {
+                return type = Type.EOF;
+            }
+            if (ch == '#') {
+                while (ch >= 0 && ch != '\n' && ch != '\r') ch = read();
+                if (ch < 0) return type = Type.EOF;
+                continue;
+            }
+            if (!isSpace(ch)) break;
+        }
+
+        if (ch == ';' && lineStart) {
+            readTextField();
+            return type = Type.VALUE;
+        }
+        if (ch == '\'' || ch == '"') {
+            readQuoted(ch);
+            return type = Type.VALUE;
+        }
+
+        append(ch);
+        while ((ch = peek()) >= 0 && !isSpace(ch)) {
+            append(read());
+        }
+        if (tok[0] == '_') return type = Type.TAG;
+        if (startsWithIgnoreCase("loop_") && len == 5) return type = Type.LOOP;
+        if (startsWithIgnoreCase("data_")) return type = Type.DATA;
+        return type = Type.VALUE;
+    }
+
+    // 当前 token 是否等于 s（忽略大小写，CIF 标签不区分大小写）
+    public boolean is(String s) {
+        return len == s.length() && startsWithIgnoreCase(s);
+    }
+
+    public boolean startsWithIgnoreCase(String prefix) {
+        if (len < prefix.length()) return false;
+        for (int k = 0; k < prefix.length(); k++) {
+            if (Character.toLowerCase(tok[k]) != Character.toLowerCase(prefix.charAt(k))) return false;
+        }
+        return true;
+    }
+
+    // 标签 token 中是否包含 s（忽略大小写）
+    public boolean contains(String s) {
+        outer:
+        for (int start = 0; start + s.length() <= len; start++) {
+            for (int k = 0; k < s.length(); k++) {
+                if (Character.toLowerCase(tok[start + k]) != Character.toLowerCase(s.charAt(k))) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public String text() {
+        return new String(tok, 0, len);
+    }
+
+    // CIF 中 ? 表示未知，. 表示不适用
+    public boolean isPlaceholder() {
+        return !quoted && len == 1 && (tok[0] == '?' || tok[0] == '.');
+    }
+
+    /**
+     * 就地解析数值，忽略末尾的不确定度括号，例如 0.123(5) -> 0.123
+     * 占位符 ? 和 . 返回 NaN；无法解析时抛出 NumberFormatException
+     */
+    public double number() {
+        if (isPlaceholder()) return Double.NaN;
+        int end = len;
+        for (int k = 0; k < len; k++) {
+            if (tok[k] == '(') {
+                end = k;
+                break;
+            }
+        }
+
+        int k = 0;
+        boolean negative = false;
+        if (k < end && (tok[k] == '-' || tok[k] == '+')) {
+            negative = tok[k] == '-';
+            k++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        for (; k < end && tok[k] >= '0' && tok[k] <= '9'; k++) {
+            any = true;
+            if (mantissa != 0 || tok[k] != '0') digits++;
+            if (digits <= 18) mantissa = mantissa * 10 + (tok[k] - '0');
+            else scale++;
+        }
+        if (k < end && tok[k] == '.') {
+            k++;
+            for (; k < end && tok[k] >= '0' && tok[k] <= '9'; k++) {
+                any = true;
+                if (mantissa != 0 || tok[k] != '0') digits++;
+                if (digits <= 18) {
+                    mantissa = mantissa * 10 + (tok[k] - '0');
+                    scale--;
+                }
+            }
+        }
+        if (!any) throw new NumberFormatException("不是数值: " + new String(tok, 0, len));
+        int exp = 0;
+        if (k < end && (tok[k] == 'e' || tok[k] == 'E')) {
+            k++;
+            boolean expNegative = false;
+            if (k < end && (tok[k] == '-' || tok[k] == '+')) {
+                expNegative = tok[k] == '-';
+                k++;
+            }
+            boolean expAny = false;
+            for (; k < end && tok[k] >= '0' && tok[k] <= '9'; k++) {
+                expAny = true;
+                if (exp < 10000) exp = exp * 10 + (tok[k] - '0');
+            }
+            if (!expAny) throw new NumberFormatException("指数格式错误: " + new String(tok, 0, len));
+            if (expNegative) exp = -exp;
+        }
+        if (k != end) throw new NumberFormatException("不是数值: " + new String(tok, 0, len));
+
+        double value;
+        int e10 = scale + exp;
+        // 快速路径：尾数不超过 15 位且 10 的幂可精确表示时，一次乘/除即可得到正确舍入的结果
+        if (digits <= 15 && Math.abs(e10) <= 22) {
+            value = e10 >= 0 ? mantissa * POW10[e10] : mantissa / POW10[-e10];
+        } else {
+            value = Double.parseDouble(new String(tok, 0, end));
+            return value;
+        }
+        return negative ? -value : value;
+    }
+
+    private void readQuoted(int quote) throws IOException {
+        quoted = true;
+        int ch;
+        while ((ch = read()) >= 0) {
+            // 引号后紧跟空白或文件结束才算闭合，例如 'O''Brien' 中间的引号属于内容
+            if (ch == quote) {
+                int after = peek();
+                if (after < 0 || isSpace(after)) return;
+            }
+            if (ch == '\n' || ch == '\r') return;
+            append(ch);
+        }
+    }
+
+    private void readTextField() throws IOException {
+        quoted = true;
+        int ch;
+        while ((ch = read()) >= 0) {
+            if (ch == ';' && lineStart) {
+                // 去掉结束分号前的换行
+                while (len > 0 && (tok[len - 1] == '\n' || tok[len - 1] == '\r')) len--;
+                return;
+            }
+            append(ch);
+        }
+    }
+
+    private void append(int ch) {
+        if (len == tok.length) {
+            tok = Arrays.copyOf(tok, tok.length * 2);
+        }
+        tok[len++] = (char) ch;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        int ch = in[pos++];
+        // lineStart 表示刚读出的字符是否位于行首
+        lineStart = prev == '\n' || prev == '\r';
+        prev = ch;
+        return ch;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return in[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(in, 0, in.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private static boolean isSpace(int ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+    }
+}
@@ -0,0 +1,213 @@
+package com.brother.crystalviz.config;
+
+import com.brother.crystalviz.model.CrystalResponse;
+import com.brother.crystalviz.service.AtomTable;
+import com.brother.crystalviz.service.BondTable;
+import com.brother.crystalviz.service.CrystalService;
+import com.brother.crystalviz.service.Lattice;
+import com.brother.crystalviz.service.Structure;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * CrystalResponse 的二进制结构数组 (SoA) 编码，客户端通过 Accept 头协商
+ * 直接按响应携带的原子表/键表编码：调色板即原子表的元素表，原子与键的下标沿用表内下标
+ * 布局（小端序，各数组按 4 字节对齐，前端可直接构造 TypedArray）：
+ * <pre>
+ *  0  char[4]   magic "CVZB"
+ *  4  uint16    版本号 (1)
+ *  6  uint16    标志位，bit0 = 含周期像偏移
+ *  8  int32     原子数 N
+ * 12  int32     键数 B
+ * 16  int32     调色板条目数 P
+ * 20  int32     调色板区字节数（含对齐填充）
+ * 24  float64×6 a, b, c, alpha, beta, gamma
+ * 72  调色板：P × { uint8 len, 元素符号; uint8 len, 颜色; float32 半径 }
+ *     float32[3N]  坐标 x0 y0 z0 x1 ...
+ *     uint16[N]    每个原子的调色板下标（补齐到 4 字节）
+ *     int32[2B]    键的原子下标对
+ *     int16[3B]    周期像偏移（仅当 bit0 置位，补齐到 4 字节）
+ * </pre>
+ */
+public class CrystalBinaryMessageConverter extends AbstractHttpMessageConverter<CrystalResponse> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.crystalviz.soa";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final byte[] MAGIC = {'C', 'V', 'Z', 'B'};
+    private static final int VERSION = 1;
+    private static final int FLAG_IMAGES = 1;
+    private static final int HEADER_BYTES = 72;
+
+    public CrystalBinaryMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CrystalResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        // 只用于输出
+        return false;
+    }
+
+    @Override
+    protected CrystalResponse readInternal(Class<? extends CrystalResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持读取二进制结构格式", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(CrystalResponse response, HttpOutputMessage outputMessage) throws IOException {
+        Structure structure = response.getStructure();
+        if (structure == null) {
+            throw new HttpMessageNotWritableException("响应未携带原子表，无法使用二进制格式");
+        }
+        AtomTable atoms = structure.getAtoms();
+        BondTable bonds = structure.getBonds();
+        Lattice lattice = structure.getLattice();
+        int n = atoms.size();
+        int nb = bonds.size();
+
+        // 1. 元素调色板：原子表中每种元素一条，元素下标即调色板下标
+        List<String> symbols = atoms.getSymbols();
+        if (symbols.size() > 0xFFFF) {
+            throw new HttpMessageNotWritableException("调色板条目超过 65535，无法使用二进制格式");
+        }
+        byte[][] symbolBytes = new byte[symbols.size()][];
+        byte[][] colors = new byte[symbols.size()][];
+        int paletteBytes = 0;
+        for (int p = 0; p < symbols.size(); p++) {
+            symbolBytes[p] = shortString(symbols.get(p));
+            colors[p] = shortString(CrystalService.colorOf(symbols.get(p)));
+            paletteBytes += 2 + symbolBytes[p].length + colors[p].length + 4;
+        }
+        paletteBytes = align4(paletteBytes);
+        boolean hasImages = bonds.isPeriodic() && nb > 0;
+
+        try (BlockWriter out = new BlockWriter(outputMessage.getBody())) {
+            // 2. 头部
+            out.bytes(MAGIC);
+            out.u16(VERSION);
+            out.u16(hasImages ? FLAG_IMAGES : 0);
+            out.i32(n);
+            out.i32(nb);
+            out.i32(symbols.size());
+            out.i32(paletteBytes);
+            out.f64(lattice.getA());
+            out.f64(lattice.getB());
+            out.f64(lattice.getC());
+            out.f64(lattice.getAlpha());
+            out.f64(lattice.getBeta());
+            out.f64(lattice.getGamma());
+
+            // 3. 调色板
+            int written = 0;
+            for (int p = 0; p < symbols.size(); p++) {
+                out.u8(symbolBytes[p].length);
+                out.bytes(symbolBytes[p]);
+                out.u8(colors[p].length);
+                out.bytes(colors[p]);
+                out.f32((float) CrystalService.radiusOf(symbols.get(p)));
+                written += 2 + symbolBytes[p].length + colors[p].length + 4;
+            }
+            out.pad(paletteBytes - written);
+
+            // 4. 坐标与元素下标
+            for (int i = 0; i < n; i++) {
+                out.f32((float) atoms.getX(i));
+                out.f32((float) atoms.getY(i));
+                out.f32((float) atoms.getZ(i));
+            }
+            for (int i = 0; i < n; i++) {
+                out.u16(atoms.getElementId(i));
+            }
+            out.pad(align4(2 * n) - 2 * n);
+
+            // 5. 键
+            for (int k = 0; k < nb; k++) {
+                out.i32(bonds.getStart(k));
+                out.i32(bonds.getEnd(k));
+            }
+            if (hasImages) {
+                for (int k = 0; k < nb; k++) {
+                    for (int axis = 0; axis < 3; axis++) {
+                        out.u16(bonds.getImage(k, axis));
+                    }
+                }
+                out.pad(align4(6 * nb) - 6 * nb);
+            }
+        }
+    }
+
+    private static byte[] shortString(String s) {
+        byte[] bytes = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 255) {
+            throw new HttpMessageNotWritableException("字符串过长: " + s);
+        }
+        return bytes;
+    }
+
+    private static int align4(int v) {
+        return (v + 3) & ~3;
+    }
+
+    /**
+     * 以 64KB 块写出小端序数据，避免一次性分配整个响应体
+     */
+    private static final class BlockWriter implements AutoCloseable {
+        private final OutputStream out;
+        private final ByteBuffer buf = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        BlockWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void u8(int v) throws IOException { ensure(1); buf.put((byte) v); }
+        void u16(int v) throws IOException { ensure(2); buf.putShort((short) v); }
+        void i32(int v) throws IOException { ensure(4); buf.putInt(v); }
+        void f32(float v) throws IOException { ensure(4); buf.putFloat(v); }
+        void f64(double v) throws IOException { ensure(8); buf.putDouble(v); }
+
+        void bytes(byte[] b) throws IOException {
+            ensure(b.length);
+            buf.put(b);
+        }
+
+        void pad(int count) throws IOException {
+            for (int k = 0; k < count; k++) {
+                u8(0);
+            }
+        }
+
+        void flush() throws IOException {
+            out.write(buf.array(), 0, buf.position());
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.flush();
+        }
+    }
+}
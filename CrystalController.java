@@ -1,19 +1,83 @@
 package com.brother.crystalviz.controller;
 
+import com.brother.crystalviz.config.CrystalBinaryMessageConverter;
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.AsyncJobResponse;
 import com.brother.crystalviz.model.Atom;
+import com.brother.crystalviz.model.AtomEditRequest;
 import com.brother.crystalviz.model.Bond;
+import com.brother.crystalviz.model.BatchJob;
+import com.brother.crystalviz.model.BatchResult;
+import com.brother.crystalviz.model.BondDiff;
+import com.brother.crystalviz.model.CacheStats;
 import com.brother.crystalviz.model.CrystalRequest;
 import com.brother.crystalviz.model.CrystalResponse;
+import com.brother.crystalviz.model.EditSessionResponse;
+import com.brother.crystalviz.model.RegionQuery;
+import com.brother.crystalviz.model.RegionResponse;
+import com.brother.crystalviz.model.StoredStructure;
+import com.brother.crystalviz.model.StructureSummary;
+import com.brother.crystalviz.model.TrajectoryFrame;
+import com.brother.crystalviz.model.TrajectoryInfo;
+import com.brother.crystalviz.service.AdmissionControl;
+import com.brother.crystalviz.service.AsyncJobRegistry;
+import com.brother.crystalviz.service.AtomTable;
+import com.brother.crystalviz.service.BatchExecutor;
+import com.brother.crystalviz.service.BondTable;
 import com.brother.crystalviz.service.CrystalService;
+import com.brother.crystalviz.service.DiffractionCache;
+import com.brother.crystalviz.service.EditSession;
+import com.brother.crystalviz.service.EditSessionRegistry;
+import com.brother.crystalviz.service.ExportFormat;
+import com.brother.crystalviz.service.Lattice;
+import com.brother.crystalviz.service.ReflectionList;
+import com.brother.crystalviz.service.Region;
+import com.brother.crystalviz.service.ServerBusyException;
+import com.brother.crystalviz.service.ServerTiming;
+import com.brother.crystalviz.service.Structure;
+import com.brother.crystalviz.service.StructureCache;
+import com.brother.crystalviz.service.StructureIndex;
+import com.brother.crystalviz.service.StructureNotFoundException;
+import com.brother.crystalviz.service.StructureStore;
+import com.brother.crystalviz.service.TrajectoryFile;
+import com.brother.crystalviz.service.TrajectoryPlayer;
+import com.brother.crystalviz.service.TrajectoryRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/crystal")
@@ -22,66 +86,757 @@ public class CrystalController {
     @Autowired
     private CrystalService crystalService;
 
+    @Autowired
+    private EditSessionRegistry editSessions;
+
+    @Autowired
+    private StructureCache structureCache;
+
+    @Autowired
+    private BatchExecutor batchExecutor;
+
+    @Autowired
+    private CrystalVizProperties properties;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private AdmissionControl admission;
+
+    @Autowired
+    private AsyncJobRegistry asyncJobs;
+
+    @Autowired
+    private StructureStore structureStore;
+
+    @Autowired
+    private TrajectoryRegistry trajectories;
+
+    @Autowired
+    private TrajectoryPlayer trajectoryPlayer;
+
+    @Autowired
+    private DiffractionCache diffractionCache;
+
+    private static final String NDJSON = "application/x-ndjson";
+    // 返回 CrystalResponse 的接口同时声明 JSON 与二进制格式，JSON 在前：二进制转换器注册在 Jackson 之前，
+    // 只有按声明顺序协商才能让 Accept: */* 仍然得到 JSON
+    private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+    private static final String BINARY = CrystalBinaryMessageConverter.MEDIA_TYPE_VALUE;
+    private static final String PREFER = "Prefer";
+    // 按 P1 的 _atom_site 行估算导入的原子数（对称展开会更多，只用于区分轻重任务）
+    private static final long CIF_BYTES_PER_ATOM = 40;
+    // 带校验报告的响应内容不同，ETag 加后缀区分
+    private static final String VALIDATED_SUFFIX = "-validated";
+    private static final String SUMMARY_SUFFIX = "-summary";
+
     // 生成晶体结构的接口
-    @PostMapping("/generate")
-    public CrystalResponse generate(@RequestBody CrystalRequest request) {
-        List<Atom> atoms = crystalService.generateStructure(request);
-        List<Bond> bonds = crystalService.calculateBonds(atoms);
-
-        // 修复：传入所有 8 个参数
-        return new CrystalResponse(
-                atoms,
-                bonds,
-                request.getA(),
-                request.getB(),
-                request.getC(),
-                request.getAlpha(),
-                request.getBeta(),
-                request.getGamma()
-        );
-    }
-
-    // 导出 XYZ 文件的接口
+    // 结果按请求的规范哈希缓存，哈希即 ETag 和 structureId；请求带上相同的 If-None-Match 时直接返回 304，不再生成和序列化
+    // validate=true 时 JSON 响应附带校验报告（重叠、配位异常、超出晶胞的原子）
+    // persist=true 时同时写入本地结构仓库：按模板生成比读回快照更快，默认不占用仓库空间，只为需要之后按 id 读回的结构保存
+    @PostMapping(value = "/generate", produces = {JSON, BINARY})
+    public CompletableFuture<ResponseEntity<?>> generate(@RequestBody CrystalRequest request,
+                                                         @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+                                                         @RequestParam(value = "persist", defaultValue = "false") boolean persist,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                         @RequestHeader(value = PREFER, required = false) String prefer) {
+        String key = structureCache.keyOf(request);
+        String tag = validate ? key + VALIDATED_SUFFIX : key;
+        if (matchesETag(ifNoneMatch, tag)) {
+            return CompletableFuture.completedFuture(notModified(tag));
+        }
+        return admit(crystalService.estimateBaseAtoms(request), prefer, () -> {
+            Structure structure = generateCached(request, key);
+            if (persist) {
+                structureStore.putIfAbsent(key, request.getLatticeType(), structure);
+            }
+
+            // 修复：传入所有 8 个参数
+            return ResponseEntity.ok().eTag(etag(tag)).body(toResponse(structure, validate));
+        });
+    }
+
+    // 校验报告与成键一起生成并随结构缓存，是否返回只取决于 validate 参数
+    private Structure generateCached(CrystalRequest request, String key) {
+        return structureCache.get(key, () -> {
+            AtomTable atoms = crystalService.generateStructure(request);
+            return crystalService.assemble(atoms, crystalService.latticeOf(request), request.isPeriodic());
+        });
+    }
+
+    // 导出结构文件的接口：format = xyz | extxyz | poscar | cif，gzip=true 时压缩输出
+    // 请求中的 nx/ny/nz 指定超晶胞倍数，扩展在写出时逐行完成，直接写入响应流
     @PostMapping("/export")
-    public ResponseEntity<String> export(@RequestBody CrystalRequest request) {
-        // 1. 生成原子数据
-        List<Atom> atoms = crystalService.generateStructure(request);
+    public ResponseEntity<StreamingResponseBody> export(@RequestBody CrystalRequest request,
+                                                        @RequestParam(value = "format", defaultValue = "xyz") String format,
+                                                        @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromKey(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        checkSupercell(request);
+        if (exportFormat.needsLattice() && !crystalService.latticeOf(request).isValid()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "晶格参数无效，无法导出 " + format);
+        }
 
-        // 2. 转换为 XYZ 格式字符串
-        String xyzContent = crystalService.exportToXYZ(atoms);
+        // 1. 生成原子数据（原胞），扩展后的原子数受 crystalviz.limits.max-export-atoms 限制
+        AtomTable atoms = crystalService.generateStructure(request);
+        crystalService.checkExportLimit(atoms.size(), request);
+
+        // 2. 边扩展边写出，必要时经过 gzip
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024);
+                crystalService.export(exportFormat, atoms, request, gz);
+                gz.finish();
+            } else {
+                crystalService.export(exportFormat, atoms, request, out);
+            }
+        };
 
         // 3. 返回文件流
+        String fileName = exportFormat.getFileName() + (gzip ? ".gz" : "");
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"structure.xyz\"")
-                .contentType(MediaType.TEXT_PLAIN)
-                .body(xyzContent);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.TEXT_PLAIN)
+                .body(body);
+    }
+
+    // 服务端超晶胞：沿真实晶格矢量扩展 nx/ny/nz 倍并重新成键，原子数受 crystalviz.limits.max-atoms 限制
+    // summary=true 时结构缓存在服务端，只返回概要和 structureId，之后按区域分块加载（上限为 max-indexed-atoms）
+    @PostMapping(value = "/supercell", produces = {JSON, BINARY})
+    public CompletableFuture<ResponseEntity<?>> supercell(@RequestBody CrystalRequest request,
+                                                          @RequestParam(value = "summary", defaultValue = "false") boolean summary,
+                                                          @RequestHeader(value = PREFER, required = false) String prefer) {
+        checkSupercell(request);
+        long atoms = (long) crystalService.estimateBaseAtoms(request) * request.getNx() * request.getNy() * request.getNz();
+        if (summary) {
+            String key = structureCache.supercellKeyOf(request);
+            long limit = properties.getLimits().getMaxIndexedAtoms();
+            String name = request.getLatticeType() + " " + request.getNx() + "x" + request.getNy() + "x" + request.getNz();
+            return admit(atoms, prefer, () -> ResponseEntity.ok(summaryOf(key, structureCache.get(key,
+                    () -> structureStore.getOrCreate(key, name, () -> crystalService.generateSupercell(request, limit))))));
+        }
+        return admit(atoms, prefer, () -> ResponseEntity.ok(toResponse(crystalService.generateSupercell(request))));
+    }
+
+    private void checkSupercell(CrystalRequest request) {
+        if (request.getNx() < 1 || request.getNy() < 1 || request.getNz() < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "超晶胞倍数必须为正整数");
+        }
+        boolean expanded = (long) request.getNx() * request.getNy() * request.getNz() > 1;
+        if (expanded && !crystalService.latticeOf(request).isValid()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "晶格参数无效，无法扩展超晶胞");
+        }
+    }
+
+    // 导入结果按文件内容哈希缓存，ETag 与 validate 规则同 /generate；summary=true 时只返回概要，规则同 /supercell
+    @PostMapping(value = "/import", produces = {JSON, BINARY})
+    public CompletableFuture<ResponseEntity<?>> importFile(@RequestParam("file") MultipartFile file,
+                                                           @RequestParam(value = "periodic", defaultValue = "false") boolean periodic,
+                                                           @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+                                                           @RequestParam(value = "summary", defaultValue = "false") boolean summary,
+                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                           @RequestHeader(value = PREFER, required = false) String prefer) throws IOException {
+        String key;
+        try (InputStream in = file.getInputStream()) {
+            key = structureCache.keyOf(in, periodic);
+        }
+        String tag = summary ? key + SUMMARY_SUFFIX : validate ? key + VALIDATED_SUFFIX : key;
+        if (matchesETag(ifNoneMatch, tag)) {
+            return CompletableFuture.completedFuture(notModified(tag));
+        }
+        long atoms = file.getSize() / CIF_BYTES_PER_ATOM;
+        // 重任务在请求线程返回之后才执行，上传的临时文件可能已随请求结束被删除，需要先转存
+        Path spooled = null;
+        if (admission.isHeavy(atoms)) {
+            spooled = Files.createTempFile("crystalviz-import-", ".cif");
+            file.transferTo(spooled);
+        }
+        Path source = spooled;
+        String name = file.getOriginalFilename();
+        try {
+            return admit(atoms, prefer, () -> {
+                // 未命中时先查本地结构仓库，仍没有才再次直接流式解析上传内容，不整体读入内存
+                Structure structure;
+                try {
+                    structure = structureCache.get(key, () -> structureStore.getOrCreate(key, name, () -> {
+                        try (InputStream in = source != null ? Files.newInputStream(source) : file.getInputStream()) {
+                            return crystalService.importCifLogic(in, periodic);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                } finally {
+                    deleteQuietly(source);
+                }
+                return ResponseEntity.ok().eTag(etag(tag))
+                        .body(summary ? summaryOf(key, structure) : toResponse(structure, validate));
+            });
+        } catch (ServerBusyException e) {
+            deleteQuietly(source);
+            throw e;
+        }
+    }
+
+    // 准入控制：估算原子数低于阈值的请求直接在请求线程上处理；重任务交给独立的有界线程池，
+    // 请求线程立即归还容器，结果完成后经异步分派写出；请求头带 Prefer: respond-async 时立即返回 202 和轮询地址
+    private CompletableFuture<ResponseEntity<?>> admit(long estimatedAtoms, String prefer, Supplier<ResponseEntity<?>> work) {
+        if (!admission.isHeavy(estimatedAtoms)) {
+            return CompletableFuture.completedFuture(work.get());
+        }
+        Supplier<ResponseEntity<?>> timed = ServerTiming.propagate(work);
+        if (!respondAsync(prefer)) {
+            return admission.submitHeavy(estimatedAtoms, timed);
+        }
+        // 先在任务表中占位再提交，任务表已满时不会留下无法轮询的重任务
+        String id = asyncJobs.register(() -> admission.submitHeavy(estimatedAtoms, timed));
+        return CompletableFuture.completedFuture(ResponseEntity.accepted()
+                .location(URI.create("/api/crystal/jobs/" + id))
+                .body(new AsyncJobResponse(id, "RUNNING")));
+    }
+
+    // 轮询异步任务：未完成时返回 202，完成后返回与同步调用相同的响应（失败时返回相应的错误状态）
+    @GetMapping(value = "/jobs/{id}", produces = {JSON, BINARY})
+    public ResponseEntity<?> asyncJob(@PathVariable("id") String id) {
+        CompletableFuture<?> future = asyncJobs.get(id);
+        if (!future.isDone()) {
+            return ResponseEntity.accepted().body(new AsyncJobResponse(id, "RUNNING"));
+        }
+        return (ResponseEntity<?>) AdmissionControl.await(future);
+    }
+
+    private static boolean respondAsync(String prefer) {
+        return prefer != null && prefer.toLowerCase(Locale.ROOT).contains("respond-async");
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // 临时目录中的残留文件由系统清理
+        }
+    }
+
+    // 批处理：请求体为 NDJSON，每行一个 BatchJob（CrystalRequest 字段，或 cif/cifPath 引用的 CIF），多核并行执行
+    // 每完成一个任务就写出一行 BatchResult（按完成顺序，用 index 对应输入行），失败的任务带 error 字段
+    @PostMapping(value = "/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> batch(InputStream body) {
+        StreamingResponseBody stream = out -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            AtomicInteger index = new AtomicInteger();
+            Iterator<Callable<BatchResult>> jobs = reader.lines()
+                    .filter(line -> !line.isBlank())
+                    .map(line -> {
+                        int i = index.getAndIncrement();
+                        return (Callable<BatchResult>) () -> runBatchJob(i, line);
+                    })
+                    .iterator();
+            try {
+                // runBatchJob 自行捕获异常写入 error 字段，这里的 error 恒为 null
+                batchExecutor.execute(jobs, (result, error) -> {
+                    out.write(jsonMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                    out.flush();
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("批处理被中断");
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(stream);
+    }
+
+    // 在批处理线程中执行：解析、生成/导入（经过结果缓存）、可选导出；任何异常都写进结果的 error 字段
+    private BatchResult runBatchJob(int index, String line) {
+        BatchResult result = new BatchResult(index, null);
+        try {
+            BatchJob job = jsonMapper.readValue(line, BatchJob.class);
+            result.setId(job.getId());
+
+            String key;
+            Structure structure;
+            if (job.getCif() != null || job.getCifPath() != null) {
+                boolean periodic = job.isPeriodic();
+                if (job.getCif() != null) {
+                    byte[] content = job.getCif().getBytes(StandardCharsets.UTF_8);
+                    key = structureCache.keyOf(new ByteArrayInputStream(content), periodic);
+                    structure = structureCache.get(key, () -> crystalService.importCifLogic(job.getCif(), periodic));
+                } else {
+                    Path path = resolveCifPath(job.getCifPath());
+                    try (InputStream in = Files.newInputStream(path)) {
+                        key = structureCache.keyOf(in, periodic);
+                    }
+                    structure = structureCache.get(key, () -> {
+                        try (InputStream in = Files.newInputStream(path)) {
+                            return crystalService.importCifLogic(in, periodic);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } else {
+                key = structureCache.keyOf(job);
+                structure = generateCached(job, key);
+            }
+            result.setStructureId(key);
+            result.setAtomCount(structure.getAtoms().size());
+            result.setBondCount(structure.getBonds().size());
+
+            if (job.getFormat() != null) {
+                // 导出内容整体放进结果行，扩展后的原子数按 crystalviz.limits.max-atoms 限制
+                ExportFormat format = ExportFormat.fromKey(job.getFormat());
+                checkSupercell(job);
+                if (format.needsLattice() && !structure.getLattice().isValid()) {
+                    throw new IllegalArgumentException("晶格参数无效，无法导出 " + job.getFormat());
+                }
+                crystalService.checkSupercellLimit(structure.getAtoms().size(), job);
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                crystalService.export(format, structure, job, content);
+                result.setContent(content.toString(StandardCharsets.UTF_8));
+            } else {
+                result.setStructure(toResponse(structure));
+            }
+        } catch (Exception e) {
+            result.setError(messageOf(e));
+        }
+        return result;
+    }
+
+    private Path resolveCifPath(String cifPath) {
+        String root = properties.getBatch().getCifRoot();
+        if (root == null || root.isBlank()) {
+            throw new IllegalArgumentException("未配置 crystalviz.batch.cif-root，不能按路径引用 CIF");
+        }
+        Path base = Paths.get(root).toAbsolutePath().normalize();
+        Path path = base.resolve(cifPath).normalize();
+        if (!path.startsWith(base)) {
+            throw new IllegalArgumentException("CIF 路径超出 cif-root: " + cifPath);
+        }
+        return path;
+    }
+
+    private static String messageOf(Exception e) {
+        if (e instanceof ResponseStatusException rse && rse.getReason() != null) {
+            return rse.getReason();
+        }
+        if (e instanceof UncheckedIOException && e.getCause() != null) {
+            return e.getCause().toString();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    @GetMapping("/cache/stats")
+    public CacheStats cacheStats() {
+        return structureCache.stats();
+    }
+
+    // 已缓存结构的概要
+    @GetMapping("/structures/{id}")
+    public StructureSummary structure(@PathVariable("id") String id) {
+        return summaryOf(id, cachedStructure(id));
+    }
+
+    // 区域查询：返回包围盒/视锥内的原子及它们之间的键，由结构的八叉树索引加速
+    // 结果被截断（超过 crystalviz.limits.max-region-atoms）时不返回键，前端应缩小区域或增大 stride
+    @PostMapping("/structures/{id}/region")
+    public RegionResponse region(@PathVariable("id") String id, @RequestBody RegionQuery query) {
+        Structure structure = cachedStructure(id);
+        if (query.getStride() < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "stride 必须为正整数");
+        }
+        Region region;
+        try {
+            region = regionOf(query);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        StructureIndex index = structure.index();
+        int limit = properties.getLimits().getMaxRegionAtoms();
+        int[] hits = index.query(region, query.getStride(), limit);
+        boolean truncated = hits.length > limit;
+        int[] indices = truncated ? Arrays.copyOf(hits, limit) : hits;
+
+        List<int[]> bonds = new ArrayList<>();
+        if (query.isBonds() && !truncated) {
+            BondTable table = structure.getBonds();
+            for (int k : index.bondsWithin(indices, indices.length, region, query.getStride())) {
+                bonds.add(table.isPeriodic()
+                        ? new int[]{table.getStart(k), table.getEnd(k), table.getImage(k, 0), table.getImage(k, 1), table.getImage(k, 2)}
+                        : new int[]{table.getStart(k), table.getEnd(k)});
+            }
+        }
+        return new RegionResponse(id, indices, toAtoms(structure.getAtoms(), indices), bonds, truncated);
+    }
+
+    // 结构分析：各元素对的偏 g(r) 与累积配位数、逐原子配位数、键长直方图
+    // periodic 缺省时与结构成键方式一致；大结构按准入控制交给重任务线程池（支持 Prefer: respond-async）
+    @GetMapping("/structures/{id}/analysis")
+    public CompletableFuture<ResponseEntity<?>> analysis(@PathVariable("id") String id,
+                                                         @RequestParam(value = "radius", required = false) Double radius,
+                                                         @RequestParam(value = "binWidth", required = false) Double binWidth,
+                                                         @RequestParam(value = "periodic", required = false) Boolean periodic,
+                                                         @RequestHeader(value = PREFER, required = false) String prefer) {
+        Structure structure = cachedStructure(id);
+        CrystalVizProperties.Analysis config = properties.getAnalysis();
+        double r = radius != null ? radius : config.getDefaultRadius();
+        double width = binWidth != null ? binWidth : config.getDefaultBinWidth();
+        if (!(r > 0) || r > config.getMaxRadius()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radius 必须在 (0, " + config.getMaxRadius() + "] 之内");
+        }
+        if (!(width > 0) || r / width > config.getMaxBins()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "分箱数超过上限 " + config.getMaxBins());
+        }
+        if (structure.getAtoms().size() == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "结构中没有原子");
+        }
+        boolean pbc = periodic != null ? periodic : structure.getBonds().isPeriodic();
+        return admit(structure.getAtoms().size(), prefer, () -> {
+            try {
+                return ResponseEntity.ok(crystalService.analyze(id, structure, pbc, r, width));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        });
+    }
+
+    // 粉末 X 射线衍射谱：衍射峰按 (结构, 波长, B 因子) 缓存，改变 2θ 范围、步长或峰宽时只重新展宽
+    @GetMapping("/structures/{id}/xrd")
+    public CompletableFuture<ResponseEntity<?>> xrd(@PathVariable("id") String id,
+                                                    @RequestParam(value = "wavelength", required = false) Double wavelength,
+                                                    @RequestParam(value = "twoThetaMin", required = false) Double twoThetaMin,
+                                                    @RequestParam(value = "twoThetaMax", required = false) Double twoThetaMax,
+                                                    @RequestParam(value = "step", required = false) Double step,
+                                                    @RequestParam(value = "fwhm", required = false) Double fwhm,
+                                                    @RequestParam(value = "bFactor", defaultValue = "0") double bFactor,
+                                                    @RequestHeader(value = PREFER, required = false) String prefer) {
+        Structure structure = cachedStructure(id);
+        CrystalVizProperties.Xrd config = properties.getXrd();
+        double lambda = wavelength != null ? wavelength : config.getWavelength();
+        double min = twoThetaMin != null ? twoThetaMin : config.getTwoThetaMin();
+        double max = twoThetaMax != null ? twoThetaMax : config.getTwoThetaMax();
+        double dx = step != null ? step : config.getStep();
+        double width = fwhm != null ? fwhm : config.getFwhm();
+        // Lorentz 因子在 2θ = 180° 处发散
+        if (!(lambda > 0.1) || lambda > 10) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "波长必须在 (0.1, 10] Å 之内");
+        }
+        if (!(min >= 0) || !(max > min) || max > 175) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "2θ 范围必须满足 0 ≤ twoThetaMin < twoThetaMax ≤ 175");
+        }
+        if (!(dx > 0) || (max - min) / dx + 1 > config.getMaxPoints()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "采样点数超过上限 " + config.getMaxPoints());
+        }
+        if (!(width > 0) || !(bFactor >= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fwhm 必须为正，bFactor 不能为负");
+        }
+        return admit(structure.getAtoms().size(), prefer, () -> {
+            ReflectionList reflections;
+            try {
+                reflections = diffractionCache.get(id, lambda, bFactor, max,
+                        () -> crystalService.diffraction(structure, lambda, max, bFactor));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            return ResponseEntity.ok(reflections.pattern(id, min, max, dx, width, config.getMinIntensity()));
+        });
+    }
+
+    // 先查内存缓存，再查本地结构仓库（读出后放回缓存）
+    private Structure cachedStructure(String id) {
+        Structure structure = structureCache.peek(id);
+        if (structure != null) {
+            return structure;
+        }
+        if (!structureStore.contains(id)) {
+            throw new StructureNotFoundException(id);
+        }
+        return structureCache.get(id, () -> structureStore.load(id));
+    }
+
+    // 本地结构仓库：列出、按 id 读取（summary=true 时只返回概要）、删除
+    @GetMapping("/store")
+    public List<StoredStructure> listStored() {
+        return structureStore.list();
+    }
+
+    @GetMapping(value = "/store/{id}", produces = {JSON, BINARY})
+    public ResponseEntity<?> getStored(@PathVariable("id") String id,
+                                       @RequestParam(value = "summary", defaultValue = "false") boolean summary) {
+        if (!structureStore.contains(id)) {
+            throw new StructureNotFoundException(id);
+        }
+        Structure structure = cachedStructure(id);
+        return ResponseEntity.ok(summary ? summaryOf(id, structure) : toResponse(structure));
+    }
+
+    @DeleteMapping("/store/{id}")
+    public ResponseEntity<Void> deleteStored(@PathVariable("id") String id) {
+        if (!structureStore.delete(id)) {
+            throw new StructureNotFoundException(id);
+        }
+        // 同时移出结果缓存，否则 /structures/{id} 和区域查询仍能访问已删除的结构
+        structureCache.evict(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private static Region regionOf(RegionQuery query) {
+        Region region = null;
+        if (query.getMin() != null || query.getMax() != null) {
+            region = Region.box(query.getMin(), query.getMax());
+        }
+        if (query.getPlanes() != null && !query.getPlanes().isEmpty()) {
+            Region frustum = Region.halfSpaces(query.getPlanes());
+            region = region == null ? frustum : region.and(frustum);
+        }
+        if (region == null) {
+            throw new IllegalArgumentException("需要给出包围盒 min/max 或视锥平面 planes");
+        }
+        return region;
+    }
+
+    // 结构必须确实留在缓存中（未超过 crystalviz.cache.max-weight），否则之后的区域查询无从访问
+    // 索引在这里构建，首个区域查询不必等待
+    private StructureSummary summaryOf(String key, Structure structure) {
+        if (!structureCache.contains(key)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "结构超出结果缓存容量（crystalviz.cache.max-weight），无法保留在服务端");
+        }
+        double[] bounds = structure.index().bounds();
+        Lattice lattice = structure.getLattice();
+        return new StructureSummary(key, structure.getAtoms().size(), structure.getBonds().size(),
+                bounds != null ? Arrays.copyOfRange(bounds, 0, 3) : null,
+                bounds != null ? Arrays.copyOfRange(bounds, 3, 6) : null,
+                lattice.getA(), lattice.getB(), lattice.getC(), lattice.getAlpha(), lattice.getBeta(), lattice.getGamma());
+    }
+
+    // 导入多帧 XYZ 轨迹：文件保存在服务端，只建立帧偏移索引，不读入坐标
+    @PostMapping("/trajectories")
+    public TrajectoryInfo importTrajectory(@RequestParam("file") MultipartFile file) throws IOException {
+        TrajectoryFile trajectory;
+        try (InputStream in = file.getInputStream()) {
+            trajectory = trajectories.importFile(file.getOriginalFilename(), in);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return infoOf(trajectory, false);
+    }
+
+    @GetMapping("/trajectories/{id}")
+    public TrajectoryInfo trajectory(@PathVariable("id") String id) {
+        return infoOf(trajectories.get(id), false);
+    }
+
+    @DeleteMapping("/trajectories/{id}")
+    public ResponseEntity<Void> deleteTrajectory(@PathVariable("id") String id) {
+        trajectories.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 按帧率以 SSE 播放 [from, to) 中每隔 stride 的帧：先发 start（概要 + 每个原子的元素下标），
+    // 之后每帧一个 keyframe 或 delta 事件（见 TrajectoryFrame），最后发 end（实际发出的帧数）
+    // bonds=true 时关键帧带全部化学键，增量帧只在重新成键后带键的增删
+    @GetMapping(value = "/trajectories/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTrajectory(@PathVariable("id") String id,
+                                       @RequestParam(value = "from", defaultValue = "0") int from,
+                                       @RequestParam(value = "to", required = false) Integer to,
+                                       @RequestParam(value = "stride", defaultValue = "1") int stride,
+                                       @RequestParam(value = "fps", required = false) Double fps,
+                                       @RequestParam(value = "bonds", defaultValue = "true") boolean bonds) throws IOException {
+        TrajectoryFile trajectory = trajectories.get(id);
+        int end = to != null ? to : trajectory.frameCount();
+        if (from < 0 || end > trajectory.frameCount() || from >= end) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "帧范围无效，轨迹共 " + trajectory.frameCount() + " 帧");
+        }
+        if (stride < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "stride 必须为正整数");
+        }
+        CrystalVizProperties.Trajectory config = properties.getTrajectory();
+        double rate = fps != null ? fps : config.getDefaultFps();
+        if (!(rate > 0) || rate > config.getMaxFps()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fps 必须在 (0, " + config.getMaxFps() + "] 之内");
+        }
+
+        SseEmitter emitter = new SseEmitter();
+        emitter.send(SseEmitter.event().name("start").data(infoOf(trajectory, true)));
+        Future<?> playback = trajectoryPlayer.start(trajectory, from, end, stride, rate, bonds, new TrajectoryPlayer.Sink() {
+            @Override
+            public void frame(TrajectoryFrame frame) throws IOException {
+                emitter.send(SseEmitter.event().name(frame.getPositions() != null ? "keyframe" : "delta").data(frame));
+            }
+
+            @Override
+            public void end(int frames) throws IOException {
+                emitter.send(SseEmitter.event().name("end").data(frames));
+                emitter.complete();
+            }
+
+            @Override
+            public void error(Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        // 客户端断开或超时时中断播放线程
+        emitter.onCompletion(() -> playback.cancel(true));
+        emitter.onTimeout(() -> playback.cancel(true));
+        return emitter;
     }
 
-    @PostMapping("/import")
-    public CrystalResponse importFile(@RequestParam("file") MultipartFile file) throws IOException {
-        String content = new String(file.getBytes());
-        return crystalService.importCifLogic(content);
+    private static TrajectoryInfo infoOf(TrajectoryFile trajectory, boolean withElements) {
+        List<String> symbols = trajectory.symbols();
+        List<String> colors = new ArrayList<>(symbols.size());
+        List<Double> radii = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            colors.add(CrystalService.colorOf(symbol));
+            radii.add(CrystalService.radiusOf(symbol));
+        }
+        short[] elementIds = null;
+        if (withElements) {
+            AtomTable elements = trajectory.elements();
+            elementIds = new short[elements.size()];
+            for (int i = 0; i < elementIds.length; i++) {
+                elementIds[i] = elements.getElementId(i);
+            }
+        }
+        return new TrajectoryInfo(trajectory.getId(), trajectory.getName(), trajectory.frameCount(),
+                trajectory.atomCount(), symbols, colors, radii, elementIds);
     }
 
     // 用于只更新坐标不改变晶胞的操作
-    @PostMapping("/update-properties")
-    public CrystalResponse updateProperties(@RequestBody CrystalRequest request) {
+    @PostMapping(value = "/update-properties", produces = {JSON, BINARY})
+    public CompletableFuture<ResponseEntity<?>> updateProperties(@RequestBody CrystalRequest request,
+                                                                 @RequestHeader(value = PREFER, required = false) String prefer) {
         // 1. 获取前端传来的原子列表
-        List<Atom> atoms = request.getCustomAtoms();
-
-        // 2. 重新根据修改后的坐标计算化学键
-        List<Bond> bonds = crystalService.calculateBonds(atoms);
-
-        // 3. 【修复报错】返回完整的 8 个参数，确保前端输入框不会被重置
-        return new CrystalResponse(
-                atoms,
-                bonds,
-                request.getA(),
-                request.getB(),
-                request.getC(),
-                request.getAlpha(),
-                request.getBeta(),
-                request.getGamma()
-        );
+        List<Atom> customAtoms = request.getCustomAtoms() != null ? request.getCustomAtoms() : List.of();
+        return admit(customAtoms.size(), prefer, () -> {
+            AtomTable atoms = AtomTable.of(customAtoms);
+
+            // 2. 重新根据修改后的坐标计算化学键
+            BondTable bonds = crystalService.calculateBonds(atoms, request);
+
+            // 3. 【修复报错】返回完整的 8 个参数，确保前端输入框不会被重置
+            return ResponseEntity.ok(toResponse(atoms, bonds, crystalService.latticeOf(request)));
+        });
+    }
+
+    // 打开编辑会话：服务端保存结构与近邻索引，之后只需提交改动的原子
+    @PostMapping("/sessions")
+    public EditSessionResponse openSession(@RequestBody CrystalRequest request) {
+        if (request.isPeriodic()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "编辑会话暂不支持周期性成键");
+        }
+        AtomTable atoms = crystalService.generateStructure(request);
+        BondTable bonds = crystalService.calculateBonds(atoms);
+        EditSession session = editSessions.open(atoms, bonds);
+        return new EditSessionResponse(session.getId(), toResponse(atoms, bonds, crystalService.latticeOf(request)));
+    }
+
+    // 提交改动的原子（下标 + 新坐标/元素），只重算与它们相连的键，返回键的增删
+    @PatchMapping("/sessions/{id}")
+    public BondDiff editSession(@PathVariable("id") String id, @RequestBody AtomEditRequest request) {
+        EditSession session = editSessions.get(id);
+        try {
+            return session.apply(request.getEdits() != null ? request.getEdits() : List.of());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/sessions/{id}")
+    public ResponseEntity<Void> closeSession(@PathVariable("id") String id) {
+        editSessions.close(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 同一结构的 JSON 与二进制表示共用一个键，因此用弱 ETag
+    private static String etag(String key) {
+        return "W/\"" + key + "\"";
+    }
+
+    private static ResponseEntity<CrystalResponse> notModified(String key) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(key)).build();
+    }
+
+    // POST 请求不走 Spring 的条件请求处理（只对 GET/HEAD 返回 304），这里按弱比较自行匹配 If-None-Match
+    private static boolean matchesETag(String ifNoneMatch, String key) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*")) {
+                return true;
+            }
+            if (t.startsWith("W/")) {
+                t = t.substring(2);
+            }
+            if (t.equals("\"" + key + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CrystalResponse toResponse(Structure structure) {
+        return toResponse(structure, false);
+    }
+
+    static CrystalResponse toResponse(Structure structure, boolean validate) {
+        CrystalResponse response = toResponse(structure.getAtoms(), structure.getBonds(), structure.getLattice());
+        if (validate) {
+            response.setValidation(structure.getReport());
+        }
+        return response;
+    }
+
+    // 按下标取出部分原子，颜色和半径按元素只查一次
+    private static List<Atom> toAtoms(AtomTable table, int[] indices) {
+        List<String> symbols = table.getSymbols();
+        String[] colors = new String[symbols.size()];
+        double[] radii = new double[symbols.size()];
+        for (int e = 0; e < symbols.size(); e++) {
+            colors[e] = CrystalService.colorOf(symbols.get(e));
+            radii[e] = CrystalService.radiusOf(symbols.get(e));
+        }
+        List<Atom> atoms = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            short e = table.getElementId(i);
+            atoms.add(new Atom(symbols.get(e), table.getX(i), table.getY(i), table.getZ(i), colors[e], radii[e]));
+        }
+        return atoms;
+    }
+
+    // 服务层的原子表/键表只在这里转换为 Atom/Bond DTO；颜色和半径按元素只查一次
+    private static CrystalResponse toResponse(AtomTable table, BondTable bondTable, Lattice lattice) {
+        List<String> symbols = table.getSymbols();
+        String[] colors = new String[symbols.size()];
+        double[] radii = new double[symbols.size()];
+        for (int e = 0; e < symbols.size(); e++) {
+            colors[e] = CrystalService.colorOf(symbols.get(e));
+            radii[e] = CrystalService.radiusOf(symbols.get(e));
+        }
+        List<Atom> atoms = new ArrayList<>(table.size());
+        for (int i = 0; i < table.size(); i++) {
+            short e = table.getElementId(i);
+            atoms.add(new Atom(symbols.get(e), table.getX(i), table.getY(i), table.getZ(i), colors[e], radii[e]));
+        }
+
+        List<Bond> bonds = new ArrayList<>(bondTable.size());
+        for (int k = 0; k < bondTable.size(); k++) {
+            Atom start = atoms.get(bondTable.getStart(k));
+            Atom end = atoms.get(bondTable.getEnd(k));
+            bonds.add(bondTable.isPeriodic()
+                    ? new Bond(start, end, new int[]{bondTable.getImage(k, 0), bondTable.getImage(k, 1), bondTable.getImage(k, 2)})
+                    : new Bond(start, end));
+        }
+
+        return new CrystalResponse(atoms, bonds, lattice.getA(), lattice.getB(), lattice.getC(),
+                lattice.getAlpha(), lattice.getBeta(), lattice.getGamma(), null, new Structure(table, bondTable, lattice));
     }
 }
\ No newline at end of file
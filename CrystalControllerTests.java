@@ -0,0 +1,303 @@
+package com.brother.crystalviz.controller;
+
+import com.brother.crystalviz.config.CrystalBinaryMessageConverter;
+import com.brother.crystalviz.service.StructureCache;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "crystalviz.store.dir=target/test-store")
+@AutoConfigureMockMvc
+class CrystalControllerTests {
+
+    private static final String NACL = "{\"latticeType\":\"NaCl\",\"a\":5.64,\"b\":5.64,\"c\":5.64}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StructureCache structureCache;
+
+    // 经过准入控制的接口返回 CompletableFuture，响应在异步分派时写出
+    private ResultActions performAsync(RequestBuilder builder) throws Exception {
+        var started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    @Test
+    void generateDefaultsToJson() throws Exception {
+        performAsync(post("/api/crystal/generate").contentType(MediaType.APPLICATION_JSON).content(NACL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.atoms.length()").value(8));
+    }
+
+    @Test
+    void validationReportIsOptIn() throws Exception {
+        performAsync(post("/api/crystal/generate").contentType(MediaType.APPLICATION_JSON).content(NACL))
+                .andExpect(jsonPath("$.validation").doesNotExist());
+        performAsync(post("/api/crystal/generate?validate=true").contentType(MediaType.APPLICATION_JSON).content(NACL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.validation.overlapCount").value(0))
+                .andExpect(jsonPath("$.validation.outsideCellCount").value(0))
+                .andExpect(jsonPath("$.validation.underCoordinatedCount").value(0));
+    }
+
+    @Test
+    void phaseTimingsAreExposedAsMetrics() throws Exception {
+        performAsync(post("/api/crystal/generate").contentType(MediaType.APPLICATION_JSON).content(NACL))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/crystalviz.phase").param("tag", "phase:generate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic=='COUNT')].value").isNotEmpty());
+        mockMvc.perform(get("/actuator/metrics/crystalviz.request.payload").param("tag", "uri:/api/crystal/generate"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void generateNegotiatesBinaryFormat() throws Exception {
+        byte[] body = performAsync(post("/api/crystal/generate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(CrystalBinaryMessageConverter.MEDIA_TYPE)
+                        .content(NACL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CrystalBinaryMessageConverter.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buf = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals('C', buf.get(0));
+        assertEquals(8, buf.getInt(8));
+        assertEquals(2, buf.getInt(16));
+        assertEquals(0, body.length % 4);
+
+        // 键的原子下标直接取自原子表，必须落在 [0, N) 内
+        int bonds = buf.getInt(12);
+        int offset = 72 + buf.getInt(20) + 8 * 12 + 8 * 2;
+        assertTrue(bonds > 0);
+        for (int k = 0; k < 2 * bonds; k++) {
+            int index = buf.getInt(offset + 4 * k);
+            assertTrue(index >= 0 && index < 8, "键端点下标越界: " + index);
+        }
+    }
+
+    @Test
+    void repeatedGenerateIsAnsweredWithNotModified() throws Exception {
+        String etag = performAsync(post("/api/crystal/generate").contentType(MediaType.APPLICATION_JSON).content(NACL))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // 字段顺序不同但内容相同的请求命中同一个 ETag
+        String reordered = "{\"c\":5.64,\"b\":5.64,\"a\":5.64,\"latticeType\":\"NaCl\"}";
+        performAsync(post("/api/crystal/generate").contentType(MediaType.APPLICATION_JSON).content(reordered)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        performAsync(post("/api/crystal/generate").contentType(MediaType.APPLICATION_JSON)
+                        .content(NACL.replace("5.64", "5.65")).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void generatedStructureIsStoredOnlyWithPersist() throws Exception {
+        String body = NACL.replace("5.64", "5.61");
+        String etag = performAsync(post("/api/crystal/generate").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        // 弱 ETag W/"<key>" 中的 key 即 structureId
+        String id = etag.replaceAll("^W/|\"", "");
+        mockMvc.perform(get("/api/crystal/store/" + id)).andExpect(status().isNotFound());
+
+        // 已在结果缓存中的结构也会在 persist=true 时补写快照
+        performAsync(post("/api/crystal/generate?persist=true").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag));
+        mockMvc.perform(get("/api/crystal/store/" + id).param("summary", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.atomCount").value(8));
+        mockMvc.perform(delete("/api/crystal/store/" + id)).andExpect(status().isNoContent());
+    }
+
+    @Test
+    void batchStreamsOneResultPerJob() throws Exception {
+        String cif = "data_x\n_cell_length_a 3\n_cell_length_b 3\n_cell_length_c 3\n"
+                + "loop_\n_atom_site_type_symbol\n_atom_site_fract_x\n_atom_site_fract_y\n_atom_site_fract_z\nFe 0 0 0\n";
+        String body = "{\"id\":\"nacl\",\"latticeType\":\"NaCl\",\"a\":5.64,\"b\":5.64,\"c\":5.64}\n"
+                + "\n"
+                + "{\"id\":\"fcc-xyz\",\"latticeType\":\"FCC\",\"a\":4,\"b\":4,\"c\":4,\"format\":\"xyz\",\"nx\":2}\n"
+                + "{\"id\":\"cif\",\"cif\":\"" + cif.replace("\n", "\\n") + "\"}\n"
+                + "{\"id\":\"bad\",\"latticeType\":\"FCC\",\"a\":4,\"b\":4,\"c\":4,\"format\":\"pdb\"}\n"
+                + "not json\n";
+
+        var started = mockMvc.perform(post("/api/crystal/batch").contentType("application/x-ndjson").content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String out = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        // 结果按完成顺序写出，按 index 重新排列后核对
+        Map<Integer, String> lines = new TreeMap<>();
+        for (String line : out.split("\n")) {
+            lines.put(JsonPath.read(line, "$.index"), line);
+        }
+        assertEquals(5, lines.size());
+        assertEquals(8, (int) JsonPath.read(lines.get(0), "$.atomCount"));
+        assertEquals(8, (int) JsonPath.read(lines.get(0), "$.structure.atoms.length()"));
+        assertTrue(JsonPath.<String>read(lines.get(1), "$.content").startsWith("8\n"));
+        assertEquals(1, (int) JsonPath.read(lines.get(2), "$.atomCount"));
+        assertEquals("bad", JsonPath.read(lines.get(3), "$.id"));
+        assertTrue(JsonPath.<String>read(lines.get(3), "$.error").contains("pdb"));
+        assertTrue(JsonPath.<String>read(lines.get(4), "$.error").length() > 0);
+    }
+
+    @Test
+    void heavySupercellCanBePolledAsAsyncJob() throws Exception {
+        // 估算 8 × 19³ 个原子，超过默认的重任务阈值（实际 SC 原胞只有 1 个原子）
+        String body = "{\"latticeType\":\"SC\",\"a\":4,\"b\":4,\"c\":4,\"nx\":19,\"ny\":19,\"nz\":19}";
+        String accepted = performAsync(post("/api/crystal/supercell").contentType(MediaType.APPLICATION_JSON)
+                        .header("Prefer", "respond-async").content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        String id = JsonPath.read(accepted, "$.jobId");
+
+        int status = 202;
+        String result = null;
+        for (int attempt = 0; attempt < 200 && status == 202; attempt++) {
+            var response = mockMvc.perform(get("/api/crystal/jobs/" + id)).andReturn().getResponse();
+            status = response.getStatus();
+            result = response.getContentAsString();
+            if (status == 202) Thread.sleep(50);
+        }
+        assertEquals(200, status);
+        assertEquals(19 * 19 * 19, (int) JsonPath.read(result, "$.atoms.length()"));
+
+        mockMvc.perform(get("/api/crystal/jobs/missing")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void summarySupercellCanBeLoadedByRegion() throws Exception {
+        String body = "{\"latticeType\":\"SC\",\"a\":1.5,\"b\":1.5,\"c\":1.5,\"customAtoms\":[{\"element\":\"C\",\"x\":0,\"y\":0,\"z\":0}],"
+                + "\"nx\":10,\"ny\":10,\"nz\":10}";
+        String summary = performAsync(post("/api/crystal/supercell?summary=true").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.atomCount").value(1000))
+                .andExpect(jsonPath("$.max[0]").value(13.5))
+                .andExpect(jsonPath("$.atoms").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String id = JsonPath.read(summary, "$.structureId");
+
+        // 2×2×2 个格点、12 条键；stride=2 时只剩 x=0 一面的 4 个原子（下标为偶数）和它们之间的 4 条键
+        mockMvc.perform(post("/api/crystal/structures/" + id + "/region").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"min\":[-0.5,-0.5,-0.5],\"max\":[2,2,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.atoms.length()").value(8))
+                .andExpect(jsonPath("$.bonds.length()").value(12))
+                .andExpect(jsonPath("$.truncated").value(false));
+        mockMvc.perform(post("/api/crystal/structures/" + id + "/region").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"min\":[-0.5,-0.5,-0.5],\"max\":[2,2,2],\"stride\":2}"))
+                .andExpect(jsonPath("$.indices.length()").value(4))
+                .andExpect(jsonPath("$.bonds.length()").value(4));
+
+        mockMvc.perform(post("/api/crystal/structures/" + id + "/region").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/crystal/structures/missing")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void summarySupercellIsReadBackFromStore() throws Exception {
+        String body = "{\"latticeType\":\"BCC\",\"a\":2.87,\"b\":2.87,\"c\":2.87,\"nx\":3,\"ny\":3,\"nz\":3}";
+        String summary = performAsync(post("/api/crystal/supercell?summary=true").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String id = JsonPath.read(summary, "$.structureId");
+        int atoms = JsonPath.read(summary, "$.atomCount");
+
+        // 清空内存缓存，模拟重启后从快照读取
+        structureCache.clear();
+        mockMvc.perform(get("/api/crystal/store"))
+                .andExpect(jsonPath("$[?(@.id=='" + id + "')].name").value("BCC 3x3x3"));
+        mockMvc.perform(get("/api/crystal/store/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.atoms.length()").value(atoms))
+                .andExpect(jsonPath("$.a").value(8.61));
+        mockMvc.perform(post("/api/crystal/structures/" + id + "/region").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"min\":[0,0,0],\"max\":[1,1,1]}"))
+                .andExpect(jsonPath("$.atoms.length()").value(1));
+
+        mockMvc.perform(delete("/api/crystal/store/" + id)).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/crystal/store/" + id)).andExpect(status().isNotFound());
+        // 删除后缓存中的副本也不再可见
+        mockMvc.perform(get("/api/crystal/structures/" + id)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void supercellAcceptsAtomsWithoutDisplayFields() throws Exception {
+        // 前端表格只回传元素和坐标，颜色与半径由后端补上
+        performAsync(post("/api/crystal/supercell").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"a\":3,\"b\":3,\"c\":3,\"nx\":2,\"customAtoms\":[{\"element\":\"Fe\",\"x\":0,\"y\":0,\"z\":0}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.atoms.length()").value(2))
+                .andExpect(jsonPath("$.atoms[1].x").value(3.0))
+                .andExpect(jsonPath("$.a").value(6.0));
+    }
+
+    @Test
+    void malformedSymmetryOperatorIsBadRequest() throws Exception {
+        String cif = "data_x\n_cell_length_a 3\n_cell_length_b 3\n_cell_length_c 3\n"
+                + "loop_\n_symmetry_equiv_pos_as_xyz\nx,y,z\n'x,y,w'\n"
+                + "loop_\n_atom_site_type_symbol\n_atom_site_fract_x\n_atom_site_fract_y\n_atom_site_fract_z\nFe 0 0 0\n";
+        mockMvc.perform(multipart("/api/crystal/import").file(new MockMultipartFile("file", "bad.cif", "text/plain", cif.getBytes())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void editSessionReturnsBondDiff() throws Exception {
+        String body = "{\"a\":10,\"b\":10,\"c\":10,\"customAtoms\":["
+                + "{\"element\":\"C\",\"x\":0,\"y\":0,\"z\":0},{\"element\":\"C\",\"x\":5,\"y\":0,\"z\":0}]}";
+        String opened = mockMvc.perform(post("/api/crystal/sessions").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.structure.bonds.length()").value(0))
+                .andReturn().getResponse().getContentAsString();
+        String id = JsonPath.read(opened, "$.sessionId");
+
+        mockMvc.perform(patch("/api/crystal/sessions/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"edits\":[{\"index\":1,\"x\":1.5}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.added[0][1]").value(1))
+                .andExpect(jsonPath("$.bondCount").value(1));
+
+        mockMvc.perform(delete("/api/crystal/sessions/" + id)).andExpect(status().isNoContent());
+        mockMvc.perform(patch("/api/crystal/sessions/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"edits\":[]}"))
+                .andExpect(status().isNotFound());
+    }
+}
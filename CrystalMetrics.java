@@ -0,0 +1,86 @@
+package com.brother.crystalviz.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * CrystalService 各阶段的 Micrometer 指标，通过 /actuator/metrics 查看：
+ * crystalviz.phase（按 phase 标签区分的计时器）、crystalviz.structure.atoms / .bonds（结构规模分布）、
+ * crystalviz.request.payload（请求体字节数分布）、crystalviz.cif.parse.errors（CIF 中无法解析的数值）
+ */
+@Component
+public class CrystalMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> payloads = new ConcurrentHashMap<>();
+    private final DistributionSummary atoms;
+    private final DistributionSummary bonds;
+    private final Counter parseErrors;
+
+    @Autowired
+    public CrystalMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.atoms = DistributionSummary.builder("crystalviz.structure.atoms")
+                .description("原子数").baseUnit("atoms").publishPercentileHistogram().register(registry);
+        this.bonds = DistributionSummary.builder("crystalviz.structure.bonds")
+                .description("化学键数").baseUnit("bonds").publishPercentileHistogram().register(registry);
+        this.parseErrors = Counter.builder("crystalviz.cif.parse.errors")
+                .description("CIF 中无法解析而被忽略的数值 token").register(registry);
+    }
+
+    // 脱离 Spring 容器时使用：没有下游注册表的组合注册表，所有指标均为空操作
+    public static CrystalMetrics noop() {
+        return new CrystalMetrics(new CompositeMeterRegistry());
+    }
+
+    // 计时一个阶段，同时累加到当前请求的 Server-Timing
+    public <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(phase, start);
+        }
+    }
+
+    // 记录从 startNanos 到现在的耗时
+    public void record(String phase, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        phaseTimers.computeIfAbsent(phase, p -> Timer.builder("crystalviz.phase")
+                .description("CrystalService 各阶段耗时").tag("phase", p)
+                .publishPercentileHistogram().register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        ServerTiming timing = ServerTiming.current();
+        if (timing != null) {
+            timing.add(phase, nanos);
+        }
+    }
+
+    public void recordStructure(Structure structure) {
+        atoms.record(structure.getAtoms().size());
+        bonds.record(structure.getBonds().size());
+    }
+
+    // uri 为接口的路径模板，避免会话 id 等变量造成标签爆炸
+    public void recordPayload(String uri, long bytes) {
+        payloads.computeIfAbsent(uri, u -> DistributionSummary.builder("crystalviz.request.payload")
+                .description("请求体大小").baseUnit("bytes").tag("uri", u)
+                .publishPercentileHistogram().register(registry))
+                .record(bytes);
+    }
+
+    public void parseError() {
+        parseErrors.increment();
+    }
+}
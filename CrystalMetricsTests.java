@@ -0,0 +1,62 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.CrystalRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrystalMetricsTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CrystalService service = new CrystalService(new CrystalVizProperties(), new CrystalMetrics(registry));
+
+    @AfterEach
+    void close() {
+        service.destroy();
+    }
+
+    @Test
+    void cifImportRecordsPhasesAndParseErrors() {
+        String cif = String.join("\n",
+                "data_x",
+                "_cell_length_a 4",
+                "_cell_length_b 4",
+                "_cell_length_c 4",
+                "loop_",
+                "_atom_site_type_symbol",
+                "_atom_site_fract_x",
+                "_atom_site_fract_y",
+                "_atom_site_fract_z",
+                "Fe 0 0 zz",
+                "Fe 0.5 0.5 0.5",
+                "");
+        service.importCifLogic(cif);
+
+        assertEquals(1.0, registry.get("crystalviz.cif.parse.errors").counter().count());
+        assertEquals(1, registry.get("crystalviz.phase").tag("phase", "cif.parse").timer().count());
+        assertEquals(1, registry.get("crystalviz.phase").tag("phase", "bonding").timer().count());
+        assertEquals(1, registry.get("crystalviz.structure.atoms").summary().count());
+    }
+
+    @Test
+    void phasesAccumulateIntoServerTiming() {
+        ServerTiming timing = ServerTiming.start();
+        try {
+            CrystalRequest req = new CrystalRequest();
+            req.setLatticeType("FCC");
+            req.setA(4);
+            req.setB(4);
+            req.setC(4);
+            service.generateStructure(req);
+            String header = timing.header();
+            assertTrue(header.startsWith("generate;dur="), header);
+            assertTrue(header.contains("app;dur="), header);
+        } finally {
+            ServerTiming.clear();
+        }
+    }
+}
@@ -1,4 +1,5 @@
 package com.brother.crystalviz.model;
+import com.fasterxml.jackson.annotation.JsonCreator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -6,11 +7,16 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Data
-@NoArgsConstructor  // <--- 必须添加
+// 显式指定无参构造器反序列化：否则 Jackson 会选中全参构造器，缺省字段变成 null 而报 400
+@NoArgsConstructor(onConstructor_ = @JsonCreator)  // <--- 必须添加
 @AllArgsConstructor // 建议配套添加
 public class CrystalRequest {
     private String latticeType;
     private double a, b, c;
     private double alpha =90.0, beta =90.0, gamma =90.0;
     private List<Atom> customAtoms;
+    // 是否按周期性边界条件（最小像）计算化学键
+    private boolean periodic;
+    // 超晶胞倍数（沿 a/b/c 方向重复的次数）
+    private int nx = 1, ny = 1, nz = 1;
 }
\ No newline at end of file
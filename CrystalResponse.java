@@ -1,4 +1,7 @@
 package com.brother.crystalviz.model;
+import com.brother.crystalviz.service.Structure;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import java.util.List;
 
@@ -14,4 +17,12 @@ public class CrystalResponse {
     private double alpha;
     private double beta;
     private double gamma;
+    // 校验报告，仅在请求 validate=true 时返回
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ValidationReport validation;
+    // 生成该响应的原子表/键表，二进制格式直接按表编码，不经过 Atom/Bond 列表；不参与 JSON 序列化
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Structure structure;
 }
\ No newline at end of file
@@ -1,414 +1,644 @@
 package com.brother.crystalviz.service;
 
+import com.brother.crystalviz.config.CrystalVizProperties;
 import com.brother.crystalviz.model.Atom;
-import com.brother.crystalviz.model.Bond;
 import com.brother.crystalviz.model.CrystalRequest;
-import com.brother.crystalviz.model.CrystalResponse;
+import com.brother.crystalviz.model.StructureAnalysis;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.*;
 
 @Service
-public class CrystalService {
-
-    // 元素颜色映射 [cite: 2]
-    private static final Map<String, String> ELEMENT_COLORS = new HashMap<>();
-    // 原子半径映射 [cite: 2]
-    private static final Map<String, Double> ATOMIC_RADII = new HashMap<>();
-
-    static {
-        ELEMENT_COLORS.put("Fe", "#FF0000"); // Red
-        ELEMENT_COLORS.put("C", "#888888");
-        ELEMENT_COLORS.put("Cu", "#FFA500"); // Orange
-        ELEMENT_COLORS.put("Al", "#0000FF"); // Blue
-        ELEMENT_COLORS.put("Cl", "#00FF00"); // Green
-        ELEMENT_COLORS.put("Na", "#800080"); // Purple
-        ELEMENT_COLORS.put("O", "#FF4500");
-        ELEMENT_COLORS.put("H", "#FFFFFF"); // 白色
-        ELEMENT_COLORS.put("N", "#3050F8"); // 深蓝色
-
-        ATOMIC_RADII.put("Fe", 1.26);
-        ATOMIC_RADII.put("C", 0.77);
-        ATOMIC_RADII.put("O", 0.6);
-        ATOMIC_RADII.put("Cu", 1.28);
-        ATOMIC_RADII.put("Al", 1.43);
-        ATOMIC_RADII.put("Cl", 1.00);
-        ATOMIC_RADII.put("Na", 1.50);
-        ATOMIC_RADII.put("H", 0.37);
-        ATOMIC_RADII.put("N", 0.75);
+public class CrystalService implements DisposableBean {
+
+    // 两原子距离小于该值 (Å) 视为异常重叠
+    private static final double OVERLAP_DISTANCE = 0.5;
+    // 并行时每个 fork/join 任务处理的最少原子数
+    private static final int MIN_CHUNK_ATOMS = 4096;
+
+    private final CrystalVizProperties properties;
+    private final CrystalMetrics metrics;
+    // crystalviz.bonding.parallelism > 0 时使用的专用线程池，首次并行计算时创建，成键、结构分析与衍射计算共用
+    private ForkJoinPool bondingPool;
+
+    @Autowired
+    public CrystalService(CrystalVizProperties properties, CrystalMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    // 不记录指标
+    public CrystalService(CrystalVizProperties properties) {
+        this(properties, CrystalMetrics.noop());
+    }
+
+    // 脱离 Spring 容器使用时（测试、基准）采用默认配置
+    public CrystalService() {
+        this(new CrystalVizProperties());
     }
 
     /**
      * 生成晶体结构数据
      * 对应 Python 源码中的 generate_lattice 方法
      */
-    public List<Atom> generateStructure(CrystalRequest req) {
+    public AtomTable generateStructure(CrystalRequest req) {
+        return metrics.time("generate", () -> generateCell(req));
+    }
+
+    private AtomTable generateCell(CrystalRequest req) {
         if (req.getCustomAtoms() != null && !req.getCustomAtoms().isEmpty()) {
-            List<Atom> updatedList = req.getCustomAtoms();
-            // 给修改后的原子补上颜色和半径（因为前端传回来的可能只有坐标）
-            for (Atom atom : updatedList) {
-                atom.setColor(ELEMENT_COLORS.getOrDefault(atom.getElement(), "#808080"));
-                atom.setRadius(ATOMIC_RADII.getOrDefault(atom.getElement(), 1.0));
+            // 前端传回修改后的原子（可能只有坐标），颜色和半径在转换回 Atom 时按元素补上
+            return AtomTable.of(req.getCustomAtoms()); // 直接返回修改后的，不走下面的生成逻辑
+        }
+
+        // 根据晶系取预先建好的原胞模板，分数坐标 -> 笛卡尔坐标
+        // Cartesian = Fractional * Lattice Matrix (用于处理非 90 度的晶系)
+        return CellTemplate.of(req.getLatticeType()).place(latticeOf(req));
+    }
+
+    // 1. 自动计算化学键逻辑
+    public BondTable calculateBonds(AtomTable atoms) {
+        return calculateBonds(atoms, properties.getBonding().isBruteForce());
+    }
+
+    // bruteForce=true 时走 O(N²) 双重循环，结果与 Cell List 完全一致，可用于交叉核对
+    public BondTable calculateBonds(AtomTable atoms, boolean bruteForce) {
+        return metrics.time("bonding", () -> calculateBonds(atoms, bruteForce, null));
+    }
+
+    // overlaps 不为 null 时，在同一次近邻遍历中把距离小于 OVERLAP_DISTANCE 的原子对按序写入 overlaps
+    private BondTable calculateBonds(AtomTable atoms, boolean bruteForce, PairBuffer overlaps) {
+        // 按元素对查截断矩阵（共价半径之和或固定窗口），统一比较距离平方，省去开方
+        BondCutoffs cutoffs = BondCutoffs.of(atoms, properties.getBonding());
+        double maxLen = overlaps != null ? Math.max(cutoffs.getMaxCutoff(), OVERLAP_DISTANCE) : cutoffs.getMaxCutoff();
+
+        // 直接使用原子表的坐标数组，不再逐个拷贝
+        int n = atoms.size();
+        double[] xs = atoms.xs();
+        double[] ys = atoms.ys();
+        double[] zs = atoms.zs();
+        short[] el = atoms.elementIds();
+        CellList.PairFilter wanted = overlaps != null
+                ? (i, j, d2) -> d2 < OVERLAP_DISTANCE * OVERLAP_DISTANCE || cutoffs.isBond(el[i], el[j], d2)
+                : (i, j, d2) -> cutoffs.isBond(el[i], el[j], d2);
+
+        PairBuffer pairs = new PairBuffer();
+        if (bruteForce) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double dx = xs[i] - xs[j];
+                    double dy = ys[i] - ys[j];
+                    double dz = zs[i] - zs[j];
+                    double d2 = dx * dx + dy * dy + dz * dz;
+                    if (wanted.accept(i, j, d2)) {
+                        pairs.add(i, j);
+                    }
+                }
             }
-            return updatedList; // 直接返回修改后的，不走下面的生成逻辑
+        } else if (isParallel(n)) {
+            // 大结构：各格子块并行收集候选键，合并后并行排序
+            ForkJoinPool pool = parallelPool();
+            pairs = new CellList(xs, ys, zs, n, maxLen).collectPairs(maxLen, wanted, pool, chunkAtoms(n));
+            pairs.parallelSort(pool);
+        } else {
+            // 格子边长取最大截断距离，只需检查相邻格子
+            PairBuffer found = pairs;
+            new CellList(xs, ys, zs, n, maxLen).forEachPair(maxLen, (i, j, d2) -> {
+                if (wanted.accept(i, j, d2)) {
+                    found.add(i, j);
+                }
+            });
+            // 排序后与双重循环的 (i, j) 输出顺序一致
+            pairs.sort();
+        }
+        if (overlaps == null) {
+            return BondTable.of(pairs);
         }
 
-        List<Atom> atoms = new ArrayList<>();
-        String type = req.getLatticeType();
-        double a = req.getA();
-        double b = req.getB();
-        double c = req.getC();
+        // 收集到的原子对里既有键也有重叠，按距离拆开（两者可能同时成立），顺序保持不变
+        PairBuffer bonds = new PairBuffer(pairs.size());
+        for (int k = 0; k < pairs.size(); k++) {
+            int i = pairs.first(k), j = pairs.second(k);
+            double dx = xs[i] - xs[j];
+            double dy = ys[i] - ys[j];
+            double dz = zs[i] - zs[j];
+            double d2 = dx * dx + dy * dy + dz * dz;
+            if (cutoffs.isBond(el[i], el[j], d2)) {
+                bonds.add(i, j);
+            }
+            if (d2 < OVERLAP_DISTANCE * OVERLAP_DISTANCE) {
+                overlaps.add(i, j);
+            }
+        }
+        return BondTable.of(bonds);
+    }
 
-        // 基础分数坐标 (Fractional Coordinates)
-        List<double[]> fracCoords = new ArrayList<>();
-        List<String> elements = new ArrayList<>();
+    private boolean isParallel(int atoms) {
+        return atoms >= properties.getBonding().getParallelThreshold();
+    }
 
-        // 根据晶系生成原胞 [cite: 6, 7, 8]
-        switch (type) {
-            case "SC": // 简单立方
-                fracCoords.add(new double[]{0, 0, 0});
-                elements.add("Polonium"); // 示例
-                break;
-            case "BCC": // 体心立方 [cite: 8]
-                fracCoords.add(new double[]{0, 0, 0});
-                fracCoords.add(new double[]{0.5, 0.5, 0.5});
-                elements.add("Fe");
-                elements.add("Fe");
-                break;
-            case "FCC": // 面心立方 [cite: 7]
-                fracCoords.add(new double[]{0, 0, 0});
-                fracCoords.add(new double[]{0.5, 0.5, 0});
-                fracCoords.add(new double[]{0.5, 0, 0.5});
-                fracCoords.add(new double[]{0, 0.5, 0.5});
-                // 模拟 NaCl 结构或者纯金属
-                elements.add("Cu"); elements.add("Cu"); elements.add("Cu"); elements.add("Cu");
-                break;
-            case "NaCl": // 岩盐结构示例
-                // Na
-                fracCoords.add(new double[]{0, 0, 0});
-                fracCoords.add(new double[]{0.5, 0.5, 0});
-                fracCoords.add(new double[]{0.5, 0, 0.5});
-                fracCoords.add(new double[]{0, 0.5, 0.5});
-                // Cl (位移 0.5, 0.5, 0.5)
-                fracCoords.add(new double[]{0.5, 0.5, 0.5});
-                fracCoords.add(new double[]{0.5, 0, 0}); // 简化版，实际会有周期性
-                fracCoords.add(new double[]{0, 0.5, 0});
-                fracCoords.add(new double[]{0, 0, 0.5});
-
-                for(int i=0; i<4; i++) elements.add("Na");
-                for(int i=0; i<4; i++) elements.add("Cl");
-                break;
-            case "HEX": // 六方晶系
-                // 原子1 (0, 0, 0)
-                fracCoords.add(new double[]{0, 0, 0});
-                elements.add("Mg");
-                // 原子2 (2/3, 1/3, 1/2)
-                fracCoords.add(new double[]{2.0/3.0, 1.0/3.0, 0.5});
-                elements.add("Mg");
-
-                // 坐标转换时，gamma 强制为 120 度
-                double gammaRad = Math.toRadians(120);
-                // x = a*u + b*v*cos(120)
-                // y = b*v*sin(120)
-                // z = c*w
-                break;
-            default: // 默认简单立方
-                fracCoords.add(new double[]{0, 0, 0});
-                elements.add("Fe");
+    private synchronized ForkJoinPool parallelPool() {
+        int parallelism = properties.getBonding().getParallelism();
+        if (parallelism <= 0) {
+            return ForkJoinPool.commonPool();
         }
+        if (bondingPool == null || bondingPool.getParallelism() != parallelism) {
+            if (bondingPool != null) {
+                bondingPool.shutdown();
+            }
+            bondingPool = new ForkJoinPool(parallelism);
+        }
+        return bondingPool;
+    }
 
-        // 坐标转换：分数坐标 -> 笛卡尔坐标 [cite: 10]
-        // Cartesian = Fractional * Lattice Matrix
-        double alphaRad = Math.toRadians(req.getAlpha());
-        double betaRad = Math.toRadians(req.getBeta());
-        double gammaRad = Math.toRadians(req.getGamma());
+    // 容器关闭时关闭专用线程池（公共 ForkJoinPool 不需要关闭）；脱离容器使用时由调用方负责调用
+    @Override
+    public synchronized void destroy() {
+        if (bondingPool != null) {
+            bondingPool.shutdown();
+            bondingPool = null;
+        }
+    }
 
-// 计算晶格矢量矩阵 (用于处理非 90 度的晶系)
-        double ax = req.getA();
-        double ay = 0;
-        double az = 0;
+    // 每个线程约 8 个任务，便于负载均衡
+    private int chunkAtoms(int atoms) {
+        return Math.max(MIN_CHUNK_ATOMS, atoms / (parallelPool().getParallelism() * 8));
+    }
 
-        double bx = req.getB() * Math.cos(gammaRad);
-        double by = req.getB() * Math.sin(gammaRad);
-        double bz = 0;
+    // 周期性成键：用晶格矢量按最小像约定寻找跨越晶胞边界的近邻，每条键记录 end 的周期像偏移
+    public BondTable calculatePeriodicBonds(AtomTable atoms, Lattice lattice) {
+        return metrics.time("bonding", () -> calculatePeriodicBonds(atoms, lattice, null));
+    }
 
-        double cx = req.getC() * Math.cos(betaRad);
-        double cy = req.getC() * (Math.cos(alphaRad) - Math.cos(betaRad) * Math.cos(gammaRad)) / Math.sin(gammaRad);
-        double cz = Math.sqrt(Math.pow(req.getC(), 2) - cx * cx - cy * cy);
+    // overlaps 不为 null 时同时收集重叠原子对（包括跨越晶胞边界的周期像），排序去重后写入 overlaps
+    private BondTable calculatePeriodicBonds(AtomTable atoms, Lattice lattice, PairBuffer overlaps) {
+        BondCutoffs cutoffs = BondCutoffs.of(atoms, properties.getBonding());
+        short[] el = atoms.elementIds();
+        double radius = overlaps != null ? Math.max(cutoffs.getMaxCutoff(), OVERLAP_DISTANCE) : cutoffs.getMaxCutoff();
+
+        BondTable bonds = new BondTable(atoms.size() * 4, true);
+        new PeriodicCellList(lattice, atoms.xs(), atoms.ys(), atoms.zs(), atoms.size(), radius)
+                .forEachPair((i, j, na, nb, nc, d2) -> {
+                    if (cutoffs.isBond(el[i], el[j], d2)) {
+                        bonds.add(i, j, na, nb, nc);
+                    }
+                    if (overlaps != null && d2 < OVERLAP_DISTANCE * OVERLAP_DISTANCE) {
+                        overlaps.add(Math.min(i, j), Math.max(i, j));
+                    }
+                });
+        if (overlaps != null) {
+            overlaps.sortDistinct();
+        }
+        return bonds;
+    }
 
-        for (int i = 0; i < fracCoords.size(); i++) {
-            double[] f = fracCoords.get(i);
-            String elem = elements.get(i);
-
-            // 将分数坐标转换为真实的笛卡尔坐标
-            double x = f[0] * ax + f[1] * bx + f[2] * cx;
-            double y = f[0] * ay + f[1] * by + f[2] * cy;
-            double z = f[0] * az + f[1] * bz + f[2] * cz;
-
-            atoms.add(new Atom(
-                    elem,
-                    x, y, z,
-                    ELEMENT_COLORS.getOrDefault(elem, "#808080"),
-                    ATOMIC_RADII.getOrDefault(elem, 1.0)
-            ));
+    /**
+     * 成键并生成校验报告，结果的 getReport() 不为 null
+     * 重叠检查与成键共用一次近邻遍历，取代单独的 checkErrors
+     */
+    public Structure assemble(AtomTable atoms, Lattice lattice, boolean periodic) {
+        PairBuffer overlaps = new PairBuffer();
+        BondTable bonds = metrics.time("bonding", () -> periodic
+                ? calculatePeriodicBonds(atoms, lattice, overlaps)
+                : calculateBonds(atoms, properties.getBonding().isBruteForce(), overlaps));
+        Structure structure = new Structure(atoms, bonds, lattice, metrics.time("validate",
+                () -> StructureValidator.report(atoms, bonds, overlaps, lattice, properties.getValidation())));
+        metrics.recordStructure(structure);
+        return structure;
+    }
+
+    /**
+     * 径向分布函数与配位分析，periodic=true 时按最小像约定计入周期像（需要有效晶格）
+     * 近邻遍历在成键使用的 fork/join 线程池中分块并行；半径与分箱数的上限由调用方检查
+     */
+    public StructureAnalysis analyze(String id, Structure structure, boolean periodic, double maxRadius, double binWidth) {
+        AtomTable atoms = structure.getAtoms();
+        if (periodic && !structure.getLattice().isValid()) {
+            throw new IllegalArgumentException("晶格参数无效，不能按周期性结构分析");
         }
-        return atoms;
+        BondCutoffs cutoffs = BondCutoffs.of(atoms, properties.getBonding());
+        return metrics.time("analysis", () -> RadialDistribution.analyze(id, atoms, structure.getLattice(), periodic,
+                cutoffs, maxRadius, binWidth, properties.getAnalysis().getBondBinWidth(),
+                parallelPool(), chunkAtoms(atoms.size())));
     }
 
-    // 1. 自动计算化学键逻辑
-    public List<Bond> calculateBonds(List<Atom> atoms) {
-        List<Bond> bonds = new ArrayList<>();
-        // 设置键长阈值（例如 1.0Å 到 5.0Å 之间判定为有键）
-        double minLen = 1.0;
-        double maxLen = 5.0;
-
-        for (int i = 0; i < atoms.size(); i++) {
-            for (int j = i + 1; j < atoms.size(); j++) {
-                Atom a1 = atoms.get(i);
-                Atom a2 = atoms.get(j);
-                double dist = Math.sqrt(Math.pow(a1.getX()-a2.getX(), 2) +
-                        Math.pow(a1.getY()-a2.getY(), 2) +
-                        Math.pow(a1.getZ()-a2.getZ(), 2));
-                if (dist >= minLen && dist <= maxLen) {
-                    bonds.add(new Bond(a1, a2));
-                }
-            }
+    /**
+     * 粉末衍射峰：2θ ≤ twoThetaMax 的 (hkl) 结构因子在成键使用的 fork/join 线程池中并行计算
+     * 需要有效晶格；原子数超过 crystalviz.xrd.max-atoms 时抛出 StructureTooLargeException
+     */
+    public ReflectionList diffraction(Structure structure, double wavelength, double twoThetaMax, double bFactor) {
+        CrystalVizProperties.Xrd config = properties.getXrd();
+        AtomTable atoms = structure.getAtoms();
+        if (!structure.getLattice().isValid()) {
+            throw new IllegalArgumentException("晶格参数无效，无法计算衍射谱");
         }
-        return bonds;
+        checkAtomLimit(atoms.size(), config.getMaxAtoms());
+        return metrics.time("xrd", () -> PowderDiffraction.compute(atoms, structure.getLattice(), wavelength,
+                twoThetaMax, bFactor, config.getMaxReflections(), parallelPool()));
+    }
+
+    // 根据请求选择周期性或普通成键
+    public BondTable calculateBonds(AtomTable atoms, CrystalRequest req) {
+        return req.isPeriodic() ? calculatePeriodicBonds(atoms, latticeOf(req)) : calculateBonds(atoms);
+    }
+
+    // 生成前估算原胞原子数（内置晶格至多 8 个原子），供准入控制使用
+    public int estimateBaseAtoms(CrystalRequest req) {
+        return req.getCustomAtoms() != null && !req.getCustomAtoms().isEmpty() ? req.getCustomAtoms().size() : 8;
+    }
+
+    public Lattice latticeOf(CrystalRequest req) {
+        return Lattice.fromParameters(req.getA(), req.getB(), req.getC(), req.getAlpha(), req.getBeta(), req.getGamma());
+    }
+
+    /**
+     * 服务端超晶胞：原胞沿真实晶格矢量平移 nx × ny × nz 次
+     * 扩展结果保存在 AtomTable 的坐标数组中直接参与成键
+     */
+    public Structure generateSupercell(CrystalRequest req) {
+        return generateSupercell(req, properties.getLimits().getMaxAtoms());
+    }
+
+    // 只保留在服务端、不整体序列化的超晶胞（区域查询）使用单独的原子数上限
+    public Structure generateSupercell(CrystalRequest req, long maxAtoms) {
+        AtomTable base = generateStructure(req);
+        int nx = req.getNx(), ny = req.getNy(), nz = req.getNz();
+        checkAtomLimit((long) base.size() * nx * ny * nz, maxAtoms);
+
+        AtomTable atoms = metrics.time("supercell", () -> base.replicate(latticeOf(req), nx, ny, nz));
+        // 超晶胞的晶格：边长按倍数放大，夹角不变
+        Lattice cell = Lattice.fromParameters(req.getA() * nx, req.getB() * ny, req.getC() * nz,
+                req.getAlpha(), req.getBeta(), req.getGamma());
+
+        BondTable bonds = req.isPeriodic() ? calculatePeriodicBonds(atoms, cell) : calculateBonds(atoms);
+        Structure structure = new Structure(atoms, bonds, cell);
+        metrics.recordStructure(structure);
+        return structure;
+    }
+
+    // 需要整体放在内存中的超晶胞结果（接口响应、批处理导出）检查扩展后的原子数
+    public void checkSupercellLimit(int baseAtoms, CrystalRequest req) {
+        checkAtomLimit((long) baseAtoms * req.getNx() * req.getNy() * req.getNz(), properties.getLimits().getMaxAtoms());
+    }
+
+    // 流式导出前检查扩展后的原子数
+    public void checkExportLimit(int baseAtoms, CrystalRequest req) {
+        checkAtomLimit((long) baseAtoms * req.getNx() * req.getNy() * req.getNz(), properties.getLimits().getMaxExportAtoms());
+    }
+
+    private static void checkAtomLimit(long atoms, long limit) {
+        if (atoms > limit) {
+            throw new StructureTooLargeException(atoms, limit);
+        }
+    }
+
+    // 元素颜色（CPK）与显示半径（共价半径），供原子表转换回 Atom 时使用；未知元素为灰色、1.0 Å
+    public static String colorOf(String element) {
+        return PeriodicTable.color(PeriodicTable.atomicNumber(element));
+    }
+
+    public static double radiusOf(String element) {
+        double r = PeriodicTable.covalentRadius(PeriodicTable.atomicNumber(element));
+        return Double.isNaN(r) ? 1.0 : r;
     }
 
     // 1. 导出 XYZ 字符串功能
-    public String exportToXYZ(List<Atom> atoms) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(atoms.size()).append("\n");
-        sb.append("Generated by CrystalViz Platform\n");
-        for (Atom atom : atoms) {
-            sb.append(String.format("%s %.6f %.6f %.6f\n",
-                    atom.getElement(), atom.getX(), atom.getY(), atom.getZ()));
+    public String exportToXYZ(AtomTable atoms) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + atoms.size() * 40);
+        try {
+            StructureExporter.write(ExportFormat.XYZ, atoms, null, 1, 1, 1, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // 内存输出流不会抛出
         }
-        return sb.toString();
+        return out.toString(StandardCharsets.US_ASCII);
     }
 
-    // 2. 错误检测：重叠原子检查
-    public List<String> checkErrors(List<Atom> atoms) {
-        List<String> errors = new ArrayList<>();
-        for (int i = 0; i < atoms.size(); i++) {
-            for (int j = i + 1; j < atoms.size(); j++) {
-                double dist = calculateDist(atoms.get(i), atoms.get(j));
-                if (dist < 0.5) { // 如果两个原子距离小于0.5埃，判定为异常重叠
-                    errors.add("警告: 发现原子重叠于坐标 (" + atoms.get(i).getX() + ", " + atoms.get(i).getY() + ")");
-                }
-            }
+    // 按指定格式把结构（可带超晶胞扩展）直接写入输出流
+    public void export(ExportFormat format, AtomTable atoms, CrystalRequest req, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        try {
+            StructureExporter.write(format, atoms, latticeOf(req), req.getNx(), req.getNy(), req.getNz(), out);
+        } finally {
+            metrics.record("export", start);
+        }
+    }
+
+    // 导入的结构使用自身晶格，只从请求中取超晶胞倍数
+    public void export(ExportFormat format, Structure structure, CrystalRequest req, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        try {
+            StructureExporter.write(format, structure.getAtoms(), structure.getLattice(), req.getNx(), req.getNy(), req.getNz(), out);
+        } finally {
+            metrics.record("export", start);
         }
-        return errors;
     }
 
-    private double calculateDist(Atom a, Atom b) {
-        return Math.sqrt(Math.pow(a.getX()-b.getX(),2) + Math.pow(a.getY()-b.getY(),2) + Math.pow(a.getZ()-b.getZ(),2));
+    // 2. 错误检测：重叠原子检查（Cell List 只比较相邻格子，输出顺序与双重循环一致）
+    // 已由 assemble 生成的 ValidationReport 取代：后者与成键共用近邻遍历，并限制输出条目数
+    @Deprecated
+    public List<String> checkErrors(AtomTable atoms) {
+        CellList cells = new CellList(atoms.xs(), atoms.ys(), atoms.zs(), atoms.size(), OVERLAP_DISTANCE);
+        // 如果两个原子距离小于0.5埃，判定为异常重叠
+        CellList.PairFilter overlapping = (i, j, d2) -> d2 < OVERLAP_DISTANCE * OVERLAP_DISTANCE;
+        PairBuffer overlaps;
+        if (isParallel(atoms.size())) {
+            overlaps = cells.collectPairs(OVERLAP_DISTANCE, overlapping, parallelPool(), chunkAtoms(atoms.size()));
+        } else {
+            PairBuffer found = new PairBuffer();
+            cells.forEachPair(OVERLAP_DISTANCE, (i, j, d2) -> {
+                if (overlapping.accept(i, j, d2)) {
+                    found.add(i, j);
+                }
+            });
+            overlaps = found;
+        }
+        overlaps.sort();
+
+        List<String> errors = new ArrayList<>(overlaps.size());
+        for (int k = 0; k < overlaps.size(); k++) {
+            int i = overlaps.first(k);
+            errors.add("警告: 发现原子重叠于坐标 (" + atoms.getX(i) + ", " + atoms.getY(i) + ")");
+        }
+        return errors;
     }
 
     // [新增] 解析 CIF 文件并返回原子列表
     public List<Atom> parseCIF(String content) {
-        List<Atom> atoms = new ArrayList<>();
-        // 简单的正则表达式或行扫描来获取晶格常数和原子坐标
-        // 实际生产建议使用专门的解析库，这里展示核心逻辑
-        double a = 1.0, b = 1.0, c = 1.0;
+        List<String> elements = new ArrayList<>();
+        List<double[]> fracCoords = new ArrayList<>();
+        // 简单的行扫描获取晶格参数和原子坐标；完整解析（loop、对称展开）见 importCifLogic
+        double[] cell = {1.0, 1.0, 1.0, 90.0, 90.0, 90.0};
 
         String[] lines = content.split("\n");
         for (String line : lines) {
             line = line.trim();
             // 解析晶格参数
-            if (line.startsWith("_cell_length_a")) a = Double.parseDouble(line.split("\\s+")[1].split("\\(")[0]);
-            if (line.startsWith("_cell_length_b")) b = Double.parseDouble(line.split("\\s+")[1].split("\\(")[0]);
-            if (line.startsWith("_cell_length_c")) c = Double.parseDouble(line.split("\\s+")[1].split("\\(")[0]);
+            for (int k = 0; k < CELL_TAGS.length; k++) {
+                if (line.startsWith(CELL_TAGS[k])) cell[k] = Double.parseDouble(line.split("\\s+")[1].split("\\(")[0]);
+            }
 
             // 匹配原子坐标行 (例如: Fe1 Fe 0.0000 0.0000 0.0000)
             if (line.matches("^[a-zA-Z]+\\d*\\s+[a-zA-Z]+\\s+[\\d\\.-]+\\s+[\\d\\.-]+\\s+[\\d\\.-]+.*")) {
                 String[] parts = line.split("\\s+");
-                String symbol = parts[1];
-                double fx = Double.parseDouble(parts[2].split("\\(")[0]);
-                double fy = Double.parseDouble(parts[3].split("\\(")[0]);
-                double fz = Double.parseDouble(parts[4].split("\\(")[0]);
-
-                // 转换为笛卡尔坐标 (此处简化为正交，建议复用之前的变换矩阵逻辑)
-                atoms.add(new Atom(symbol, fx * a, fy * b, fz * c,
-                        ELEMENT_COLORS.getOrDefault(symbol, "#808080"),
-                        ATOMIC_RADII.getOrDefault(symbol, 1.0)));
+                elements.add(parts[1]);
+                fracCoords.add(new double[]{
+                        Double.parseDouble(parts[2].split("\\(")[0]),
+                        Double.parseDouble(parts[3].split("\\(")[0]),
+                        Double.parseDouble(parts[4].split("\\(")[0])});
             }
         }
+
+        // 与 importCifLogic 共用晶格矩阵转换
+        AtomTable table = toAtomTable(elements, fracCoords,
+                Lattice.fromParameters(cell[0], cell[1], cell[2], cell[3], cell[4], cell[5]));
+        List<Atom> atoms = new ArrayList<>(table.size());
+        for (int i = 0; i < table.size(); i++) {
+            String symbol = table.getElement(i);
+            atoms.add(new Atom(symbol, table.getX(i), table.getY(i), table.getZ(i), colorOf(symbol), radiusOf(symbol)));
+        }
         return atoms;
     }
 
     // 修改返回类型，或者创建一个包装类。这里我们假设直接在 Service 里处理
-    public CrystalResponse importCifLogic(String content) {
-        CrystalResponse response = new CrystalResponse();
-        List<Atom> atoms = new ArrayList<>();
-
-        // 1. 预处理：去除注释，将所有空白字符（空格、换行、制表符）统一替换为空格
-        // 这样 _cell_length_a 和 2.456 就变成了相邻的两个单词，不用管换行了
-        String cleanContent = content.replaceAll("#.*", ""); // 去除 # 后的注释
-        // 将内容按空白字符分割成 Token 流
-        String[] tokens = cleanContent.split("\\s+");
-        List<String> tokenList = new ArrayList<>();
-        for (String t : tokens) {
-            if (!t.trim().isEmpty()) {
-                tokenList.add(t);
-            }
+    public Structure importCifLogic(String content) {
+        return importCifLogic(content, false);
+    }
+
+    public Structure importCifLogic(String content, boolean periodic) {
+        try {
+            return importCifLogic(new StringReader(content), periodic);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringReader 不会抛出
         }
+    }
+
+    public Structure importCifLogic(InputStream in, boolean periodic) throws IOException {
+        return importCifLogic(new InputStreamReader(in, StandardCharsets.UTF_8), periodic);
+    }
+
+    /**
+     * 单遍流式解析 CIF：边读边分词，不整体读入文件，内存占用与文件大小无关
+     */
+    public Structure importCifLogic(Reader reader, boolean periodic) throws IOException {
+        // 原子先按元素符号 + 分数坐标保存，全部读完（晶胞参数齐全）后再统一转换
+        List<String> elements = new ArrayList<>();
+        List<double[]> fracCoords = new ArrayList<>();
+        // 空间群对称操作 (_symmetry_equiv_pos_as_xyz / _space_group_symop_operation_xyz)
+        List<String> symops = new ArrayList<>();
 
         // 默认值
         double a = 1.0, b = 1.0, c = 1.0;
         double alpha = 90.0, beta = 90.0, gamma = 90.0;
 
-        // 2. 遍历 Token 解析参数
-        // 我们需要记录 atom_site loop 的列定义顺序
-        List<String> atomHeaders = new ArrayList<>();
-        boolean inAtomLoop = false;
-
-        for (int i = 0; i < tokenList.size(); i++) {
-            String token = tokenList.get(i);
-
-            try {
-                switch (token) {
-                    case "_cell_length_a":
-                        a = Double.parseDouble(tokenList.get(++i));
-                        break;
-                    case "_cell_length_b":
-                        b = Double.parseDouble(tokenList.get(++i));
-                        break;
-                    case "_cell_length_c":
-                        c = Double.parseDouble(tokenList.get(++i));
-                        break;
-                    case "_cell_angle_alpha":
-                        alpha = Double.parseDouble(tokenList.get(++i));
-                        break;
-                    case "_cell_angle_beta":
-                        beta = Double.parseDouble(tokenList.get(++i));
-                        break;
-                    case "_cell_angle_gamma":
-                        gamma = Double.parseDouble(tokenList.get(++i));
-                        break;
-                    case "loop_":
-                        // 检查下一个 token 是否是原子位点定义
-                        if (i + 1 < tokenList.size() && tokenList.get(i+1).startsWith("_atom_site_")) {
-                            inAtomLoop = true;
-                            atomHeaders.clear();
-                        } else {
-                            inAtomLoop = false;
-                        }
-                        break;
-                    default:
-                        if (inAtomLoop) {
-                            if (token.startsWith("_atom_site_")) {
-                                atomHeaders.add(token);
-                            } else {
-                                // 遇到了非 header 的内容，说明开始是数据了
-                                // 必须确保 atomHeaders 不为空
-                                if (!atomHeaders.isEmpty()) {
-                                    // 这是一个数据行的开始，我们需要根据 headers 的长度读取一组数据
-                                    int stride = atomHeaders.size();
-                                    // 回退当前 token (因为它是数据的一部分)
-                                    i--;
-
-                                    // 循环读取原子直到遇到非数据或结束
-                                    while (i + stride < tokenList.size()) {
-                                        // 预判下一个 token，如果是新的 key (以 _ 开头) 或 loop_ 则跳出
-                                        String nextCheck = tokenList.get(i + 1);
-                                        if (nextCheck.startsWith("_") || nextCheck.equals("loop_")) {
-                                            inAtomLoop = false;
-                                            break;
-                                        }
-
-                                        // 读取一行原子数据
-                                        Atom atom = new Atom();
-                                        // 给个默认半径和颜色
-                                        atom.setRadius(0.5);
-                                        atom.setColor("#808080");
-
-                                        for (int k = 0; k < stride; k++) {
-                                            String val = tokenList.get(++i); // 移动主指针
-                                            String header = atomHeaders.get(k);
-
-                                            // 简单去除括号 (有些CIF会有 0.123(5))
-                                            val = val.replaceAll("\\(.*\\)", "");
-
-                                            if (header.contains("_label") || header.contains("_symbol")) {
-                                                // 提取元素符号 (比如 C1 -> C)
-                                                String el = val.replaceAll("[0-9+-]", "");
-                                                atom.setElement(el);
-                                                assignAtomProperties(atom); // 复用你原有的设置颜色方法
-                                            } else if (header.contains("_fract_x")) {
-                                                atom.setX(Double.parseDouble(val));
-                                            } else if (header.contains("_fract_y")) {
-                                                atom.setY(Double.parseDouble(val));
-                                            } else if (header.contains("_fract_z")) {
-                                                atom.setZ(Double.parseDouble(val));
-                                            }
-                                        }
-
-                                        // 坐标转换：CIF 是分数坐标，需要转为笛卡尔坐标
-                                        // 简化的正交转换 (对于 Alpha=Beta=Gamma=90 适用)
-                                        // 如果要严谨，需要根据 alpha/beta/gamma 做矩阵变换，这里先做简单版
-                                        atom.setX(atom.getX() * a);
-                                        atom.setY(atom.getY() * b);
-                                        atom.setZ(atom.getZ() * c);
-
-                                        atoms.add(atom);
-                                    }
-                                    inAtomLoop = false; // 读完这个 loop
-                                }
-                            }
+        // 分词与解析是同一遍流式处理，合并计为 cif.parse
+        long parseStart = System.nanoTime();
+        CifTokenizer tokens = new CifTokenizer(reader);
+        CifTokenizer.Type type = tokens.next();
+        while (type != CifTokenizer.Type.EOF) {
+            if (type == CifTokenizer.Type.TAG) {
+                // 单值数据项：_tag value
+                int cellParam = cellParameterIndex(tokens);
+                boolean symop = isSymopTag(tokens);
+                type = tokens.next();
+                if (type != CifTokenizer.Type.VALUE) continue;
+                if (symop) {
+                    symops.add(tokens.text());
+                } else if (cellParam >= 0) {
+                    double value = parseNumber(tokens);
+                    if (!Double.isNaN(value)) {
+                        switch (cellParam) {
+                            case 0: a = value; break;
+                            case 1: b = value; break;
+                            case 2: c = value; break;
+                            case 3: alpha = value; break;
+                            case 4: beta = value; break;
+                            default: gamma = value; break;
                         }
-                        break;
+                    }
                 }
-            } catch (Exception e) {
-                // 忽略解析错误的单个 token，继续尝试
-                System.err.println("Token parsing error: " + token + " -> " + e.getMessage());
+                type = tokens.next();
+            } else if (type == CifTokenizer.Type.LOOP) {
+                type = readLoop(tokens, elements, fracCoords, symops);
+            } else {
+                type = tokens.next();
             }
         }
 
-        response.setA(a);
-        response.setB(b);
-        response.setC(c);
-        response.setAlpha(alpha);
-        response.setBeta(beta);
-        response.setGamma(gamma);
-        response.setAtoms(atoms);
+        metrics.record("cif.parse", parseStart);
 
-        response.setBonds(calculateBonds(atoms));
+        Lattice lattice = Lattice.fromParameters(a, b, c, alpha, beta, gamma);
+        if (!symops.isEmpty() && lattice.isValid()) {
+            // 由不对称单元展开为完整晶胞
+            long symmetryStart = System.nanoTime();
+            expandSymmetry(elements, fracCoords, SymmetryOperations.compile(symops), lattice);
+            metrics.record("cif.symmetry", symmetryStart);
+        }
 
-        return response;
+        // 坐标转换：CIF 是分数坐标，需要按 alpha/beta/gamma 的完整晶格矩阵转为笛卡尔坐标
+        return assemble(toAtomTable(elements, fracCoords, lattice), lattice, periodic);
     }
 
-    // 辅助方法（确保在类中定义）
-    private double extractCifNum(String line) {
-        String[] parts = line.split("\\s+");
-        if (parts.length < 2) return 1.0;
-        return Double.parseDouble(parts[1].split("\\(")[0]);
+    // 分数坐标批量转为笛卡尔坐标；晶胞角度不合法时退回正交近似
+    private static AtomTable toAtomTable(List<String> elements, List<double[]> fracCoords, Lattice lattice) {
+        int n = fracCoords.size();
+        double[] u = new double[n], v = new double[n], w = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] f = fracCoords.get(i);
+            u[i] = f[0];
+            v[i] = f[1];
+            w[i] = f[2];
+        }
+        double[] x = new double[n], y = new double[n], z = new double[n];
+        if (lattice.isValid()) {
+            lattice.toCartesian(u, v, w, x, y, z, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                x[i] = u[i] * lattice.getA();
+                y[i] = v[i] * lattice.getB();
+                z[i] = w[i] * lattice.getC();
+            }
+        }
+        AtomTable atoms = new AtomTable(n);
+        for (int i = 0; i < n; i++) {
+            atoms.add(elements.get(i), x[i], y[i], z[i]);
+        }
+        return atoms;
     }
 
-    private boolean isNumeric(String str) {
-        return str != null && str.matches("-?\\d*\\.?\\d+");
+    /**
+     * 对所有位点应用对称操作，折回 [0,1) 并去重；elements 与 fracCoords 被替换为展开后的结果
+     */
+    private void expandSymmetry(List<String> elements, List<double[]> fracCoords, SymmetryOperations ops, Lattice lattice) {
+        int n = elements.size();
+        double[] fu = new double[n], fv = new double[n], fw = new double[n];
+        int[] kind = new int[n];
+        Map<String, Integer> kinds = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            double[] f = fracCoords.get(i);
+            fu[i] = f[0];
+            fv[i] = f[1];
+            fw[i] = f[2];
+            kind[i] = kinds.computeIfAbsent(elements.get(i), k -> kinds.size());
+        }
+
+        SymmetryOperations.Expansion expanded = ops.expand(fu, fv, fw, kind, n, lattice,
+                properties.getCif().getSymmetryTolerance());
+
+        List<String> sites = new ArrayList<>(elements);
+        elements.clear();
+        fracCoords.clear();
+        for (int k = 0; k < expanded.size; k++) {
+            elements.add(sites.get(expanded.site[k]));
+            fracCoords.add(new double[]{expanded.u[k], expanded.v[k], expanded.w[k]});
+        }
     }
 
+    private static final String[] CELL_TAGS = {
+            "_cell_length_a", "_cell_length_b", "_cell_length_c",
+            "_cell_angle_alpha", "_cell_angle_beta", "_cell_angle_gamma"
+    };
+
+    private static boolean isSymopTag(CifTokenizer tokens) {
+        return tokens.is("_symmetry_equiv_pos_as_xyz")
+                || tokens.is("_space_group_symop_operation_xyz")
+                || tokens.is("_space_group_symop.operation_xyz");
+    }
 
-    private double parseCifValue(String line) {
-        return Double.parseDouble(line.split("\\s+")[1].split("\\(")[0]);
+    private static int cellParameterIndex(CifTokenizer tokens) {
+        if (!tokens.startsWithIgnoreCase("_cell_")) return -1;
+        for (int k = 0; k < CELL_TAGS.length; k++) {
+            if (tokens.is(CELL_TAGS[k])) return k;
+        }
+        return -1;
     }
 
-    // 这个方法负责给解析出来的原子“穿衣服”（上色、定半径）
-    private void assignAtomProperties(Atom atom) {
-        String element = atom.getElement();
+    /**
+     * 读取一个 loop_ 块。只有含分数坐标列的 _atom_site_ 循环会生成原子，对称操作循环收集到 symops，
+     * 其余循环（如 _atom_site_aniso_）只跳过数据
+     * 返回循环结束后的第一个非数据 token
+     */
+    private CifTokenizer.Type readLoop(CifTokenizer tokens, List<String> elements, List<double[]> fracCoords,
+                                       List<String> symops) throws IOException {
+        int columns = 0;
+        int labelCol = -1, symbolCol = -1, xCol = -1, yCol = -1, zCol = -1, symopCol = -1;
+        CifTokenizer.Type type;
+        while ((type = tokens.next()) == CifTokenizer.Type.TAG) {
+            if (isSymopTag(tokens)) {
+                symopCol = columns;
+            } else if (tokens.startsWithIgnoreCase("_atom_site_")) {
+                if (tokens.is("_atom_site_label")) labelCol = columns;
+                else if (tokens.is("_atom_site_type_symbol")) symbolCol = columns;
+                else if (tokens.is("_atom_site_fract_x")) xCol = columns;
+                else if (tokens.is("_atom_site_fract_y")) yCol = columns;
+                else if (tokens.is("_atom_site_fract_z")) zCol = columns;
+            }
+            columns++;
+        }
+        boolean atomLoop = xCol >= 0 && yCol >= 0 && zCol >= 0 && (labelCol >= 0 || symbolCol >= 0);
+
+        int col = 0;
+        String element = null;
+        String label = null;
+        double[] f = new double[3];
+        for (; type == CifTokenizer.Type.VALUE; type = tokens.next()) {
+            if (col == symopCol) {
+                symops.add(tokens.text());
+            } else if (atomLoop) {
+                if (col == symbolCol) element = elementSymbol(tokens);
+                else if (col == labelCol) label = elementSymbol(tokens);
+                else if (col == xCol) f[0] = parseNumber(tokens);
+                else if (col == yCol) f[1] = parseNumber(tokens);
+                else if (col == zCol) f[2] = parseNumber(tokens);
+            }
+            if (++col == columns) {
+                if (atomLoop && !Double.isNaN(f[0] + f[1] + f[2])) {
+                    // 优先使用 _atom_site_type_symbol，没有时从标签中提取（比如 C1 -> C）
+                    elements.add(element != null ? element : label);
+                    fracCoords.add(f);
+                    f = new double[3];
+                    element = null;
+                    label = null;
+                }
+                col = 0;
+            }
+        }
+        return type;
+    }
 
-        // 从你类里定义的 ELEMENT_COLORS 映射中取颜色，没取到默认白色
-        atom.setColor(ELEMENT_COLORS.getOrDefault(element, "#FFFFFF"));
+    private double parseNumber(CifTokenizer tokens) {
+        try {
+            return tokens.number();
+        } catch (NumberFormatException e) {
+            // 忽略解析错误的单个 token，继续尝试；次数计入 crystalviz.cif.parse.errors
+            metrics.parseError();
+            return Double.NaN;
+        }
+    }
 
-        // 从 ATOMIC_RADII 映射中取半径，没取到默认 1.0
-        atom.setRadius(ATOMIC_RADII.getOrDefault(element, 1.0));
+    // 取 token 开头的元素符号并规范大小写，例如 FE2+ -> Fe, O1 -> O
+    private static String elementSymbol(CifTokenizer tokens) {
+        String text = tokens.text();
+        int end = 0;
+        while (end < text.length() && end < 2 && Character.isLetter(text.charAt(end))) end++;
+        if (end == 0) return text;
+        if (end == 1) return String.valueOf(Character.toUpperCase(text.charAt(0)));
+        return "" + Character.toUpperCase(text.charAt(0)) + Character.toLowerCase(text.charAt(1));
     }
 }
\ No newline at end of file
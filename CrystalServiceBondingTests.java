@@ -0,0 +1,270 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.Atom;
+import com.brother.crystalviz.model.CrystalRequest;
+import com.brother.crystalviz.model.ValidationReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrystalServiceBondingTests {
+
+    private final CrystalService service = new CrystalService();
+    // 固定 1.0–5.0 Å 窗口，便于和朴素实现逐一对比
+    private final CrystalService fixedWindow = new CrystalService(fixedWindowProperties());
+
+    private static CrystalVizProperties fixedWindowProperties() {
+        CrystalVizProperties properties = new CrystalVizProperties();
+        properties.getBonding().setRule(CrystalVizProperties.BondRule.FIXED_WINDOW);
+        return properties;
+    }
+
+    @AfterEach
+    void close() {
+        service.destroy();
+        fixedWindow.destroy();
+    }
+
+    @Test
+    void cellListMatchesBruteForce() {
+        Random random = new Random(42);
+        List<Atom> atoms = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            atoms.add(new Atom("Fe", random.nextDouble() * 30, random.nextDouble() * 18, random.nextDouble() * 12, "#FF0000", 1.26));
+        }
+
+        BondTable fast = service.calculateBonds(AtomTable.of(atoms), false);
+        BondTable slow = service.calculateBonds(AtomTable.of(atoms), true);
+
+        assertEquals(slow.size(), fast.size());
+        for (int k = 0; k < slow.size(); k++) {
+            assertEquals(slow.getStart(k), fast.getStart(k));
+            assertEquals(slow.getEnd(k), fast.getEnd(k));
+        }
+    }
+
+    @Test
+    void parallelBondingAndOverlapsMatchSequential() {
+        Random random = new Random(11);
+        AtomTable atoms = new AtomTable(60_000);
+        String[] elements = {"C", "O", "Fe", "Si"};
+        for (int i = 0; i < 60_000; i++) {
+            atoms.add(elements[random.nextInt(4)], random.nextDouble() * 90, random.nextDouble() * 90, random.nextDouble() * 40);
+        }
+
+        CrystalVizProperties parallelProperties = new CrystalVizProperties();
+        parallelProperties.getBonding().setParallelThreshold(0);
+        parallelProperties.getBonding().setParallelism(3);
+        CrystalService parallel = new CrystalService(parallelProperties);
+        try {
+            BondTable expected = service.calculateBonds(atoms, false);
+            BondTable actual = parallel.calculateBonds(atoms, false);
+            assertEquals(expected.size(), actual.size());
+            for (int k = 0; k < expected.size(); k++) {
+                assertEquals(expected.getStart(k), actual.getStart(k));
+                assertEquals(expected.getEnd(k), actual.getEnd(k));
+            }
+            assertEquals(service.checkErrors(atoms), parallel.checkErrors(atoms));
+        } finally {
+            parallel.destroy();
+        }
+    }
+
+    @Test
+    void periodicBondsCrossCellBoundaries() {
+        List<Atom> atoms = new ArrayList<>();
+        atoms.add(new Atom("Po", 0, 0, 0, "#808080", 1.0));
+
+        // 3 Å 简单立方：6 个 3.0 Å 近邻 + 12 个 4.24 Å 近邻，每个无序对计一次
+        BondTable bonds = fixedWindow.calculatePeriodicBonds(AtomTable.of(atoms), Lattice.fromParameters(3, 3, 3, 90, 90, 90));
+        assertEquals(9, bonds.size());
+    }
+
+    @Test
+    void periodicBondsMatchExplicitImageSearch() {
+        Lattice lattice = Lattice.fromParameters(4.1, 5.3, 3.7, 81, 97, 112);
+        Random random = new Random(7);
+        List<Atom> atoms = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            double u = random.nextDouble() * 1.4 - 0.2, v = random.nextDouble(), w = random.nextDouble();
+            atoms.add(new Atom("C", lattice.toCartesianX(u, v, w), lattice.toCartesianY(u, v, w), lattice.toCartesianZ(u, v, w), "#888888", 0.77));
+        }
+
+        // 逐个枚举周期像的朴素实现
+        int expected = 0;
+        for (int i = 0; i < atoms.size(); i++) {
+            for (int j = i; j < atoms.size(); j++) {
+                for (int na = -4; na <= 4; na++) {
+                    for (int nb = -4; nb <= 4; nb++) {
+                        for (int nc = -4; nc <= 4; nc++) {
+                            if (i == j && (na > 0 || (na == 0 && (nb > 0 || (nb == 0 && nc >= 0))))) continue;
+                            double dx = atoms.get(j).getX() + lattice.toCartesianX(na, nb, nc) - atoms.get(i).getX();
+                            double dy = atoms.get(j).getY() + lattice.toCartesianY(na, nb, nc) - atoms.get(i).getY();
+                            double dz = atoms.get(j).getZ() + lattice.toCartesianZ(na, nb, nc) - atoms.get(i).getZ();
+                            double d = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                            if (d >= 1.0 && d <= 5.0) expected++;
+                        }
+                    }
+                }
+            }
+        }
+
+        assertEquals(expected, fixedWindow.calculatePeriodicBonds(AtomTable.of(atoms), lattice).size());
+    }
+
+    @Test
+    void sparseAndEmptyStructures() {
+        assertEquals(0, service.calculateBonds(new AtomTable(0), false).size());
+
+        List<Atom> atoms = new ArrayList<>();
+        atoms.add(new Atom("Na", 0, 0, 0, "#800080", 1.5));
+        atoms.add(new Atom("Cl", 2.8, 0, 0, "#00FF00", 1.0));
+        atoms.add(new Atom("Na", 1.0e5, 1.0e5, 1.0e5, "#800080", 1.5));
+        assertEquals(1, service.calculateBonds(AtomTable.of(atoms), false).size());
+    }
+
+    @Test
+    void supercellTranslatesAlongLatticeVectors() {
+        CrystalRequest req = new CrystalRequest();
+        req.setLatticeType("HEX");
+        req.setA(3.21);
+        req.setB(3.21);
+        req.setC(5.21);
+        req.setAlpha(90);
+        req.setBeta(90);
+        req.setGamma(120);
+        req.setPeriodic(true);
+        req.setNx(2);
+        req.setNy(3);
+        req.setNz(1);
+
+        Structure supercell = service.generateSupercell(req);
+        AtomTable atoms = supercell.getAtoms();
+        assertEquals(12, atoms.size());
+        assertEquals(6.42, supercell.getLattice().getA(), 1e-12);
+        // 顺序为 (i, j, k, 原胞原子)：下标 2 是沿 b 平移一次的原点原子，b 与 a 成 120°
+        assertEquals(3.21 * Math.cos(Math.toRadians(120)), atoms.getX(2), 1e-9);
+        assertEquals(3.21 * Math.sin(Math.toRadians(120)), atoms.getY(2), 1e-9);
+        assertEquals(3.21, atoms.getX(6), 1e-9);
+
+        // 周期性成键：超晶胞的键数是原胞的 nx*ny*nz 倍
+        req.setNx(1);
+        req.setNy(1);
+        int primitive = service.generateSupercell(req).getBonds().size();
+        assertEquals(6 * primitive, supercell.getBonds().size());
+    }
+
+    @Test
+    void supercellRespectsAtomLimit() {
+        CrystalVizProperties properties = new CrystalVizProperties();
+        properties.getLimits().setMaxAtoms(100);
+        CrystalRequest req = new CrystalRequest();
+        req.setLatticeType("FCC");
+        req.setA(3.6);
+        req.setB(3.6);
+        req.setC(3.6);
+        req.setAlpha(90);
+        req.setBeta(90);
+        req.setGamma(90);
+        req.setNx(3);
+        req.setNy(3);
+        req.setNz(3);
+
+        assertThrows(StructureTooLargeException.class, () -> new CrystalService(properties).generateSupercell(req));
+    }
+
+    @Test
+    void reportsOverlappingAtoms() {
+        AtomTable atoms = new AtomTable(4);
+        atoms.add("Na", 0, 0, 0);
+        atoms.add("Cl", 2.8, 0, 0);
+        atoms.add("Na", 0.3, 0.1, 0);
+        atoms.add("Cl", 2.8, 0.2, 0.2);
+
+        List<String> errors = service.checkErrors(atoms);
+        assertEquals(List.of("警告: 发现原子重叠于坐标 (0.0, 0.0)", "警告: 发现原子重叠于坐标 (2.8, 0.0)"), errors);
+    }
+
+    @Test
+    void validationReportComesFromBondingPass() {
+        AtomTable atoms = new AtomTable(5);
+        atoms.add("Na", 0, 0, 0);
+        atoms.add("Cl", 2.8, 0, 0);
+        atoms.add("Na", 0.3, 0.1, 0);
+        atoms.add("Cl", 2.8, 0.2, 0.2);
+        atoms.add("C", 20, 20, 20);
+        Lattice cell = Lattice.fromParameters(5, 5, 5, 90, 90, 90);
+
+        Structure structure = service.assemble(atoms, cell, false);
+        ValidationReport report = structure.getReport();
+        assertEquals(4, structure.getBonds().size());
+        assertEquals(2, report.getOverlapCount());
+        assertArrayEquals(new int[]{0, 2}, report.getOverlaps().get(0));
+        assertArrayEquals(new int[]{1, 3}, report.getOverlaps().get(1));
+        assertEquals(List.of(4), report.getUnderCoordinated());
+        assertEquals(0, report.getOverCoordinatedCount());
+        assertEquals(List.of(4), report.getOutsideCell());
+        assertFalse(report.isTruncated());
+        // 键表与单独成键的结果一致
+        assertEquals(service.calculateBonds(atoms).size(), structure.getBonds().size());
+
+        CrystalVizProperties capped = new CrystalVizProperties();
+        capped.getValidation().setMaxReported(1);
+        ValidationReport truncated = new CrystalService(capped).assemble(atoms, cell, false).getReport();
+        assertEquals(2, truncated.getOverlapCount());
+        assertEquals(1, truncated.getOverlaps().size());
+        assertTrue(truncated.isTruncated());
+    }
+
+    @Test
+    void periodicValidationSeesOverlapsAcrossCellBoundary() {
+        AtomTable atoms = new AtomTable(2);
+        atoms.add("Fe", 0.1, 2, 2);
+        atoms.add("Fe", 4.8, 2, 2);
+        Lattice cell = Lattice.fromParameters(5, 5, 5, 90, 90, 90);
+
+        assertEquals(0, service.assemble(atoms, cell, false).getReport().getOverlapCount());
+        ValidationReport report = service.assemble(atoms, cell, true).getReport();
+        assertEquals(1, report.getOverlapCount());
+        assertEquals(0, report.getOutsideCellCount());
+    }
+
+    @Test
+    void covalentRuleUsesPerElementCutoffs() {
+        AtomTable atoms = new AtomTable(4);
+        atoms.add("C", 0, 0, 0);
+        atoms.add("H", 1.09, 0, 0);    // C–H 1.09 Å：成键
+        atoms.add("H", -0.6, 0.6, 0);  // C–H 0.85 Å：成键，但低于固定窗口下限
+        atoms.add("Cl", 0, 3.0, 0);    // C–Cl 3.0 Å 超过 0.76+1.02+0.45：不成键，固定窗口下会成键
+
+        BondTable covalent = service.calculateBonds(atoms, false);
+        assertEquals(2, covalent.size());
+        assertEquals(2, covalent.getEnd(1));
+        assertEquals(covalent.size(), service.calculateBonds(atoms, true).size());
+
+        // 固定窗口：除 0.85 Å 的 C–H 外其余 5 对都在 1.0–5.0 Å 内
+        BondTable window = fixedWindow.calculateBonds(atoms, false);
+        assertEquals(5, window.size());
+        assertEquals(3, window.getEnd(1));
+    }
+
+    @Test
+    void periodicTableLookup() {
+        assertEquals(84, PeriodicTable.atomicNumber("Po"));
+        assertEquals(12, PeriodicTable.atomicNumber("MG"));
+        assertEquals(PeriodicTable.UNKNOWN, PeriodicTable.atomicNumber("Polonium"));
+        assertEquals("#FFFFFF", PeriodicTable.color(1));
+        assertEquals(1.32, PeriodicTable.covalentRadius(PeriodicTable.atomicNumber("Fe")), 0.0);
+        assertEquals("Og", PeriodicTable.symbol(PeriodicTable.size() - 1));
+    }
+}
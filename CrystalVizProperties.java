@@ -0,0 +1,196 @@
+package com.brother.crystalviz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * CrystalViz 可调参数，对应 application.properties 中的 crystalviz.* 配置项
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "crystalviz")
+public class CrystalVizProperties {
+
+    private Bonding bonding = new Bonding();
+    private Cif cif = new Cif();
+    private Limits limits = new Limits();
+    private Sessions sessions = new Sessions();
+    private Cache cache = new Cache();
+    private Batch batch = new Batch();
+    private Admission admission = new Admission();
+    private Validation validation = new Validation();
+    private Metrics metrics = new Metrics();
+    private Store store = new Store();
+    private Trajectory trajectory = new Trajectory();
+    private Analysis analysis = new Analysis();
+    private Xrd xrd = new Xrd();
+
+    @Data
+    public static class Bonding {
+        // COVALENT：按两元素共价半径之和判定；FIXED_WINDOW：所有元素共用 [minLength, maxLength] 窗口
+        private BondRule rule = BondRule.COVALENT;
+        // 键长判定窗口 (Å)，FIXED_WINDOW 规则及未知元素使用
+        private double minLength = 1.0;
+        private double maxLength = 5.0;
+        // COVALENT 规则：d <= r1 + r2 + covalentTolerance 且 d >= covalentMinLength 时成键
+        private double covalentTolerance = 0.45;
+        private double covalentMinLength = 0.4;
+        // true 时退回 O(N²) 双重循环，用于和 Cell List 结果交叉核对
+        private boolean bruteForce = false;
+        // 原子数达到该值时成键与重叠检查按格子分块并行（fork/join），结果与串行完全一致
+        private int parallelThreshold = 200_000;
+        // 并行使用的线程数，0 表示使用公共 ForkJoinPool（全部 CPU 核）
+        private int parallelism = 0;
+    }
+
+    @Data
+    public static class Validation {
+        // 成键数低于/高于该值的原子计为配位不足/配位过多
+        private int minCoordination = 1;
+        private int maxCoordination = 12;
+        // 每类问题最多列出的原子（对）数，总数不受限制
+        private int maxReported = 100;
+        // 判断原子是否超出晶胞时分数坐标的容差
+        private double cellTolerance = 1e-4;
+    }
+
+    public enum BondRule {
+        COVALENT,
+        FIXED_WINDOW
+    }
+
+    @Data
+    public static class Cif {
+        // 对称展开时，距离小于该值 (Å) 的同种原子视为同一位置
+        private double symmetryTolerance = 0.02;
+    }
+
+    @Data
+    public static class Limits {
+        // 超晶胞接口返回的最大原子数（结果需要整体序列化）
+        private long maxAtoms = 200_000;
+        // 流式导出允许的最大原子数（边扩展边写出，不占用整块内存）
+        private long maxExportAtoms = 20_000_000;
+        // summary=true 时结构只保留在服务端供区域查询，不整体序列化，上限可以高于 maxAtoms
+        private long maxIndexedAtoms = 2_000_000;
+        // 单次区域查询返回的最大原子数
+        private int maxRegionAtoms = 200_000;
+    }
+
+    @Data
+    public static class Sessions {
+        // 同时保留的编辑会话数，超出时淘汰最久未使用的
+        private int maxSessions = 64;
+        // 空闲超过该时长的会话被清理
+        private Duration idleTimeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Cache {
+        // 是否缓存 /generate 与 /import 的结果
+        private boolean enabled = true;
+        // 缓存结构的估算总字节数上限，单个结构超过该值时不缓存
+        private DataSize maxWeight = DataSize.ofMegabytes(256);
+        private int maxEntries = 256;
+        // 超过该时长未被访问的条目被清理
+        private Duration expireAfterAccess = Duration.ofHours(1);
+        // 是否统计命中/未命中/淘汰次数
+        private boolean recordStats = true;
+    }
+
+    @Data
+    public static class Batch {
+        // 批处理线程数，0 表示使用全部 CPU 核
+        private int parallelism = 0;
+        // 单个批次同时在途（执行中或等待写出）的任务数上限，达到上限时暂停读取请求体
+        private int maxInFlight = 64;
+        // 任务按 cifPath 引用 CIF 文件时的根目录，为空时禁止按路径引用
+        private String cifRoot = "";
+    }
+
+    @Data
+    public static class Admission {
+        // 估算原子数达到该值的请求视为重任务，交给独立线程池处理
+        private long heavyThresholdAtoms = 50_000;
+        // 重任务线程数，0 表示 CPU 核数的一半
+        private int heavyThreads = 0;
+        // 排队等待的重任务数上限，超出时返回 503
+        private int heavyQueue = 16;
+        // 重任务同时处理的原子总数上限
+        private long maxHeavyAtoms = 4_000_000;
+        // 异步任务（Prefer: respond-async）最多保留数及完成后保留时长
+        private int maxJobs = 256;
+        private Duration jobTtl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Store {
+        // 是否把导入结果和 summary=true 的超晶胞写入本地结构仓库
+        private boolean enabled = true;
+        // 快照目录，相对路径相对于工作目录
+        private String dir = "data/structures";
+        // 目录总大小上限，超出时按最近访问时间淘汰
+        private DataSize maxSize = DataSize.ofGigabytes(2);
+    }
+
+    @Data
+    public static class Trajectory {
+        // 导入的轨迹文件保存目录（只建帧索引，坐标按帧从文件读取）
+        private String dir = "data/trajectories";
+        // 同时保留的轨迹数，超出时淘汰最久未使用的并删除文件
+        private int maxTrajectories = 16;
+        // 同时播放的流数上限，超出时返回 503
+        private int maxStreams = 16;
+        // 未指定 fps 时的播放帧率及允许的最大帧率
+        private double defaultFps = 30;
+        private double maxFps = 120;
+        // 增量帧的坐标量化步长 (Å)
+        private double quantum = 0.001;
+        // 每隔多少帧强制发送一次关键帧
+        private int keyframeInterval = 100;
+        // 有原子相对上次成键时的位移超过该值 (Å) 才重新成键
+        private double rebondDisplacement = 0.2;
+        // 原子数超过该值的轨迹播放时不计算化学键
+        private int maxBondAtoms = 200_000;
+    }
+
+    @Data
+    public static class Analysis {
+        // 未指定时 g(r) 的最大半径与分箱宽度 (Å)
+        private double defaultRadius = 10;
+        private double defaultBinWidth = 0.05;
+        // 允许的最大半径 (Å) 与最大分箱数
+        private double maxRadius = 25;
+        private int maxBins = 5000;
+        // 键长直方图的分箱宽度 (Å)
+        private double bondBinWidth = 0.01;
+    }
+
+    @Data
+    public static class Xrd {
+        // 未指定时的入射波长 (Å，Cu Kα1)、2θ 范围与采样步长 (°)、高斯峰半高宽 (°)
+        private double wavelength = 1.5406;
+        private double twoThetaMin = 5;
+        private double twoThetaMax = 90;
+        private double step = 0.02;
+        private double fwhm = 0.1;
+        // 结构因子计算允许的最大原子数与 (hkl) 数（半空间），以及展宽谱的最大采样点数
+        private int maxAtoms = 20_000;
+        private int maxReflections = 500_000;
+        private int maxPoints = 50_000;
+        // 峰列表只保留相对强度（最强峰为 100）不低于该值的峰
+        private double minIntensity = 0.01;
+        // 按 (结构, 波长, B 因子) 缓存的衍射峰列表数
+        private int cacheEntries = 32;
+    }
+
+    @Data
+    public static class Metrics {
+        // true 时 /api 响应带 Server-Timing 头，浏览器开发者工具中可直接看到各阶段耗时
+        private boolean serverTiming = false;
+    }
+}
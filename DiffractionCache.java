@@ -0,0 +1,54 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 衍射峰缓存：按 (structureId, 波长, B 因子) 保存计算好的衍射峰，展宽参数不同的请求共用同一份结果
+ * 缓存的 2θ 上限不低于请求时直接复用，否则重新计算并替换；超过条目上限时淘汰最久未使用的
+ */
+@Component
+public class DiffractionCache {
+
+    private final CrystalVizProperties.Xrd config;
+    // accessOrder=true：迭代顺序即最近最少使用顺序
+    private final Map<String, ReflectionList> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public DiffractionCache(CrystalVizProperties properties) {
+        this.config = properties.getXrd();
+    }
+
+    /**
+     * loader 在锁外执行，同一键并发未命中时可能重复计算
+     */
+    public ReflectionList get(String structureId, double wavelength, double bFactor, double twoThetaMax,
+                              Supplier<ReflectionList> loader) {
+        String key = structureId + ";" + wavelength + ";" + bFactor;
+        synchronized (this) {
+            ReflectionList cached = entries.get(key);
+            if (cached != null && cached.getTwoThetaLimit() >= twoThetaMax) {
+                return cached;
+            }
+        }
+        ReflectionList computed = loader.get();
+        synchronized (this) {
+            ReflectionList cached = entries.get(key);
+            if (cached == null || cached.getTwoThetaLimit() < computed.getTwoThetaLimit()) {
+                entries.put(key, computed);
+            }
+            while (entries.size() > Math.max(0, config.getCacheEntries())) {
+                Iterator<ReflectionList> eldest = entries.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return computed;
+    }
+}
@@ -0,0 +1,174 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.AtomEdit;
+import com.brother.crystalviz.model.BondDiff;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 编辑会话：服务端保存结构、近邻索引和邻接表
+ * 每次编辑只更新被改动原子在空间哈希中的位置，并只重算与这些原子相连的化学键
+ */
+public final class EditSession {
+
+    private final String id;
+    private final AtomTable atoms;
+    private final CrystalVizProperties.Bonding bonding;
+    private BondCutoffs cutoffs;
+    private SpatialHash index;
+    // 每个原子的成键邻居
+    private final List<Set<Integer>> neighbors;
+    private int bondCount;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    EditSession(String id, AtomTable atoms, BondTable bonds, CrystalVizProperties.Bonding bonding) {
+        this.id = id;
+        this.atoms = atoms;
+        this.bonding = bonding;
+        this.cutoffs = BondCutoffs.of(atoms, bonding);
+        this.index = SpatialHash.of(atoms, cutoffs.getMaxCutoff());
+        this.neighbors = new ArrayList<>(atoms.size());
+        for (int i = 0; i < atoms.size(); i++) {
+            neighbors.add(new HashSet<>());
+        }
+        for (int k = 0; k < bonds.size(); k++) {
+            link(bonds.getStart(k), bonds.getEnd(k));
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public AtomTable getAtoms() {
+        return atoms;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * 应用一批原子修改，返回化学键的增删
+     * 下标越界或坐标非法时抛出 IllegalArgumentException，且不修改会话
+     */
+    public synchronized BondDiff apply(List<AtomEdit> edits) {
+        lastAccess = System.currentTimeMillis();
+        for (AtomEdit edit : edits) {
+            if (edit.getIndex() < 0 || edit.getIndex() >= atoms.size()) {
+                throw new IllegalArgumentException("原子下标越界: " + edit.getIndex());
+            }
+            if (!finiteOrNull(edit.getX()) || !finiteOrNull(edit.getY()) || !finiteOrNull(edit.getZ())) {
+                throw new IllegalArgumentException("第 " + edit.getIndex() + " 个原子坐标非法");
+            }
+        }
+
+        // 1. 记录改动原子原有的键，并从邻接表中摘除
+        int[] changed = edits.stream().mapToInt(AtomEdit::getIndex).distinct().sorted().toArray();
+        Set<Long> before = new HashSet<>();
+        for (int i : changed) {
+            for (int j : neighbors.get(i)) {
+                before.add(key(i, j));
+            }
+        }
+        for (long key : before) {
+            unlink(first(key), second(key));
+        }
+
+        // 2. 更新坐标与元素，同步空间哈希
+        int kinds = atoms.getSymbols().size();
+        for (AtomEdit edit : edits) {
+            int i = edit.getIndex();
+            if (edit.getElement() != null) {
+                atoms.setElement(i, edit.getElement());
+            }
+            atoms.setPosition(i,
+                    edit.getX() != null ? edit.getX() : atoms.getX(i),
+                    edit.getY() != null ? edit.getY() : atoms.getY(i),
+                    edit.getZ() != null ? edit.getZ() : atoms.getZ(i));
+            index.move(i, atoms.getX(i), atoms.getY(i), atoms.getZ(i));
+        }
+        if (atoms.getSymbols().size() != kinds) {
+            // 出现新元素：重建截断矩阵，截断距离变大时格子也要随之放大
+            cutoffs = BondCutoffs.of(atoms, bonding);
+            if (cutoffs.getMaxCutoff() > index.getCellSize()) {
+                index = SpatialHash.of(atoms, cutoffs.getMaxCutoff());
+            }
+        }
+
+        // 3. 只在改动原子的 27 邻域内重新判定
+        Set<Long> after = new HashSet<>();
+        for (int i : changed) {
+            double xi = atoms.getX(i), yi = atoms.getY(i), zi = atoms.getZ(i);
+            short ei = atoms.getElementId(i);
+            index.forEachNear(xi, yi, zi, j -> {
+                if (j == i) return;
+                double dx = atoms.getX(j) - xi, dy = atoms.getY(j) - yi, dz = atoms.getZ(j) - zi;
+                if (cutoffs.isBond(ei, atoms.getElementId(j), dx * dx + dy * dy + dz * dz)) {
+                    after.add(key(i, j));
+                }
+            });
+        }
+        for (long key : after) {
+            link(first(key), second(key));
+        }
+
+        return new BondDiff(pairs(after, before), pairs(before, after), bondCount);
+    }
+
+    // 当前全部化学键，按 (start, end) 升序
+    public synchronized BondTable getBonds() {
+        BondTable bonds = new BondTable(bondCount, false);
+        for (int i = 0; i < neighbors.size(); i++) {
+            int[] js = neighbors.get(i).stream().mapToInt(Integer::intValue).sorted().toArray();
+            for (int j : js) {
+                if (j > i) bonds.add(i, j);
+            }
+        }
+        return bonds;
+    }
+
+    private void link(int i, int j) {
+        if (neighbors.get(i).add(j)) {
+            neighbors.get(j).add(i);
+            bondCount++;
+        }
+    }
+
+    private void unlink(int i, int j) {
+        if (neighbors.get(i).remove(j)) {
+            neighbors.get(j).remove(i);
+            bondCount--;
+        }
+    }
+
+    // a 中有而 b 中没有的键，按下标排序
+    private static List<int[]> pairs(Set<Long> a, Set<Long> b) {
+        long[] keys = a.stream().filter(k -> !b.contains(k)).mapToLong(Long::longValue).sorted().toArray();
+        List<int[]> out = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            out.add(new int[]{first(key), second(key)});
+        }
+        return out;
+    }
+
+    private static long key(int i, int j) {
+        return i < j ? ((long) i << 32) | j : ((long) j << 32) | i;
+    }
+
+    private static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int second(long key) {
+        return (int) key;
+    }
+
+    private static boolean finiteOrNull(Double v) {
+        return v == null || Double.isFinite(v);
+    }
+}
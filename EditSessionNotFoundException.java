@@ -0,0 +1,15 @@
+package com.brother.crystalviz.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 编辑会话不存在或已过期，接口返回 404
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class EditSessionNotFoundException extends RuntimeException {
+
+    public EditSessionNotFoundException(String id) {
+        super("编辑会话不存在或已过期: " + id);
+    }
+}
@@ -0,0 +1,59 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 编辑会话注册表：按 UUID 保存会话，超过数量上限时淘汰最久未使用的会话，空闲超时的会话在访问时清理
+ */
+@Component
+public class EditSessionRegistry {
+
+    private final CrystalVizProperties properties;
+    // accessOrder=true：迭代顺序即最近最少使用顺序
+    private final Map<String, EditSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public EditSessionRegistry(CrystalVizProperties properties) {
+        this.properties = properties;
+    }
+
+    public synchronized EditSession open(AtomTable atoms, BondTable bonds) {
+        evictIdle();
+        while (!sessions.isEmpty() && sessions.size() >= properties.getSessions().getMaxSessions()) {
+            Iterator<String> eldest = sessions.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        EditSession session = new EditSession(UUID.randomUUID().toString(), atoms, bonds, properties.getBonding());
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    // 会话不存在或已过期时抛出 EditSessionNotFoundException
+    public synchronized EditSession get(String id) {
+        evictIdle();
+        EditSession session = sessions.get(id);
+        if (session == null) {
+            throw new EditSessionNotFoundException(id);
+        }
+        return session;
+    }
+
+    public synchronized void close(String id) {
+        if (sessions.remove(id) == null) {
+            throw new EditSessionNotFoundException(id);
+        }
+    }
+
+    private void evictIdle() {
+        long deadline = System.currentTimeMillis() - properties.getSessions().getIdleTimeout().toMillis();
+        sessions.values().removeIf(session -> session.getLastAccess() < deadline);
+    }
+}
@@ -0,0 +1,13 @@
+package com.brother.crystalviz.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EditSessionResponse {
+    private String sessionId;
+    private CrystalResponse structure;
+}
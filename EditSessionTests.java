@@ -0,0 +1,87 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.AtomEdit;
+import com.brother.crystalviz.model.BondDiff;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EditSessionTests {
+
+    private final CrystalVizProperties properties = new CrystalVizProperties();
+    private final CrystalService service = new CrystalService(properties);
+
+    @AfterEach
+    void close() {
+        service.destroy();
+    }
+
+    @Test
+    void incrementalEditsMatchFullRecomputation() {
+        Random random = new Random(3);
+        AtomTable atoms = new AtomTable(800);
+        String[] elements = {"C", "O", "Fe", "H"};
+        for (int i = 0; i < 800; i++) {
+            atoms.add(elements[random.nextInt(3)], random.nextDouble() * 20, random.nextDouble() * 20, random.nextDouble() * 20);
+        }
+        EditSession session = new EditSessionRegistry(properties).open(atoms, service.calculateBonds(atoms));
+
+        for (int round = 0; round < 50; round++) {
+            int before = session.getBonds().size();
+            List<AtomEdit> edits = new ArrayList<>();
+            for (int k = 0; k < 1 + random.nextInt(5); k++) {
+                int i = random.nextInt(atoms.size());
+                // 偶尔换成新元素（H 首次出现时截断矩阵会重建）
+                String element = random.nextInt(10) == 0 ? elements[random.nextInt(4)] : null;
+                edits.add(new AtomEdit(i, element, atoms.getX(i) + random.nextGaussian(), null, atoms.getZ(i) + random.nextGaussian()));
+            }
+            BondDiff diff = session.apply(edits);
+
+            BondTable incremental = session.getBonds();
+            BondTable full = service.calculateBonds(atoms, true);
+            assertEquals(full.size(), incremental.size());
+            for (int k = 0; k < full.size(); k++) {
+                assertEquals(full.getStart(k), incremental.getStart(k));
+                assertEquals(full.getEnd(k), incremental.getEnd(k));
+            }
+            assertEquals(full.size(), diff.getBondCount());
+            assertEquals(full.size() - before, diff.getAdded().size() - diff.getRemoved().size());
+        }
+    }
+
+    @Test
+    void reportsAddedAndRemovedBonds() {
+        AtomTable atoms = new AtomTable(3);
+        atoms.add("C", 0, 0, 0);
+        atoms.add("C", 1.5, 0, 0);
+        atoms.add("C", 10, 0, 0);
+        EditSession session = new EditSessionRegistry(properties).open(atoms, service.calculateBonds(atoms));
+
+        // 把 2 号原子移到 1 号旁边、1 号保持不动：新增 1-2，原有 0-1 不变
+        BondDiff diff = session.apply(List.of(new AtomEdit(2, null, 3.0, null, null)));
+        assertEquals(1, diff.getAdded().size());
+        assertArrayEquals(new int[]{1, 2}, diff.getAdded().get(0));
+        assertEquals(0, diff.getRemoved().size());
+
+        // 把 0 号原子移走：删除 0-1
+        diff = session.apply(List.of(new AtomEdit(0, null, -10.0, null, null)));
+        assertArrayEquals(new int[]{0, 1}, diff.getRemoved().get(0));
+        assertEquals(1, diff.getBondCount());
+
+        assertThrows(IllegalArgumentException.class, () -> session.apply(List.of(new AtomEdit(3, "C", null, null, null))));
+    }
+
+    @Test
+    void unknownSessionIsRejected() {
+        EditSessionRegistry registry = new EditSessionRegistry(properties);
+        assertThrows(EditSessionNotFoundException.class, () -> registry.get("missing"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.model.CrystalRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XYZ 导出：整体拼成字符串（exportToXYZ）与流式写出（export）两条路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int atoms;
+
+    private final CrystalService service = new CrystalService();
+    private final CrystalRequest request = new CrystalRequest();
+    private AtomTable table;
+
+    @Setup
+    public void setUp() {
+        table = BenchmarkStructures.rockSalt(atoms);
+    }
+
+    @Benchmark
+    public String exportToXYZ() {
+        return service.exportToXYZ(table);
+    }
+
+    @Benchmark
+    public void exportXyzStream() throws IOException {
+        service.export(ExportFormat.XYZ, table, request, OutputStream.nullOutputStream());
+    }
+}
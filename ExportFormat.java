@@ -0,0 +1,41 @@
+package com.brother.crystalviz.service;
+
+import java.util.Locale;
+
+/**
+ * 支持的导出格式
+ */
+public enum ExportFormat {
+    XYZ("xyz", "structure.xyz", false),
+    // 扩展 XYZ：注释行携带 Lattice="..." 与 pbc，可被 ASE/OVITO 直接读取
+    EXTXYZ("extxyz", "structure.extxyz", true),
+    POSCAR("poscar", "POSCAR", true),
+    CIF("cif", "structure.cif", true);
+
+    private final String key;
+    private final String fileName;
+    private final boolean needsLattice;
+
+    ExportFormat(String key, String fileName, boolean needsLattice) {
+        this.key = key;
+        this.fileName = fileName;
+        this.needsLattice = needsLattice;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    // 是否需要有效的晶格矩阵（写出晶胞或分数坐标）
+    public boolean needsLattice() {
+        return needsLattice;
+    }
+
+    public static ExportFormat fromKey(String key) {
+        String k = key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (format.key.equals(k)) return format;
+        }
+        throw new IllegalArgumentException("不支持的导出格式: " + key);
+    }
+}
@@ -0,0 +1,53 @@
+package com.brother.crystalviz.service;
+
+/**
+ * X 射线原子散射因子 f(s)，s = sinθ / λ (Å⁻¹)
+ * 采用 Thomas–Fermi 模型的 Molière 屏蔽函数近似：φ(r) = Σ αᵢ exp(-βᵢ r / a)，a = 0.8853 a₀ Z^(-1/3)，
+ * 对应 f(q) = Z Σ αᵢ βᵢ² / (βᵢ² + (q a)²)，q = 4π s；对所有元素统一适用，f(0) = Z
+ * 各元素按 s 等间距预先制表，查询时线性插值，结构因子内层循环不做指数运算
+ */
+final class FormFactors {
+
+    // 表覆盖 0 ≤ s ≤ S_MAX，对应 λ = 0.5 Å 时的背散射
+    static final double S_MAX = 2.0;
+    private static final int POINTS = 801;
+    private static final double STEP = S_MAX / (POINTS - 1);
+    private static final double BOHR = 0.529177;
+    private static final double[] ALPHA = {0.35, 0.55, 0.10};
+    private static final double[] BETA = {0.3, 1.2, 6.0};
+
+    // TABLES[z][k] = f(k * STEP)，z = 0（未知元素）全为 0
+    private static final double[][] TABLES = new double[PeriodicTable.size()][];
+
+    static {
+        TABLES[PeriodicTable.UNKNOWN] = new double[POINTS];
+        for (int z = 1; z < TABLES.length; z++) {
+            double a = 0.8853 * BOHR * Math.pow(z, -1.0 / 3.0);
+            double[] table = new double[POINTS];
+            for (int k = 0; k < POINTS; k++) {
+                double qa = 4 * Math.PI * k * STEP * a;
+                double f = 0;
+                for (int i = 0; i < ALPHA.length; i++) {
+                    f += ALPHA[i] * BETA[i] * BETA[i] / (BETA[i] * BETA[i] + qa * qa);
+                }
+                table[k] = z * f;
+            }
+            TABLES[z] = table;
+        }
+    }
+
+    private FormFactors() {
+    }
+
+    // 原子序数 z 的散射因子，s 超出表范围时取表尾
+    static double of(int z, double s) {
+        double[] table = TABLES[z];
+        double t = s / STEP;
+        int k = (int) t;
+        if (k >= POINTS - 1) {
+            return table[POINTS - 1];
+        }
+        double frac = t - k;
+        return table[k] + (table[k + 1] - table[k]) * frac;
+    }
+}
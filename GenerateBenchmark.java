@@ -0,0 +1,60 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.CrystalRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内置晶格生成与服务端超晶胞（扩展 + 成键），size 为每个方向的倍数，FCC 原胞 4 个原子
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GenerateBenchmark {
+
+    @Param({"1", "10", "40"})
+    private int size;
+
+    private CrystalService service;
+    private CrystalRequest request;
+
+    @Setup
+    public void setUp() {
+        CrystalVizProperties properties = new CrystalVizProperties();
+        properties.getLimits().setMaxAtoms(Long.MAX_VALUE);
+        service = new CrystalService(properties);
+        request = new CrystalRequest();
+        request.setLatticeType("FCC");
+        request.setA(4.05);
+        request.setB(4.05);
+        request.setC(4.05);
+        request.setNx(size);
+        request.setNy(size);
+        request.setNz(size);
+    }
+
+    @Benchmark
+    public AtomTable generateStructure() {
+        return service.generateStructure(request);
+    }
+
+    @Benchmark
+    public Structure generateSupercell() {
+        return service.generateSupercell(request);
+    }
+}
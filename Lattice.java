@@ -0,0 +1,180 @@
+package com.brother.crystalviz.service;
+
+/**
+ * 不可变的晶格矩阵
+ * 行向量 a=(ax,ay,az)、b=(bx,by,bz)、c=(cx,cy,cz)，约定 a 沿 x 轴、b 位于 xy 平面
+ * Cartesian = Fractional * Lattice Matrix
+ * 倒易矢量 a*=(b×c)/V 等（不含 2π）在构造时一并算好；批量转换的各方向是独立的紧凑循环，可由 JIT 自动向量化
+ */
+public final class Lattice {
+
+    private final double a, b, c, alpha, beta, gamma;
+    private final double ax, ay, az;
+    private final double bx, by, bz;
+    private final double cx, cy, cz;
+    private final double volume;
+    // 倒易矢量（行向量），即晶格矩阵逆矩阵的转置
+    private final double rax, ray, raz;
+    private final double rbx, rby, rbz;
+    private final double rcx, rcy, rcz;
+
+    private Lattice(double a, double b, double c, double alpha, double beta, double gamma) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+
+        double alphaRad = Math.toRadians(alpha);
+        double betaRad = Math.toRadians(beta);
+        double gammaRad = Math.toRadians(gamma);
+
+        this.ax = a;
+        this.ay = 0;
+        this.az = 0;
+
+        this.bx = b * Math.cos(gammaRad);
+        this.by = b * Math.sin(gammaRad);
+        this.bz = 0;
+
+        this.cx = c * Math.cos(betaRad);
+        this.cy = c * (Math.cos(alphaRad) - Math.cos(betaRad) * Math.cos(gammaRad)) / Math.sin(gammaRad);
+        this.cz = Math.sqrt(c * c - cx * cx - cy * cy);
+
+        this.volume = ax * by * cz;
+
+        // 下三角矩阵的逆直接写出：a* ⟂ b、c，b* ⟂ c、a，c* ⟂ a、b
+        this.rax = 1 / ax;
+        this.ray = -bx / (ax * by);
+        this.raz = (bx * cy - cx * by) / (ax * by * cz);
+        this.rbx = 0;
+        this.rby = 1 / by;
+        this.rbz = -cy / (by * cz);
+        this.rcx = 0;
+        this.rcy = 0;
+        this.rcz = 1 / cz;
+    }
+
+    /**
+     * 由晶格常数 (Å) 和晶面夹角 (°) 构建晶格矩阵
+     */
+    public static Lattice fromParameters(double a, double b, double c, double alpha, double beta, double gamma) {
+        return new Lattice(a, b, c, alpha, beta, gamma);
+    }
+
+    // 晶格参数能否构成有效晶胞（体积为正且有限）
+    public boolean isValid() {
+        return Double.isFinite(volume) && volume > 1e-9;
+    }
+
+    public double getA() { return a; }
+    public double getB() { return b; }
+    public double getC() { return c; }
+    public double getAlpha() { return alpha; }
+    public double getBeta() { return beta; }
+    public double getGamma() { return gamma; }
+    public double getVolume() { return volume; }
+
+    // 分数坐标 -> 笛卡尔坐标
+    public double toCartesianX(double u, double v, double w) {
+        return u * ax + v * bx + w * cx;
+    }
+
+    public double toCartesianY(double u, double v, double w) {
+        return u * ay + v * by + w * cy;
+    }
+
+    public double toCartesianZ(double u, double v, double w) {
+        return u * az + v * bz + w * cz;
+    }
+
+    // 笛卡尔坐标 -> 分数坐标（矩阵为下三角，直接回代求解）
+    public double[] toFractional(double x, double y, double z) {
+        double w = z / cz;
+        double v = (y - w * cy) / by;
+        double u = (x - v * bx - w * cx) / ax;
+        return new double[]{u, v, w};
+    }
+
+    /**
+     * 批量分数坐标 -> 笛卡尔坐标，处理前 n 个；输出数组不能与输入数组相同
+     */
+    public void toCartesian(double[] u, double[] v, double[] w, double[] x, double[] y, double[] z, int n) {
+        double ax = this.ax, bx = this.bx, cx = this.cx, by = this.by, cy = this.cy, cz = this.cz;
+        for (int i = 0; i < n; i++) {
+            x[i] = u[i] * ax + v[i] * bx + w[i] * cx;
+        }
+        for (int i = 0; i < n; i++) {
+            y[i] = v[i] * by + w[i] * cy;
+        }
+        for (int i = 0; i < n; i++) {
+            z[i] = w[i] * cz;
+        }
+    }
+
+    /**
+     * 批量笛卡尔坐标 -> 分数坐标，与逐个调用 toFractional 的结果逐位相同；输出数组不能与输入数组相同
+     */
+    public void toFractional(double[] x, double[] y, double[] z, double[] u, double[] v, double[] w, int n) {
+        double ax = this.ax, bx = this.bx, cx = this.cx, by = this.by, cy = this.cy, cz = this.cz;
+        for (int i = 0; i < n; i++) {
+            w[i] = z[i] / cz;
+        }
+        for (int i = 0; i < n; i++) {
+            v[i] = (y[i] - w[i] * cy) / by;
+        }
+        for (int i = 0; i < n; i++) {
+            u[i] = (x[i] - v[i] * bx - w[i] * cx) / ax;
+        }
+    }
+
+    /**
+     * 分数坐标就地折回 [0, 1)，shift 不为 null 时记录减掉的整数平移
+     */
+    public static void wrap(double[] f, int[] shift, int n) {
+        for (int i = 0; i < n; i++) {
+            double floor = Math.floor(f[i]);
+            double g = f[i] - floor;
+            // -1e-17 之类的值折回后舍入为 1.0
+            if (g >= 1) {
+                g = 0;
+                floor += 1;
+            }
+            f[i] = g;
+            if (shift != null) shift[i] = (int) floor;
+        }
+    }
+
+    // 笛卡尔坐标折回晶胞内，返回新的 (x, y, z)
+    public double[] wrapCartesian(double x, double y, double z) {
+        double[] f = toFractional(x, y, z);
+        wrap(f, null, 3);
+        return new double[]{toCartesianX(f[0], f[1], f[2]), toCartesianY(f[0], f[1], f[2]), toCartesianZ(f[0], f[1], f[2])};
+    }
+
+    // 倒易矢量 a*、b*、c*（行向量，按行存放的 3×3 矩阵，满足 a·a* = 1、a·b* = 0）
+    public double[] reciprocal() {
+        return new double[]{rax, ray, raz, rbx, rby, rbz, rcx, rcy, rcz};
+    }
+
+    // 晶面 (hkl) 的面间距 1 / |h a* + k b* + l c*| (Å)
+    public double dSpacing(int h, int k, int l) {
+        double gx = h * rax + k * rbx + l * rcx;
+        double gy = h * ray + k * rby + l * rcy;
+        double gz = h * raz + k * rbz + l * rcz;
+        return 1 / Math.sqrt(gx * gx + gy * gy + gz * gz);
+    }
+
+    /**
+     * 三个方向上相对晶面的间距 (Å)，即 V / |b×c|、V / |c×a|、V / |a×b| = 1 / |a*|、1 / |b*|、1 / |c*|
+     * 用于判断截断半径需要跨越多少个周期像
+     */
+    public double[] perpendicularWidths() {
+        return new double[]{1 / norm(rax, ray, raz), 1 / norm(rbx, rby, rbz), 1 / norm(rcx, rcy, rcz)};
+    }
+
+    private static double norm(double x, double y, double z) {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+}
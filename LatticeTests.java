@@ -0,0 +1,127 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.model.Atom;
+import com.brother.crystalviz.model.CrystalRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatticeTests {
+
+    private final Lattice triclinic = Lattice.fromParameters(4.1, 5.3, 3.7, 81, 97, 112);
+
+    @Test
+    void batchTransformsMatchScalarAndRoundTrip() {
+        Random random = new Random(9);
+        int n = 1000;
+        double[] u = new double[n], v = new double[n], w = new double[n];
+        for (int i = 0; i < n; i++) {
+            u[i] = random.nextDouble() * 4 - 2;
+            v[i] = random.nextDouble() * 4 - 2;
+            w[i] = random.nextDouble() * 4 - 2;
+        }
+        double[] x = new double[n], y = new double[n], z = new double[n];
+        triclinic.toCartesian(u, v, w, x, y, z, n);
+        double[] fu = new double[n], fv = new double[n], fw = new double[n];
+        triclinic.toFractional(x, y, z, fu, fv, fw, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(triclinic.toCartesianX(u[i], v[i], w[i]), x[i]);
+            assertEquals(triclinic.toCartesianZ(u[i], v[i], w[i]), z[i]);
+            double[] f = triclinic.toFractional(x[i], y[i], z[i]);
+            assertEquals(f[0], fu[i]);
+            assertEquals(f[1], fv[i]);
+            assertEquals(f[2], fw[i]);
+            assertEquals(u[i], fu[i], 1e-12);
+            assertEquals(v[i], fv[i], 1e-12);
+            assertEquals(w[i], fw[i], 1e-12);
+        }
+    }
+
+    @Test
+    void reciprocalVectorsAreDualToLatticeVectors() {
+        double[] r = triclinic.reciprocal();
+        for (int row = 0; row < 3; row++) {
+            // 第 row 个晶格矢量
+            double lx = triclinic.toCartesianX(row == 0 ? 1 : 0, row == 1 ? 1 : 0, row == 2 ? 1 : 0);
+            double ly = triclinic.toCartesianY(row == 0 ? 1 : 0, row == 1 ? 1 : 0, row == 2 ? 1 : 0);
+            double lz = triclinic.toCartesianZ(row == 0 ? 1 : 0, row == 1 ? 1 : 0, row == 2 ? 1 : 0);
+            for (int col = 0; col < 3; col++) {
+                double dot = lx * r[3 * col] + ly * r[3 * col + 1] + lz * r[3 * col + 2];
+                assertEquals(row == col ? 1 : 0, dot, 1e-12);
+            }
+        }
+        Lattice cubic = Lattice.fromParameters(4, 4, 4, 90, 90, 90);
+        assertEquals(4 / Math.sqrt(3), cubic.dSpacing(1, 1, 1), 1e-12);
+        assertEquals(cubic.getVolume() / (4 * 4), cubic.perpendicularWidths()[2], 1e-12);
+    }
+
+    @Test
+    void wrapFoldsIntoUnitCell() {
+        double[] f = {-0.25, 1.5, 3.0, -1e-17, 0.999};
+        int[] shift = new int[5];
+        Lattice.wrap(f, shift, 5);
+        double[] expected = {0.75, 0.5, 0.0, 0.0, 0.999};
+        int[] expectedShift = {-1, 1, 3, 0, 0};
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected[i], f[i], 1e-15);
+            assertTrue(f[i] >= 0 && f[i] < 1);
+        }
+        assertEquals(-1, shift[0]);
+        assertEquals(3, shift[2]);
+        assertEquals(expectedShift[3], shift[3]);
+
+        double[] p = triclinic.wrapCartesian(-1, 20, 7);
+        double[] back = triclinic.toFractional(p[0], p[1], p[2]);
+        for (double c : back) {
+            assertTrue(c > -1e-12 && c < 1 + 1e-12);
+        }
+    }
+
+    @Test
+    void templatesArePlacedOnRequestedLattice() {
+        CrystalRequest request = new CrystalRequest();
+        request.setLatticeType("HEX");
+        request.setA(3.2);
+        request.setB(3.2);
+        request.setC(5.2);
+        request.setAlpha(90);
+        request.setBeta(90);
+        request.setGamma(120);
+        CrystalService service = new CrystalService();
+        AtomTable first = service.generateStructure(request);
+        AtomTable second = service.generateStructure(request);
+        assertNotSame(first, second);
+        assertEquals(2, first.size());
+        Lattice lattice = service.latticeOf(request);
+        assertEquals(lattice.toCartesianX(2.0 / 3.0, 1.0 / 3.0, 0.5), first.getX(1));
+        assertEquals(lattice.toCartesianY(2.0 / 3.0, 1.0 / 3.0, 0.5), first.getY(1));
+
+        // 修改生成结果不影响共享模板
+        first.setPosition(0, 9, 9, 9);
+        assertEquals(0, service.generateStructure(request).getX(0));
+        request.setLatticeType("unknown");
+        assertEquals("Fe", service.generateStructure(request).getElement(0));
+    }
+
+    @Test
+    void legacyParseCifUsesCellAngles() {
+        String cif = String.join("\n",
+                "_cell_length_a 3.0",
+                "_cell_length_b 3.0",
+                "_cell_length_c 5.0",
+                "_cell_angle_gamma 120",
+                "Mg1 Mg 0.5 0.5 0.5",
+                "");
+        List<Atom> atoms = new CrystalService().parseCIF(cif);
+        assertEquals(1, atoms.size());
+        // b 轴与 x 轴成 120°：x = a·u + b·v·cos γ
+        assertEquals(3.0 * 0.5 - 3.0 * 0.5 * 0.5, atoms.get(0).getX(), 1e-9);
+        assertEquals(3.0 * 0.5 * Math.sqrt(3) / 2, atoms.get(0).getY(), 1e-9);
+        assertEquals(2.5, atoms.get(0).getZ(), 1e-9);
+    }
+}
@@ -0,0 +1,76 @@
+package com.brother.crystalviz.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 原子对缓冲区：把 (i, j) 打包成一个 long 存放，避免为每个候选键分配对象
+ * 排序后即为 i 升序、j 升序，与双重循环的输出顺序一致
+ */
+final class PairBuffer {
+
+    private long[] data;
+    private int size;
+
+    PairBuffer() {
+        this(64);
+    }
+
+    PairBuffer(int initialCapacity) {
+        data = new long[Math.max(16, initialCapacity)];
+    }
+
+    void add(int i, int j) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length + (data.length >> 1));
+        }
+        data[size++] = ((long) i << 32) | (j & 0xFFFFFFFFL);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int first(int k) {
+        return (int) (data[k] >>> 32);
+    }
+
+    int second(int k) {
+        return (int) data[k];
+    }
+
+    void sort() {
+        Arrays.sort(data, 0, size);
+    }
+
+    // 排序并去掉重复的原子对
+    void sortDistinct() {
+        Arrays.sort(data, 0, size);
+        int out = 0;
+        for (int k = 0; k < size; k++) {
+            if (out == 0 || data[k] != data[out - 1]) {
+                data[out++] = data[k];
+            }
+        }
+        size = out;
+    }
+
+    // 大数组用 Arrays.parallelSort，结果与 sort 相同；在 pool 中发起，分治任务随之在 pool 内执行而不占用公共 ForkJoinPool
+    void parallelSort(ForkJoinPool pool) {
+        pool.submit(() -> Arrays.parallelSort(data, 0, size)).join();
+    }
+
+    // 按顺序拼接多个缓冲区
+    static PairBuffer concat(PairBuffer[] parts) {
+        int total = 0;
+        for (PairBuffer part : parts) {
+            total += part.size;
+        }
+        PairBuffer out = new PairBuffer(total);
+        for (PairBuffer part : parts) {
+            System.arraycopy(part.data, 0, out.data, out.size, part.size);
+            out.size += part.size;
+        }
+        return out;
+    }
+}
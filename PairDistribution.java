@@ -0,0 +1,25 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一对元素 (a, b) 的偏径向分布函数及键长分布，a、b 按元素出现顺序排列且每个无序对只出现一次
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+public class PairDistribution {
+    private String a;
+    private String b;
+    private double[] g;
+    // 累积配位数 n_ab(r)：每个 a 原子在 r 以内平均有多少个 b 原子
+    private double[] coordination;
+    // 成键原子对的键长直方图，第 k 个分箱为 [k, k+1) × bondBinWidth
+    private long[] bondLengths;
+    private long bondCount;
+    // 平均键长 (Å)，无键时为 0
+    private double meanBondLength;
+}
@@ -0,0 +1,154 @@
+package com.brother.crystalviz.service;
+
+/**
+ * 周期性边界条件下的 Cell List 近邻搜索（最小像约定）
+ * 在分数坐标空间分箱，跨越晶胞边界时记录周期像偏移 (na, nb, nc)，
+ * 因此只需原胞内的原子即可得到正确的配位，不必显式构建超晶胞
+ */
+public final class PeriodicCellList {
+
+    @FunctionalInterface
+    public interface PairVisitor {
+        // 原子 i 与原子 j 平移 (na, nb, nc) 个晶格矢量后的像成键，dist2 为距离平方
+        void visit(int i, int j, int na, int nb, int nc, double dist2);
+    }
+
+    private final Lattice lattice;
+    private final double cutoff;
+    private final int n;
+    // 折回 [0,1) 后的分数坐标，以及折回时减掉的整数平移
+    private final double[] fu, fv, fw;
+    private final int[] su, sv, sw;
+    private final int binsA, binsB, binsC;
+    private final int rangeA, rangeB, rangeC;
+    private final int[] binStart;
+    private final int[] binAtoms;
+
+    public PeriodicCellList(Lattice lattice, double[] x, double[] y, double[] z, int n, double cutoff) {
+        if (!lattice.isValid()) {
+            throw new IllegalArgumentException("晶格参数无法构成有效晶胞，不能使用周期性成键");
+        }
+        this.lattice = lattice;
+        this.cutoff = cutoff;
+        this.n = n;
+        this.fu = new double[n];
+        this.fv = new double[n];
+        this.fw = new double[n];
+        this.su = new int[n];
+        this.sv = new int[n];
+        this.sw = new int[n];
+        lattice.toFractional(x, y, z, fu, fv, fw, n);
+        Lattice.wrap(fu, su, n);
+        Lattice.wrap(fv, sv, n);
+        Lattice.wrap(fw, sw, n);
+
+        // 每个方向的格子数：格子厚度不小于截断半径；总格子数不超过原子数的两倍
+        double[] widths = lattice.perpendicularWidths();
+        int[] bins = new int[3];
+        for (int k = 0; k < 3; k++) {
+            bins[k] = (int) Math.max(1, Math.min(1024, Math.floor(widths[k] / cutoff)));
+        }
+        long maxBins = Math.max(64L, 2L * n);
+        while ((long) bins[0] * bins[1] * bins[2] > maxBins) {
+            int k = bins[0] >= bins[1] && bins[0] >= bins[2] ? 0 : (bins[1] >= bins[2] ? 1 : 2);
+            bins[k] = Math.max(1, bins[k] / 2);
+        }
+        this.binsA = bins[0];
+        this.binsB = bins[1];
+        this.binsC = bins[2];
+        // 晶胞比截断半径还薄时，需要向外搜索多层周期像
+        this.rangeA = (int) Math.ceil(cutoff * binsA / widths[0]);
+        this.rangeB = (int) Math.ceil(cutoff * binsB / widths[1]);
+        this.rangeC = (int) Math.ceil(cutoff * binsC / widths[2]);
+
+        int total = binsA * binsB * binsC;
+        int[] binOf = new int[n];
+        int[] start = new int[total + 1];
+        for (int i = 0; i < n; i++) {
+            int bin = binIndex(bin(fu[i], binsA), bin(fv[i], binsB), bin(fw[i], binsC));
+            binOf[i] = bin;
+            start[bin + 1]++;
+        }
+        for (int k = 0; k < total; k++) {
+            start[k + 1] += start[k];
+        }
+        int[] fill = new int[total];
+        int[] atoms = new int[n];
+        for (int i = 0; i < n; i++) {
+            int bin = binOf[i];
+            atoms[start[bin] + fill[bin]++] = i;
+        }
+        this.binStart = start;
+        this.binAtoms = atoms;
+    }
+
+    /**
+     * 遍历截断半径内的所有 (i, j, 周期像) 组合，每个无序对只回调一次
+     * 偏移量相对于调用方传入的原始坐标，即 r_j + na*a + nb*b + nc*c 与 r_i 相邻
+     */
+    public void forEachPair(PairVisitor visitor) {
+        forEachPair(0, n, visitor);
+    }
+
+    /**
+     * 只遍历 from <= i < to 的原子对（i 为较小的下标或同一原子），用于按原子区间分块并行
+     */
+    void forEachPair(int from, int to, PairVisitor visitor) {
+        double cut2 = cutoff * cutoff;
+        for (int i = from; i < to; i++) {
+            int ba = bin(fu[i], binsA), bb = bin(fv[i], binsB), bc = bin(fw[i], binsC);
+            for (int da = -rangeA; da <= rangeA; da++) {
+                int ua = ba + da;
+                int ia = Math.floorDiv(ua, binsA);
+                int wa = ua - ia * binsA;
+                for (int db = -rangeB; db <= rangeB; db++) {
+                    int ub = bb + db;
+                    int ib = Math.floorDiv(ub, binsB);
+                    int wb = ub - ib * binsB;
+                    for (int dc = -rangeC; dc <= rangeC; dc++) {
+                        int uc = bc + dc;
+                        int ic = Math.floorDiv(uc, binsC);
+                        int wc = uc - ic * binsC;
+
+                        int bin = binIndex(wa, wb, wc);
+                        for (int p = binStart[bin]; p < binStart[bin + 1]; p++) {
+                            int j = binAtoms[p];
+                            // 每个无序对 {i, j+S} 与 {j, i-S} 只保留一个：i<j，或同一原子取正向的像
+                            if (j < i) continue;
+                            if (j == i && !positive(ia, ib, ic)) continue;
+
+                            double du = fu[j] + ia - fu[i];
+                            double dv = fv[j] + ib - fv[i];
+                            double dw = fw[j] + ic - fw[i];
+                            double dx = lattice.toCartesianX(du, dv, dw);
+                            double dy = lattice.toCartesianY(du, dv, dw);
+                            double dz = lattice.toCartesianZ(du, dv, dw);
+                            double d2 = dx * dx + dy * dy + dz * dz;
+                            if (d2 <= cut2) {
+                                // 换算回原始坐标下的周期像偏移
+                                visitor.visit(i, j,
+                                        ia - su[j] + su[i],
+                                        ib - sv[j] + sv[i],
+                                        ic - sw[j] + sw[i],
+                                        d2);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int binIndex(int a, int b, int c) {
+        return (c * binsB + b) * binsA + a;
+    }
+
+    private static int bin(double f, int bins) {
+        int k = (int) (f * bins);
+        return k >= bins ? bins - 1 : k;
+    }
+
+    private static boolean positive(int a, int b, int c) {
+        return a > 0 || (a == 0 && (b > 0 || (b == 0 && c > 0)));
+    }
+}
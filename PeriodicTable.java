@@ -0,0 +1,115 @@
+package com.brother.crystalviz.service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 元素周期表，按原子序数索引（下标 0 表示未知元素）
+ * 共价半径取自 Cordero et al., Dalton Trans. 2008；范德华半径取自 Bondi 1964 / Mantina 2009，
+ * 缺少数据的元素取 2.0 Å；颜色为 Jmol 的 CPK 配色
+ */
+public final class PeriodicTable {
+
+    public static final int UNKNOWN = 0;
+
+    private static final String[] SYMBOLS = ("X "
+            + "H He "
+            + "Li Be B C N O F Ne "
+            + "Na Mg Al Si P S Cl Ar "
+            + "K Ca Sc Ti V Cr Mn Fe Co Ni Cu Zn Ga Ge As Se Br Kr "
+            + "Rb Sr Y Zr Nb Mo Tc Ru Rh Pd Ag Cd In Sn Sb Te I Xe "
+            + "Cs Ba La Ce Pr Nd Pm Sm Eu Gd Tb Dy Ho Er Tm Yb Lu Hf Ta W Re Os Ir Pt Au Hg Tl Pb Bi Po At Rn "
+            + "Fr Ra Ac Th Pa U Np Pu Am Cm Bk Cf Es Fm Md No Lr Rf Db Sg Bh Hs Mt Ds Rg Cn Nh Fl Mc Lv Ts Og").split(" ");
+
+    private static final double N = Double.NaN;
+
+    // 共价半径 (Å)，Mn/Fe/Co 取低自旋值，C 取 sp3 值；Z > 96 无实验数据
+    private static final double[] COVALENT = {
+            N,
+            0.31, 0.28,
+            1.28, 0.96, 0.84, 0.76, 0.71, 0.66, 0.57, 0.58,
+            1.66, 1.41, 1.21, 1.11, 1.07, 1.05, 1.02, 1.06,
+            2.03, 1.76, 1.70, 1.60, 1.53, 1.39, 1.39, 1.32, 1.26, 1.24, 1.32, 1.22, 1.22, 1.20, 1.19, 1.20, 1.20, 1.16,
+            2.20, 1.95, 1.90, 1.75, 1.64, 1.54, 1.47, 1.46, 1.42, 1.39, 1.45, 1.44, 1.42, 1.39, 1.39, 1.38, 1.39, 1.40,
+            2.44, 2.15, 2.07, 2.04, 2.03, 2.01, 1.99, 1.98, 1.98, 1.96, 1.94, 1.92, 1.92, 1.89, 1.90, 1.87, 1.87,
+            1.75, 1.70, 1.62, 1.51, 1.44, 1.41, 1.36, 1.36, 1.32, 1.45, 1.46, 1.48, 1.40, 1.50, 1.50,
+            2.60, 2.21, 2.15, 2.06, 2.00, 1.96, 1.90, 1.87, 1.80, 1.69,
+            N, N, N, N, N, N, N, N, N, N, N, N, N, N, N, N, N, N, N, N, N, N
+    };
+
+    // 范德华半径 (Å)
+    private static final double[] VDW = {
+            N,
+            1.20, 1.40,
+            1.82, 1.53, 1.92, 1.70, 1.55, 1.52, 1.47, 1.54,
+            2.27, 1.73, 1.84, 2.10, 1.80, 1.80, 1.75, 1.88,
+            2.75, 2.31, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 1.63, 1.40, 1.39, 1.87, 2.11, 1.85, 1.90, 1.85, 2.02,
+            3.03, 2.49, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 1.63, 1.72, 1.58, 1.93, 2.17, 2.06, 2.06, 1.98, 2.16,
+            3.43, 2.68, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00,
+            2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 1.75, 1.66, 1.55, 1.96, 2.02, 2.07, 1.97, 2.02, 2.20,
+            3.48, 2.83, 2.00, 2.00, 2.00, 1.86, 2.00, 2.00, 2.00, 2.00,
+            2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00,
+            2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00, 2.00
+    };
+
+    // Jmol CPK 配色；Z > 109 无约定颜色，取灰色
+    private static final String[] COLORS = ("808080 "
+            + "FFFFFF D9FFFF "
+            + "CC80FF C2FF00 FFB5B5 909090 3050F8 FF0D0D 90E050 B3E3F5 "
+            + "AB5CF2 8AFF00 BFA6A6 F0C8A0 FF8000 FFFF30 1FF01F 80D1E3 "
+            + "8F40D4 3DFF00 E6E6E6 BFC2C7 A6A6AB 8A99C7 9C7AC7 E06633 F090A0 50D050 C88033 7D80B0 "
+            + "C28F8F 668F8F BD80E3 FFA100 A62929 5CB8D1 "
+            + "702EB0 00FF00 94FFFF 94E0E0 73C2C9 54B5B5 3B9E9E 248F8F 0A7D8C 006985 C0C0C0 FFD98F "
+            + "A67573 668080 9E63B5 D47A00 940094 429EB0 "
+            + "57178F 00C900 70D4FF FFFFC7 D9FFC7 C7FFC7 A3FFC7 8FFFC7 61FFC7 45FFC7 30FFC7 1FFFC7 "
+            + "00FF9C 00E675 00D452 00BF38 00AB24 4DC2FF 4DA6FF 2194D6 267DAB 266696 175487 D0D0E0 "
+            + "FFD123 B8B8D0 A6544D 575961 9E4FB5 AB5C00 754F45 428296 "
+            + "420066 007D00 70ABFA 00BAFF 00A1FF 008FFF 0080FF 006BFF 545CF2 785CE3 8A4FE3 A136D4 "
+            + "B31FD4 B31FBA B30DA6 BD0D87 C70066 CC0059 D1004F D90045 E00038 E6002E EB0026 "
+            + "808080 808080 808080 808080 808080 808080 808080 808080 808080").split(" ");
+
+    private static final Map<String, Integer> NUMBERS = new HashMap<>();
+
+    static {
+        if (COVALENT.length != SYMBOLS.length || VDW.length != SYMBOLS.length || COLORS.length != SYMBOLS.length) {
+            throw new IllegalStateException("周期表数据长度不一致");
+        }
+        for (int z = 1; z < SYMBOLS.length; z++) {
+            NUMBERS.put(SYMBOLS[z].toLowerCase(Locale.ROOT), z);
+            COLORS[z] = "#" + COLORS[z];
+        }
+        COLORS[UNKNOWN] = "#" + COLORS[UNKNOWN];
+    }
+
+    private PeriodicTable() {
+    }
+
+    public static int size() {
+        return SYMBOLS.length;
+    }
+
+    // 元素符号 -> 原子序数，不区分大小写；未知符号返回 UNKNOWN
+    public static int atomicNumber(String symbol) {
+        if (symbol == null) return UNKNOWN;
+        Integer z = NUMBERS.get(symbol.trim().toLowerCase(Locale.ROOT));
+        return z == null ? UNKNOWN : z;
+    }
+
+    public static String symbol(int z) {
+        return SYMBOLS[z];
+    }
+
+    // 共价半径 (Å)，无数据时为 NaN
+    public static double covalentRadius(int z) {
+        return COVALENT[z];
+    }
+
+    public static double vdwRadius(int z) {
+        return VDW[z];
+    }
+
+    public static String color(int z) {
+        return COLORS[z];
+    }
+}
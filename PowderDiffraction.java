@@ -0,0 +1,223 @@
+package com.brother.crystalviz.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 粉末衍射的结构因子计算：枚举 2θ 上限以内的 (hkl)（只取半空间，Friedel 对的 |F|² 相同），
+ * 结构按 P1 处理，消光由结构因子自然得到
+ * 每个原子沿 a/b/c 的相位因子 exp(2πi·h·u) 预先制表，内层循环只有乘加；各 (hkl) 分块在 fork/join 线程池中并行计算
+ */
+final class PowderDiffraction {
+
+    // 每个 fork/join 任务计算的 (hkl) 个数
+    private static final int CHUNK = 64;
+    // 面间距相对差小于该值的 (hkl) 合并为一个峰
+    private static final double SAME_D = 1e-9;
+
+    private PowderDiffraction() {
+    }
+
+    /**
+     * 计算 2θ ≤ twoThetaMax 的全部衍射峰；bFactor 为各向同性 Debye–Waller 因子 B (Å²)
+     * 半空间内的 (hkl) 数超过 maxReflections 时抛出 IllegalArgumentException
+     */
+    static ReflectionList compute(AtomTable atoms, Lattice lattice, double wavelength, double twoThetaMax,
+                                  double bFactor, int maxReflections, ForkJoinPool pool) {
+        double dMin = wavelength / (2 * Math.sin(Math.toRadians(twoThetaMax / 2)));
+        // |h| = |G·a| ≤ |a| / d_min
+        int maxH = (int) Math.floor(lattice.getA() / dMin);
+        int maxK = (int) Math.floor(lattice.getB() / dMin);
+        int maxL = (int) Math.floor(lattice.getC() / dMin);
+
+        // 1. 枚举半空间 h > 0，或 h = 0 且 (k > 0，或 k = 0 且 l > 0)
+        int count = 0;
+        int[] hs = new int[1024], ks = new int[1024], ls = new int[1024];
+        double[] ds = new double[1024];
+        for (int h = 0; h <= maxH; h++) {
+            for (int k = h == 0 ? 0 : -maxK; k <= maxK; k++) {
+                for (int l = h == 0 && k == 0 ? 1 : -maxL; l <= maxL; l++) {
+                    double d = lattice.dSpacing(h, k, l);
+                    if (d < dMin * (1 - SAME_D)) continue;
+                    if (count == maxReflections) {
+                        throw new IllegalArgumentException("衍射峰超过上限 " + maxReflections + "，请减小 2θ 上限或使用更长的波长");
+                    }
+                    if (count == hs.length) {
+                        int cap = count * 2;
+                        hs = Arrays.copyOf(hs, cap);
+                        ks = Arrays.copyOf(ks, cap);
+                        ls = Arrays.copyOf(ls, cap);
+                        ds = Arrays.copyOf(ds, cap);
+                    }
+                    hs[count] = h;
+                    ks[count] = k;
+                    ls[count] = l;
+                    ds[count] = d;
+                    count++;
+                }
+            }
+        }
+
+        // 2. 并行计算 |F|²
+        double[] f2 = new double[count];
+        PhaseTables tables = new PhaseTables(atoms, lattice, maxH, maxK, maxL);
+        int[] h = hs, k = ks, l = ls;
+        double[] d = ds;
+        int total = count;
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int from = 0; from < total; from += CHUNK) {
+            int start = from, end = Math.min(total, from + CHUNK);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    double[] re = new double[tables.kinds], im = new double[tables.kinds];
+                    for (int r = start; r < end; r++) {
+                        double s = 1 / (2 * d[r]);
+                        double debyeWaller = Math.exp(-bFactor * s * s);
+                        tables.sum(h[r], k[r], l[r], re, im);
+                        double fr = 0, fi = 0;
+                        for (int e = 0; e < tables.kinds; e++) {
+                            double f = FormFactors.of(tables.z[e], s) * debyeWaller;
+                            fr += f * re[e];
+                            fi += f * im[e];
+                        }
+                        f2[r] = fr * fr + fi * fi;
+                    }
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        return merge(wavelength, twoThetaMax, h, k, l, d, f2, total);
+    }
+
+    // 3. 按面间距降序（2θ 升序）排序，合并面间距相同的 (hkl)，乘以 Lorentz-偏振因子
+    private static ReflectionList merge(double wavelength, double twoThetaMax, int[] h, int[] k, int[] l,
+                                        double[] d, double[] f2, int count) {
+        Integer[] order = new Integer[count];
+        for (int r = 0; r < count; r++) order[r] = r;
+        Arrays.sort(order, (p, q) -> Double.compare(d[q], d[p]));
+
+        int[] mh = new int[count], mk = new int[count], ml = new int[count], mult = new int[count];
+        double[] md = new double[count], twoTheta = new double[count], intensity = new double[count];
+        int peaks = 0;
+        for (int p = 0; p < count; ) {
+            int first = order[p];
+            int representative = first;
+            double sum = 0;
+            int multiplicity = 0;
+            int q = p;
+            for (; q < count && d[first] - d[order[q]] <= SAME_D * d[first]; q++) {
+                int r = order[q];
+                sum += f2[r];
+                multiplicity += 2;
+                if (!(h[representative] >= 0 && k[representative] >= 0 && l[representative] >= 0)
+                        && h[r] >= 0 && k[r] >= 0 && l[r] >= 0) {
+                    representative = r;
+                }
+            }
+            double theta = Math.asin(Math.min(1, wavelength / (2 * d[first])));
+            double sin = Math.sin(theta), cos2 = Math.cos(2 * theta);
+            double lorentzPolarization = (1 + cos2 * cos2) / (sin * sin * Math.cos(theta));
+            mh[peaks] = h[representative];
+            mk[peaks] = k[representative];
+            ml[peaks] = l[representative];
+            md[peaks] = d[first];
+            twoTheta[peaks] = Math.toDegrees(2 * theta);
+            mult[peaks] = multiplicity;
+            // 半空间中每个 (hkl) 代表一对 Friedel 反射
+            intensity[peaks] = 2 * sum * lorentzPolarization;
+            peaks++;
+            p = q;
+        }
+        return new ReflectionList(wavelength, twoThetaMax,
+                Arrays.copyOf(mh, peaks), Arrays.copyOf(mk, peaks), Arrays.copyOf(ml, peaks), Arrays.copyOf(md, peaks),
+                Arrays.copyOf(twoTheta, peaks), Arrays.copyOf(mult, peaks), Arrays.copyOf(intensity, peaks));
+    }
+
+    /**
+     * 按元素分组排列的原子相位表：cos/sin(2π·h·u) 只存 h ≥ 0，负指数取共轭
+     * 下标 h * n + j，固定指数时各原子连续存放
+     */
+    private static final class PhaseTables {
+        final int n;
+        final int kinds;
+        // 元素 e 的原子位于 [groupStart[e], groupStart[e + 1])，z[e] 为原子序数
+        final int[] groupStart;
+        final int[] z;
+        final double[] cu, su, cv, sv, cw, sw;
+
+        PhaseTables(AtomTable atoms, Lattice lattice, int maxH, int maxK, int maxL) {
+            this.n = atoms.size();
+            this.kinds = atoms.getSymbols().size();
+            double[] u = new double[n], v = new double[n], w = new double[n];
+            lattice.toFractional(atoms.xs(), atoms.ys(), atoms.zs(), u, v, w, n);
+
+            // 按元素编号计数排序
+            short[] el = atoms.elementIds();
+            groupStart = new int[kinds + 1];
+            for (int i = 0; i < n; i++) groupStart[el[i] + 1]++;
+            for (int e = 0; e < kinds; e++) groupStart[e + 1] += groupStart[e];
+            int[] fill = Arrays.copyOf(groupStart, kinds);
+            double[] gu = new double[n], gv = new double[n], gw = new double[n];
+            for (int i = 0; i < n; i++) {
+                int p = fill[el[i]]++;
+                gu[p] = u[i];
+                gv[p] = v[i];
+                gw[p] = w[i];
+            }
+            z = new int[kinds];
+            for (int e = 0; e < kinds; e++) {
+                z[e] = PeriodicTable.atomicNumber(atoms.getSymbols().get(e));
+            }
+
+            cu = new double[(maxH + 1) * n];
+            su = new double[(maxH + 1) * n];
+            cv = new double[(maxK + 1) * n];
+            sv = new double[(maxK + 1) * n];
+            cw = new double[(maxL + 1) * n];
+            sw = new double[(maxL + 1) * n];
+            fill(gu, maxH, cu, su);
+            fill(gv, maxK, cv, sv);
+            fill(gw, maxL, cw, sw);
+        }
+
+        private void fill(double[] f, int max, double[] cos, double[] sin) {
+            for (int m = 0; m <= max; m++) {
+                for (int j = 0; j < n; j++) {
+                    double phase = 2 * Math.PI * m * f[j];
+                    cos[m * n + j] = Math.cos(phase);
+                    sin[m * n + j] = Math.sin(phase);
+                }
+            }
+        }
+
+        // 各元素的 Σ exp(2πi(hu + kv + lw)) 写入 re/im
+        void sum(int h, int k, int l, double[] re, double[] im) {
+            int ou = Math.abs(h) * n, ov = Math.abs(k) * n, ow = Math.abs(l) * n;
+            double signH = h < 0 ? -1 : 1, signK = k < 0 ? -1 : 1, signL = l < 0 ? -1 : 1;
+            for (int e = 0; e < kinds; e++) {
+                double sr = 0, si = 0;
+                for (int j = groupStart[e]; j < groupStart[e + 1]; j++) {
+                    double au = cu[ou + j], bu = signH * su[ou + j];
+                    double av = cv[ov + j], bv = signK * sv[ov + j];
+                    double aw = cw[ow + j], bw = signL * sw[ow + j];
+                    double pr = au * av - bu * bv;
+                    double pi = au * bv + bu * av;
+                    sr += pr * aw - pi * bw;
+                    si += pr * bw + pi * aw;
+                }
+                re[e] = sr;
+                im[e] = si;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.CrystalRequest;
+import com.brother.crystalviz.model.XrdPattern;
+import com.brother.crystalviz.model.XrdReflection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PowderDiffractionTests {
+
+    private final CrystalVizProperties properties = new CrystalVizProperties();
+    private final CrystalService service = new CrystalService(properties);
+
+    private Structure copper(int nx) {
+        CrystalRequest request = new CrystalRequest();
+        request.setLatticeType("FCC");
+        request.setA(3.615);
+        request.setB(3.615);
+        request.setC(3.615);
+        request.setNx(nx);
+        request.setNy(nx);
+        request.setNz(nx);
+        return service.generateSupercell(request);
+    }
+
+    // 等价 (hkl) 合并后代表指数不唯一，按 2θ 查找衍射峰
+    private static XrdReflection near(XrdPattern pattern, double twoTheta) {
+        return pattern.getReflections().stream()
+                .filter(r -> Math.abs(r.getTwoTheta() - twoTheta) < 0.05).findFirst().orElseThrow();
+    }
+
+    @AfterEach
+    void close() {
+        service.destroy();
+    }
+
+    @Test
+    void fccCopperShowsAllowedReflectionsOnly() {
+        ReflectionList reflections = service.diffraction(copper(1), 1.5406, 90, 0);
+        XrdPattern pattern = reflections.pattern("cu", 20, 90, 0.02, 0.1, 0.01);
+
+        // 面心立方：hkl 全奇或全偶才出现
+        XrdReflection r111 = near(pattern, 43.30);
+        XrdReflection r200 = near(pattern, 50.43);
+        XrdReflection r220 = near(pattern, 74.13);
+        // (311) 落在 2θ ≈ 89.94°，仍在 [20, 90] 窗口内
+        XrdReflection r311 = near(pattern, 89.94);
+        assertEquals(1, r111.getH() * r111.getK() * r111.getL());
+        assertEquals(43.30, r111.getTwoTheta(), 0.02);
+        assertEquals(50.43, r200.getTwoTheta(), 0.02);
+        assertEquals(74.13, r220.getTwoTheta(), 0.02);
+        assertEquals(8, r111.getMultiplicity());
+        assertEquals(6, r200.getMultiplicity());
+        assertEquals(12, r220.getMultiplicity());
+        assertEquals(24, r311.getMultiplicity());
+        assertEquals(100, r111.getIntensity(), 1e-9);
+        assertTrue(r200.getIntensity() > 20 && r200.getIntensity() < 80);
+        assertTrue(r311.getIntensity() > r220.getIntensity());
+        assertEquals(4, pattern.getReflections().size());
+
+        double peak = 0;
+        int at = 0;
+        for (int p = 0; p < pattern.getIntensity().length; p++) {
+            if (pattern.getIntensity()[p] > peak) {
+                peak = pattern.getIntensity()[p];
+                at = p;
+            }
+        }
+        assertEquals(100, peak, 1e-9);
+        assertEquals(43.30, pattern.getTwoTheta()[at], 0.03);
+    }
+
+    @Test
+    void supercellGivesSamePatternAsPrimitiveCell() {
+        XrdPattern cell = service.diffraction(copper(1), 1.5406, 90, 0.5).pattern("a", 20, 90, 0.05, 0.2, 0.01);
+        XrdPattern supercell = service.diffraction(copper(2), 1.5406, 90, 0.5).pattern("b", 20, 90, 0.05, 0.2, 0.01);
+        assertEquals(cell.getReflections().size(), supercell.getReflections().size());
+        for (int p = 0; p < cell.getIntensity().length; p++) {
+            assertEquals(cell.getIntensity()[p], supercell.getIntensity()[p], 1e-6);
+        }
+    }
+
+    @Test
+    void cacheReusesWiderLimitAndRejectsTooManyReflections() {
+        DiffractionCache cache = new DiffractionCache(properties);
+        Structure structure = copper(1);
+        AtomicInteger computed = new AtomicInteger();
+        ReflectionList wide = cache.get("cu", 1.5406, 0, 120, () -> {
+            computed.incrementAndGet();
+            return service.diffraction(structure, 1.5406, 120, 0);
+        });
+        ReflectionList narrow = cache.get("cu", 1.5406, 0, 60, () -> {
+            computed.incrementAndGet();
+            return service.diffraction(structure, 1.5406, 60, 0);
+        });
+        assertSame(wide, narrow);
+        assertEquals(1, computed.get());
+        assertFalse(narrow.pattern("cu", 20, 60, 0.02, 0.1, 0.01).getReflections().isEmpty());
+
+        properties.getXrd().setMaxReflections(10);
+        assertThrows(IllegalArgumentException.class, () -> service.diffraction(copper(3), 1.5406, 90, 0));
+    }
+}
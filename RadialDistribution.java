@@ -0,0 +1,213 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.model.PairDistribution;
+import com.brother.crystalviz.model.StructureAnalysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 径向分布函数与配位分析：一次近邻遍历（半径取 maxRadius 与最大成键截断中的较大者）同时得到
+ * 各元素对的距离直方图、键长直方图和逐原子配位数
+ * 遍历按格子块（周期结构按原子区间）分给 fork/join 任务，每个任务写自己的 long[] 直方图，结束后逐项相加；
+ * 只有成键时的配位数计数写共享的原子数组
+ */
+final class RadialDistribution {
+
+    private RadialDistribution() {
+    }
+
+    static StructureAnalysis analyze(String id, AtomTable atoms, Lattice lattice, boolean periodic, BondCutoffs cutoffs,
+                                     double maxRadius, double binWidth, double bondBinWidth,
+                                     ForkJoinPool pool, int chunkAtoms) {
+        int n = atoms.size();
+        int kinds = atoms.getSymbols().size();
+        int bins = (int) Math.ceil(maxRadius / binWidth);
+        int bondBins = (int) Math.ceil(cutoffs.getMaxCutoff() / bondBinWidth) + 1;
+        double search = Math.max(maxRadius, cutoffs.getMaxCutoff());
+        short[] el = atoms.elementIds();
+        AtomicIntegerArray coordination = new AtomicIntegerArray(n);
+
+        List<Histograms> parts = new ArrayList<>();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        if (periodic) {
+            PeriodicCellList cells = new PeriodicCellList(lattice, atoms.xs(), atoms.ys(), atoms.zs(), n, search);
+            for (int from = 0; from < n; from += chunkAtoms) {
+                int start = from, end = Math.min(n, from + chunkAtoms);
+                Histograms h = new Histograms(kinds, bins, bondBins, maxRadius, binWidth, bondBinWidth);
+                parts.add(h);
+                tasks.add(task(() -> cells.forEachPair(start, end,
+                        (i, j, na, nb, nc, d2) -> h.visit(i, j, d2, el, cutoffs, coordination))));
+            }
+        } else {
+            CellList cells = new CellList(atoms.xs(), atoms.ys(), atoms.zs(), n, search);
+            for (int[] chunk : cells.chunks(chunkAtoms)) {
+                Histograms h = new Histograms(kinds, bins, bondBins, maxRadius, binWidth, bondBinWidth);
+                parts.add(h);
+                tasks.add(task(() -> cells.forEachPair(chunk, search,
+                        (i, j, d2) -> h.visit(i, j, d2, el, cutoffs, coordination))));
+            }
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        Histograms sum = new Histograms(kinds, bins, bondBins, maxRadius, binWidth, bondBinWidth);
+        for (Histograms h : parts) {
+            sum.merge(h);
+        }
+        return result(id, atoms, lattice, periodic, maxRadius, binWidth, bondBinWidth, bins, sum, coordination);
+    }
+
+    private static RecursiveAction task(Runnable work) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                work.run();
+            }
+        };
+    }
+
+    private static StructureAnalysis result(String id, AtomTable atoms, Lattice lattice, boolean periodic,
+                                            double maxRadius, double binWidth, double bondBinWidth, int bins,
+                                            Histograms sum, AtomicIntegerArray coordination) {
+        int n = atoms.size();
+        List<String> symbols = atoms.getSymbols();
+        int kinds = symbols.size();
+        long[] perElement = new long[kinds];
+        for (int i = 0; i < n; i++) {
+            perElement[atoms.getElementId(i)]++;
+        }
+        double volume = periodic || lattice.isValid() ? lattice.getVolume() : boundingVolume(atoms);
+
+        // 分箱中心与球壳体积
+        double[] r = new double[bins];
+        double[] shell = new double[bins];
+        for (int k = 0; k < bins; k++) {
+            double lo = k * binWidth, hi = Math.min(maxRadius, lo + binWidth);
+            r[k] = (lo + hi) / 2;
+            shell[k] = 4.0 / 3.0 * Math.PI * (hi * hi * hi - lo * lo * lo);
+        }
+
+        // 直方图中每个无序原子对记一次；同种元素对换算为有序对（乘 2）后按 N_a * N_b 归一化
+        double[] total = new double[bins];
+        List<PairDistribution> pairs = new ArrayList<>();
+        for (int e = 0; e < kinds; e++) {
+            for (int f = e; f < kinds; f++) {
+                int p = e * kinds + f;
+                double ordered = e == f ? 2 : 1;
+                double norm = volume / ((double) perElement[e] * perElement[f]);
+                double[] g = new double[bins];
+                double[] running = new double[bins];
+                long cumulative = 0;
+                for (int k = 0; k < bins; k++) {
+                    long count = sum.pairs[p * bins + k];
+                    g[k] = ordered * count * norm / shell[k];
+                    total[k] += 2.0 * count;
+                    cumulative += count;
+                    running[k] = ordered * cumulative / perElement[e];
+                }
+                long bondCount = sum.bondCounts[p];
+                long[] bondLengths = new long[sum.bondBins];
+                System.arraycopy(sum.bonds, p * sum.bondBins, bondLengths, 0, sum.bondBins);
+                pairs.add(new PairDistribution(symbols.get(e), symbols.get(f), g, running, bondLengths, bondCount,
+                        bondCount > 0 ? sum.bondSums[p] / bondCount : 0));
+            }
+        }
+        for (int k = 0; k < bins; k++) {
+            total[k] = total[k] * volume / ((double) n * n) / shell[k];
+        }
+
+        int[] cn = new int[n];
+        int maxCn = 0;
+        for (int i = 0; i < n; i++) {
+            cn[i] = coordination.get(i);
+            maxCn = Math.max(maxCn, cn[i]);
+        }
+        long[] cnHistogram = new long[maxCn + 1];
+        for (int c : cn) {
+            cnHistogram[c]++;
+        }
+        return new StructureAnalysis(id, n, periodic, volume, maxRadius, binWidth, r, total, pairs,
+                cn, cnHistogram, bondBinWidth);
+    }
+
+    // 非周期且无有效晶格时用原子的包围盒体积（每边至少 1 Å）
+    private static double boundingVolume(AtomTable atoms) {
+        double[][] axes = {atoms.xs(), atoms.ys(), atoms.zs()};
+        double volume = 1;
+        for (double[] v : axes) {
+            double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < atoms.size(); i++) {
+                lo = Math.min(lo, v[i]);
+                hi = Math.max(hi, v[i]);
+            }
+            volume *= Math.max(1.0, hi - lo);
+        }
+        return volume;
+    }
+
+    // 单个任务的直方图，只用元素编号 e <= f 的半边：下标 (e * kinds + f) * bins + k
+    private static final class Histograms {
+        final int kinds, bins, bondBins;
+        final double max2, inverseBin, inverseBondBin;
+        final long[] pairs;
+        final long[] bonds;
+        final long[] bondCounts;
+        final double[] bondSums;
+
+        Histograms(int kinds, int bins, int bondBins, double maxRadius, double binWidth, double bondBinWidth) {
+            this.kinds = kinds;
+            this.bins = bins;
+            this.bondBins = bondBins;
+            this.max2 = maxRadius * maxRadius;
+            this.inverseBin = 1 / binWidth;
+            this.inverseBondBin = 1 / bondBinWidth;
+            this.pairs = new long[kinds * kinds * bins];
+            this.bonds = new long[kinds * kinds * bondBins];
+            this.bondCounts = new long[kinds * kinds];
+            this.bondSums = new double[kinds * kinds];
+        }
+
+        void visit(int i, int j, double d2, short[] el, BondCutoffs cutoffs, AtomicIntegerArray coordination) {
+            int e = el[i], f = el[j];
+            int p = e <= f ? e * kinds + f : f * kinds + e;
+            boolean bond = cutoffs.isBond(e, f, d2);
+            if (d2 >= max2 && !bond) {
+                return;
+            }
+            double d = Math.sqrt(d2);
+            if (d2 < max2) {
+                pairs[p * bins + Math.min(bins - 1, (int) (d * inverseBin))]++;
+            }
+            if (bond) {
+                bonds[p * bondBins + Math.min(bondBins - 1, (int) (d * inverseBondBin))]++;
+                bondCounts[p]++;
+                bondSums[p] += d;
+                coordination.incrementAndGet(i);
+                coordination.incrementAndGet(j);
+            }
+        }
+
+        void merge(Histograms other) {
+            add(pairs, other.pairs);
+            add(bonds, other.bonds);
+            add(bondCounts, other.bondCounts);
+            for (int k = 0; k < bondSums.length; k++) {
+                bondSums[k] += other.bondSums[k];
+            }
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int k = 0; k < into.length; k++) {
+                into[k] += from[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.PairDistribution;
+import com.brother.crystalviz.model.StructureAnalysis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RadialDistributionTests {
+
+    private final CrystalVizProperties properties = new CrystalVizProperties();
+    private final CrystalService service = new CrystalService(properties);
+
+    private static int[] coordinationOf(BondTable bonds, int n) {
+        int[] cn = new int[n];
+        for (int k = 0; k < bonds.size(); k++) {
+            cn[bonds.getStart(k)]++;
+            cn[bonds.getEnd(k)]++;
+        }
+        return cn;
+    }
+
+    @AfterEach
+    void close() {
+        service.destroy();
+    }
+
+    @Test
+    void chunkedHistogramsMatchBruteForcePairCounts() {
+        Random random = new Random(5);
+        AtomTable atoms = new AtomTable(1500);
+        for (int i = 0; i < 1500; i++) {
+            atoms.add(random.nextInt(3) == 0 ? "Fe" : "O", random.nextDouble() * 25, random.nextDouble() * 25, random.nextDouble() * 25);
+        }
+        Lattice lattice = Lattice.fromParameters(25, 25, 25, 90, 90, 90);
+        double radius = 6;
+        // 小块强制拆成多个任务，验证合并结果
+        StructureAnalysis analysis = RadialDistribution.analyze("cloud", atoms, lattice, false,
+                BondCutoffs.of(atoms, properties.getBonding()), radius, 0.1, 0.01, ForkJoinPool.commonPool(), 100);
+
+        long[][] expected = new long[2][2];
+        for (int i = 0; i < atoms.size(); i++) {
+            for (int j = i + 1; j < atoms.size(); j++) {
+                double dx = atoms.getX(i) - atoms.getX(j), dy = atoms.getY(i) - atoms.getY(j), dz = atoms.getZ(i) - atoms.getZ(j);
+                if (dx * dx + dy * dy + dz * dz < radius * radius) {
+                    int e = atoms.getElementId(i), f = atoms.getElementId(j);
+                    expected[Math.min(e, f)][Math.max(e, f)]++;
+                }
+            }
+        }
+        long[] perElement = new long[2];
+        for (int i = 0; i < atoms.size(); i++) perElement[atoms.getElementId(i)]++;
+        for (PairDistribution pair : analysis.getPairs()) {
+            int e = atoms.elementId(pair.getA()), f = atoms.elementId(pair.getB());
+            double ordered = e == f ? 2 : 1;
+            double counted = pair.getCoordination()[pair.getCoordination().length - 1] * perElement[e] / ordered;
+            assertEquals(expected[e][f], Math.round(counted), pair.getA() + "-" + pair.getB());
+        }
+        assertEquals(60, analysis.getR().length);
+        assertArrayEquals(coordinationOf(service.calculateBonds(atoms), atoms.size()), analysis.getCoordination());
+
+        // 均匀随机分布：远离表面效应的小 r 处 g(r) 接近 1
+        double mean = 0;
+        for (int k = 20; k < 30; k++) mean += analysis.getTotal()[k] / 10;
+        assertTrue(mean > 0.7 && mean < 1.1, "g(r) ≈ 1, got " + mean);
+    }
+
+    @Test
+    void periodicRockSaltHasSixfoldCoordination() {
+        Structure structure = BenchmarkStructures.rockSaltStructure(512);
+        AtomTable atoms = structure.getAtoms();
+        StructureAnalysis analysis = service.analyze("rocksalt", structure, true, 6, 0.05);
+
+        int[] cn = analysis.getCoordination();
+        assertArrayEquals(coordinationOf(service.calculatePeriodicBonds(atoms, structure.getLattice()), atoms.size()), cn);
+        assertEquals(atoms.size(), analysis.getCoordinationHistogram()[6]);
+
+        PairDistribution naCl = analysis.getPairs().stream()
+                .filter(p -> !p.getA().equals(p.getB())).findFirst().orElseThrow();
+        // r = 3.0 Å 以内每个 Na 周围有 6 个 Cl，首峰位于 2.82 Å 附近
+        assertEquals(6.0, naCl.getCoordination()[(int) (3.0 / 0.05)], 1e-9);
+        int peak = 0;
+        for (int k = 0; k < naCl.getG().length; k++) {
+            if (naCl.getG()[k] > naCl.getG()[peak]) peak = k;
+        }
+        assertEquals(2.82, analysis.getR()[peak], 0.1);
+        assertEquals(2.82, naCl.getMeanBondLength(), 0.05);
+        assertEquals(atoms.size() * 3L, naCl.getBondCount());
+    }
+}
@@ -0,0 +1,95 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.model.XrdPattern;
+import com.brother.crystalviz.model.XrdReflection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 某一结构在给定波长下 2θ ≤ twoThetaLimit 的全部衍射峰（面间距相同的已合并），按 2θ 升序，只读
+ * 强度为未归一化的积分强度；同一列表可按不同的 2θ 范围、步长和峰宽反复展宽
+ */
+public final class ReflectionList {
+
+    private final double wavelength;
+    private final double twoThetaLimit;
+    private final int[] h, k, l;
+    private final double[] d;
+    private final double[] twoTheta;
+    private final int[] multiplicity;
+    private final double[] intensity;
+
+    ReflectionList(double wavelength, double twoThetaLimit, int[] h, int[] k, int[] l, double[] d,
+                   double[] twoTheta, int[] multiplicity, double[] intensity) {
+        this.wavelength = wavelength;
+        this.twoThetaLimit = twoThetaLimit;
+        this.h = h;
+        this.k = k;
+        this.l = l;
+        this.d = d;
+        this.twoTheta = twoTheta;
+        this.multiplicity = multiplicity;
+        this.intensity = intensity;
+    }
+
+    public double getWavelength() {
+        return wavelength;
+    }
+
+    public double getTwoThetaLimit() {
+        return twoThetaLimit;
+    }
+
+    public int size() {
+        return d.length;
+    }
+
+    /**
+     * 在 [min, max] 内按 step 采样，各峰以半高宽 fwhm 的高斯峰形叠加（只计算峰中心 ±5σ 以内），最高点归一化为 100
+     * 峰列表只保留相对强度不低于 minIntensity（最强峰为 100）的峰
+     */
+    public XrdPattern pattern(String structureId, double min, double max, double step, double fwhm, double minIntensity) {
+        int points = (int) Math.floor((max - min) / step + 1e-9) + 1;
+        double[] x = new double[points];
+        double[] y = new double[points];
+        for (int p = 0; p < points; p++) {
+            x[p] = min + p * step;
+        }
+
+        double sigma = fwhm / (2 * Math.sqrt(2 * Math.log(2)));
+        double window = 5 * sigma;
+        double strongest = 0;
+        for (int r = 0; r < d.length; r++) {
+            if (twoTheta[r] < min - window || twoTheta[r] > max + window) continue;
+            if (twoTheta[r] >= min && twoTheta[r] <= max) {
+                strongest = Math.max(strongest, intensity[r]);
+            }
+            int from = Math.max(0, (int) Math.ceil((twoTheta[r] - window - min) / step));
+            int to = Math.min(points - 1, (int) Math.floor((twoTheta[r] + window - min) / step));
+            for (int p = from; p <= to; p++) {
+                double t = (x[p] - twoTheta[r]) / sigma;
+                y[p] += intensity[r] * Math.exp(-0.5 * t * t);
+            }
+        }
+        double peak = 0;
+        for (double v : y) {
+            peak = Math.max(peak, v);
+        }
+        if (peak > 0) {
+            for (int p = 0; p < points; p++) {
+                y[p] *= 100 / peak;
+            }
+        }
+
+        List<XrdReflection> peaks = new ArrayList<>();
+        for (int r = 0; r < d.length; r++) {
+            if (twoTheta[r] < min || twoTheta[r] > max || strongest == 0) continue;
+            double relative = 100 * intensity[r] / strongest;
+            if (relative >= minIntensity) {
+                peaks.add(new XrdReflection(h[r], k[r], l[r], d[r], twoTheta[r], multiplicity[r], relative));
+            }
+        }
+        return new XrdPattern(structureId, wavelength, fwhm, x, y, peaks);
+    }
+}
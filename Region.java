@@ -0,0 +1,88 @@
+package com.brother.crystalviz.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 区域查询的凸区域：若干半空间 a·x + b·y + c·z + d >= 0 的交集
+ * 轴对齐包围盒是 6 个半空间，视锥体由前端按相机矩阵算出 6 个平面直接传入
+ */
+public final class Region {
+
+    public enum Overlap { OUTSIDE, PARTIAL, INSIDE }
+
+    // 每个平面 4 个系数 a, b, c, d 依次存放
+    private final double[] planes;
+
+    private Region(double[] planes) {
+        this.planes = planes;
+    }
+
+    public static Region box(double[] min, double[] max) {
+        if (min == null || max == null || min.length != 3 || max.length != 3) {
+            throw new IllegalArgumentException("包围盒的 min/max 必须是 3 个数");
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            if (!Double.isFinite(min[axis]) || !Double.isFinite(max[axis]) || min[axis] > max[axis]) {
+                throw new IllegalArgumentException("包围盒范围非法: " + Arrays.toString(min) + " - " + Arrays.toString(max));
+            }
+        }
+        return new Region(new double[]{
+                1, 0, 0, -min[0], -1, 0, 0, max[0],
+                0, 1, 0, -min[1], 0, -1, 0, max[1],
+                0, 0, 1, -min[2], 0, 0, -1, max[2]});
+    }
+
+    public static Region halfSpaces(List<double[]> planes) {
+        double[] flat = new double[planes.size() * 4];
+        for (int p = 0; p < planes.size(); p++) {
+            double[] plane = planes.get(p);
+            if (plane == null || plane.length != 4) {
+                throw new IllegalArgumentException("第 " + p + " 个平面必须是 4 个系数 [a, b, c, d]");
+            }
+            for (int i = 0; i < 4; i++) {
+                if (!Double.isFinite(plane[i])) {
+                    throw new IllegalArgumentException("第 " + p + " 个平面的系数非法");
+                }
+                flat[p * 4 + i] = plane[i];
+            }
+        }
+        return new Region(flat);
+    }
+
+    // 两个区域的交集
+    public Region and(Region other) {
+        double[] merged = Arrays.copyOf(planes, planes.length + other.planes.length);
+        System.arraycopy(other.planes, 0, merged, planes.length, other.planes.length);
+        return new Region(merged);
+    }
+
+    public boolean contains(double x, double y, double z) {
+        for (int p = 0; p < planes.length; p += 4) {
+            if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 包围盒与区域的关系：对每个平面取法向方向上最远（p 顶点）和最近（n 顶点）的角点
+     * p 顶点在某个平面外侧即整体在外；所有 n 顶点都在内侧即整体在内；其余为相交（保守判断）
+     */
+    public Overlap classify(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        Overlap result = Overlap.INSIDE;
+        for (int p = 0; p < planes.length; p += 4) {
+            double a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+            double far = a * (a >= 0 ? maxX : minX) + b * (b >= 0 ? maxY : minY) + c * (c >= 0 ? maxZ : minZ) + d;
+            if (far < 0) {
+                return Overlap.OUTSIDE;
+            }
+            double near = a * (a >= 0 ? minX : maxX) + b * (b >= 0 ? minY : maxY) + c * (c >= 0 ? minZ : maxZ) + d;
+            if (near < 0) {
+                result = Overlap.PARTIAL;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 区域查询条件：轴对齐包围盒 min/max 与视锥平面 planes 至少给出一个，同时给出时取交集
+ * 每个平面为 [a, b, c, d]，a·x + b·y + c·z + d >= 0 的一侧为内侧
+ */
+@Data
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+@AllArgsConstructor
+public class RegionQuery {
+    private double[] min;
+    private double[] max;
+    private List<double[]> planes;
+    // 细节层次：只返回下标为 stride 整数倍的原子
+    private int stride = 1;
+    // 是否返回两端都在结果中的化学键
+    private boolean bonds = true;
+}
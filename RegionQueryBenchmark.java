@@ -0,0 +1,56 @@
+package com.brother.crystalviz.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 八叉树区域查询：在结构中心取边长 tile Å 的立方体分块，统计原子与键的查询耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RegionQueryBenchmark {
+
+    @Param({"1000000"})
+    private int atoms;
+
+    @Param({"10", "30"})
+    private double tile;
+
+    private StructureIndex index;
+    private Region region;
+
+    @Setup
+    public void setUp() {
+        Structure structure = BenchmarkStructures.rockSaltStructure(atoms);
+        index = structure.index();
+        double center = BenchmarkStructures.side(atoms) * BenchmarkStructures.SPACING / 2;
+        region = Region.box(new double[]{center, center, center},
+                new double[]{center + tile, center + tile, center + tile});
+    }
+
+    @Benchmark
+    public int[] atomsInTile() {
+        return index.query(region, 1, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int[] atomsAndBondsInTile() {
+        int[] hits = index.query(region, 1, Integer.MAX_VALUE);
+        return index.bondsWithin(hits, hits.length, region, 1);
+    }
+}
@@ -0,0 +1,23 @@
+package com.brother.crystalviz.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 区域查询结果：indices[k] 为 atoms[k] 在整个结构中的下标，前端据此拼接相邻分块
+ * 每条键为 [start, end]（全局下标），周期键另带像偏移 [start, end, na, nb, nc]
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RegionResponse {
+    private String structureId;
+    private int[] indices;
+    private List<Atom> atoms;
+    private List<int[]> bonds;
+    // 区域内原子超过 crystalviz.limits.max-region-atoms 时为 true，只返回了前一部分
+    private boolean truncated;
+}
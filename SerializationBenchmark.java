@@ -0,0 +1,54 @@
+package com.brother.crystalviz.controller;
+
+import com.brother.crystalviz.model.CrystalResponse;
+import com.brother.crystalviz.service.BenchmarkStructures;
+import com.brother.crystalviz.service.Structure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CrystalResponse 的 JSON 序列化：DTO 转换（toResponse）与 Jackson 写出分别计时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int atoms;
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private Structure structure;
+    private CrystalResponse response;
+
+    @Setup
+    public void setUp() {
+        structure = BenchmarkStructures.rockSaltStructure(atoms);
+        response = CrystalController.toResponse(structure, false);
+    }
+
+    @Benchmark
+    public CrystalResponse toResponse() {
+        return CrystalController.toResponse(structure, false);
+    }
+
+    @Benchmark
+    public byte[] writeJson() {
+        return mapper.writeValueAsBytes(response);
+    }
+}
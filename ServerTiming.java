@@ -0,0 +1,93 @@
+package com.brother.crystalviz.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 单个请求内各阶段的耗时累计，由 ServerTimingFilter 在请求开始时绑定到当前线程
+ * 重任务线程池中执行的部分通过 propagate 带上同一个实例
+ */
+public final class ServerTiming {
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private volatile long serializeStartNanos;
+
+    private ServerTiming() {
+    }
+
+    public static ServerTiming start() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    // 异步分派时重新绑定请求开始时创建的实例
+    public static void resume(ServerTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    public static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // 把当前请求的计时带到执行 work 的线程上
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        ServerTiming timing = CURRENT.get();
+        if (timing == null) {
+            return work;
+        }
+        return () -> {
+            ServerTiming previous = CURRENT.get();
+            CURRENT.set(timing);
+            try {
+                return work.get();
+            } finally {
+                if (previous != null) CURRENT.set(previous);
+                else CURRENT.remove();
+            }
+        };
+    }
+
+    synchronized void add(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    // 响应开始序列化的时刻，用于统计序列化耗时
+    public void markSerializeStart() {
+        serializeStartNanos = System.nanoTime();
+    }
+
+    public long getSerializeStartNanos() {
+        return serializeStartNanos;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Server-Timing 头的值，例如 "cif.parse;dur=12.40, bonding;dur=3.05, app;dur=16.02"
+     * app 为请求开始到开始序列化的总耗时
+     */
+    public synchronized String header() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> e : phases.entrySet()) {
+            sb.append(e.getKey()).append(";dur=").append(millis(e.getValue())).append(", ");
+        }
+        long end = serializeStartNanos != 0 ? serializeStartNanos : System.nanoTime();
+        return sb.append("app;dur=").append(millis(end - startNanos)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,47 @@
+package com.brother.crystalviz.config;
+
+import com.brother.crystalviz.service.ServerTiming;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 响应体写出前标记序列化开始时刻；开启 crystalviz.metrics.server-timing 时附加 Server-Timing 头
+ * 头必须在写出响应体之前设置，因此其中不含序列化本身的耗时
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final CrystalVizProperties properties;
+
+    @Autowired
+    public ServerTimingAdvice(CrystalVizProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        ServerTiming timing = ServerTiming.current();
+        if (timing != null) {
+            timing.markSerializeStart();
+            if (properties.getMetrics().isServerTiming()) {
+                response.getHeaders().set(HEADER, timing.header());
+            }
+        }
+        return body;
+    }
+}
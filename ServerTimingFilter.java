@@ -0,0 +1,74 @@
+package com.brother.crystalviz.config;
+
+import com.brother.crystalviz.service.CrystalMetrics;
+import com.brother.crystalviz.service.ServerTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * /api 请求的阶段计时：请求开始时绑定 ServerTiming，结束后记录请求体大小和响应序列化耗时
+ * 接口整体耗时由 actuator 自带的 http.server.requests 计时器统计
+ * 返回 CompletableFuture 的接口在异步分派时写出响应，计时实例保存在请求属性中，在异步分派时重新绑定
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String ATTRIBUTE = ServerTiming.class.getName();
+
+    private final CrystalMetrics metrics;
+
+    @Autowired
+    public ServerTimingFilter(CrystalMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ServerTiming timing = (ServerTiming) request.getAttribute(ATTRIBUTE);
+        if (timing != null && isAsyncDispatch(request)) {
+            ServerTiming.resume(timing);
+        } else {
+            timing = ServerTiming.start();
+            request.setAttribute(ATTRIBUTE, timing);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ServerTiming.clear();
+            // 响应尚未写出时等异步分派结束再记录
+            if (!isAsyncStarted(request)) {
+                record(request, timing);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, ServerTiming timing) {
+        if (timing.getSerializeStartNanos() != 0) {
+            metrics.record("serialize", timing.getSerializeStartNanos());
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        long length = request.getContentLengthLong();
+        if (pattern != null && length > 0) {
+            metrics.recordPayload(pattern.toString(), length);
+        }
+    }
+}
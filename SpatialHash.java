@@ -0,0 +1,106 @@
+package com.brother.crystalviz.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 可增量维护的空间哈希：只为非空格子分配存储，原子移动时只改动新旧两个格子
+ * 与 CellList 不同，不需要预先知道坐标范围，适合编辑会话中反复修改的结构
+ */
+final class SpatialHash {
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(int j);
+    }
+
+    private final double cellSize;
+    // 格子键 -> 该格子内的原子下标
+    private final Map<Long, Bucket> cells = new HashMap<>();
+    private long[] cellOf;
+
+    private static final class Bucket {
+        int[] members = new int[4];
+        int count;
+    }
+
+    SpatialHash(double cellSize, int capacity) {
+        this.cellSize = cellSize;
+        this.cellOf = new long[Math.max(16, capacity)];
+    }
+
+    static SpatialHash of(AtomTable atoms, double cellSize) {
+        SpatialHash hash = new SpatialHash(cellSize, atoms.size());
+        for (int i = 0; i < atoms.size(); i++) {
+            hash.insert(i, atoms.getX(i), atoms.getY(i), atoms.getZ(i));
+        }
+        return hash;
+    }
+
+    double getCellSize() {
+        return cellSize;
+    }
+
+    void insert(int i, double x, double y, double z) {
+        if (i >= cellOf.length) {
+            cellOf = Arrays.copyOf(cellOf, Math.max(i + 1, cellOf.length * 2));
+        }
+        long key = key(x, y, z);
+        cellOf[i] = key;
+        Bucket bucket = cells.computeIfAbsent(key, k -> new Bucket());
+        if (bucket.count == bucket.members.length) {
+            bucket.members = Arrays.copyOf(bucket.members, bucket.count * 2);
+        }
+        bucket.members[bucket.count++] = i;
+    }
+
+    // 原子 i 移动到新坐标：格子不变时什么也不做
+    void move(int i, double x, double y, double z) {
+        long key = key(x, y, z);
+        if (key == cellOf[i]) return;
+        remove(i);
+        insert(i, x, y, z);
+    }
+
+    private void remove(int i) {
+        long key = cellOf[i];
+        Bucket bucket = cells.get(key);
+        for (int k = 0; k < bucket.count; k++) {
+            if (bucket.members[k] == i) {
+                bucket.members[k] = bucket.members[--bucket.count];
+                break;
+            }
+        }
+        if (bucket.count == 0) {
+            cells.remove(key);
+        }
+    }
+
+    // 访问 (x, y, z) 所在格子及其 26 个相邻格子里的全部原子
+    void forEachNear(double x, double y, double z, Visitor visitor) {
+        long cx = (long) Math.floor(x / cellSize);
+        long cy = (long) Math.floor(y / cellSize);
+        long cz = (long) Math.floor(z / cellSize);
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                for (long dz = -1; dz <= 1; dz++) {
+                    Bucket bucket = cells.get(pack(cx + dx, cy + dy, cz + dz));
+                    if (bucket == null) continue;
+                    for (int k = 0; k < bucket.count; k++) {
+                        visitor.visit(bucket.members[k]);
+                    }
+                }
+            }
+        }
+    }
+
+    private long key(double x, double y, double z) {
+        return pack((long) Math.floor(x / cellSize), (long) Math.floor(y / cellSize), (long) Math.floor(z / cellSize));
+    }
+
+    // 每个方向取低 21 位（约 ±10⁶ 个格子），超出范围的格子会折叠到同一键，只影响效率不影响结果
+    private static long pack(long cx, long cy, long cz) {
+        return ((cx & 0x1FFFFFL) << 42) | ((cy & 0x1FFFFFL) << 21) | (cz & 0x1FFFFFL);
+    }
+}
@@ -0,0 +1,23 @@
+package com.brother.crystalviz.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 本地结构仓库中的一个快照，GET /api/crystal/store 返回
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredStructure {
+    private String id;
+    // 导入的文件名或生成参数，仅用于展示
+    private String name;
+    private int atomCount;
+    private int bondCount;
+    private boolean periodic;
+    private long sizeBytes;
+    // 最近一次写入或读取的时间（epoch 毫秒）
+    private long lastAccess;
+}
@@ -0,0 +1,57 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.model.ValidationReport;
+
+/**
+ * 服务层的结构结果：原子表、化学键表及对应晶格，由控制器转换为 CrystalResponse
+ */
+public final class Structure {
+
+    private final AtomTable atoms;
+    private final BondTable bonds;
+    private final Lattice lattice;
+    // 校验报告，由 CrystalService.assemble 在成键时一并生成，其他途径构造时为 null
+    private final ValidationReport report;
+    // 区域查询用的八叉树，首次查询时构建
+    private volatile StructureIndex index;
+
+    public Structure(AtomTable atoms, BondTable bonds, Lattice lattice) {
+        this(atoms, bonds, lattice, null);
+    }
+
+    public Structure(AtomTable atoms, BondTable bonds, Lattice lattice, ValidationReport report) {
+        this.atoms = atoms;
+        this.bonds = bonds;
+        this.lattice = lattice;
+        this.report = report;
+    }
+
+    public AtomTable getAtoms() {
+        return atoms;
+    }
+
+    public BondTable getBonds() {
+        return bonds;
+    }
+
+    public Lattice getLattice() {
+        return lattice;
+    }
+
+    public ValidationReport getReport() {
+        return report;
+    }
+
+    public StructureIndex index() {
+        StructureIndex result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    index = result = new StructureIndex(atoms, bonds);
+                }
+            }
+        }
+        return result;
+    }
+}
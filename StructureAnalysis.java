@@ -0,0 +1,34 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 结构分析结果：径向分布函数 g(r)（总的及各元素对的偏 g(r)）、逐原子配位数与键长分布
+ * g(r) 按 volume 对应的平均数密度归一化；非周期结构在表面附近近邻不足，大 r 处的 g(r) 偏低
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+public class StructureAnalysis {
+    private String structureId;
+    private int atomCount;
+    private boolean periodic;
+    // 归一化所用体积 (Å³)：晶格有效时为晶胞体积，否则为原子的包围盒体积
+    private double volume;
+    private double maxRadius;
+    private double binWidth;
+    // 各分箱中心 (Å)
+    private double[] r;
+    private double[] total;
+    private List<PairDistribution> pairs;
+    // 按成键规则（与 /generate 的键相同）统计的逐原子配位数
+    private int[] coordination;
+    // 配位数直方图：coordinationHistogram[k] 为配位数为 k 的原子数
+    private long[] coordinationHistogram;
+    private double bondBinWidth;
+}
@@ -0,0 +1,235 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.Atom;
+import com.brother.crystalviz.model.CacheStats;
+import com.brother.crystalviz.model.CrystalRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 结构结果缓存：按内容哈希保存生成/导入的结构，键同时作为响应的 ETag
+ * 按估算字节数和条目数双重限制，超出时淘汰最久未使用的条目；条目只读，调用方不得修改
+ */
+@Component
+public class StructureCache {
+
+    private final CrystalVizProperties.Cache config;
+    // 成键、校验与 CIF 配置参与哈希：配置变化后旧 ETag 和仓库中按旧配置生成的快照（含校验报告）自然失效
+    private final String generateSalt;
+    private final String importSalt;
+    // accessOrder=true：迭代顺序即最近最少使用顺序
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public StructureCache(CrystalVizProperties properties) {
+        this.config = properties.getCache();
+        this.generateSalt = properties.getBonding() + ";" + properties.getValidation();
+        this.importSalt = generateSalt + ";" + properties.getCif();
+    }
+
+    /**
+     * 命中时直接返回缓存的结构，否则调用 loader 计算并放入缓存
+     * loader 在锁外执行，同一键并发未命中时可能重复计算，结果以先放入的为准
+     */
+    public Structure get(String key, Supplier<Structure> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        synchronized (this) {
+            evictExpired();
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                entry.lastAccess = System.currentTimeMillis();
+                record(hits);
+                return entry.structure;
+            }
+        }
+        record(misses);
+        Structure structure = loader.get();
+        long size = weigh(structure);
+        if (size > config.getMaxWeight().toBytes()) {
+            return structure;
+        }
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                return existing.structure;
+            }
+            entries.put(key, new Entry(structure, size));
+            weight += size;
+            while (!entries.isEmpty()
+                    && (weight > config.getMaxWeight().toBytes() || entries.size() > config.getMaxEntries())) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                weight -= eldest.next().weight;
+                eldest.remove();
+                record(evictions);
+            }
+        }
+        return structure;
+    }
+
+    // 只查不算：用于按 structureId 访问已缓存的结构（区域查询），不存在或已淘汰时返回 null
+    public synchronized Structure peek(String key) {
+        evictExpired();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.structure;
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    // 移出单个条目：结构仓库删除快照时同步调用，已删除的 id 不再能按 structureId 访问
+    public synchronized void evict(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    // 缓存统计快照，crystalviz.cache.record-stats=false 时命中/未命中/淘汰计数保持为 0
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), weight);
+    }
+
+    // 生成请求的规范哈希：晶格类型、晶格参数、自定义原子及成键方式，与 JSON 字段顺序和缺省写法无关
+    public String keyOf(CrystalRequest req) {
+        MessageDigest digest = sha256();
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        update(digest, "generate");
+        update(digest, generateSalt);
+        update(digest, req.getLatticeType());
+        buf.putDouble(canonical(req.getA())).putDouble(canonical(req.getB())).putDouble(canonical(req.getC()))
+                .putDouble(canonical(req.getAlpha())).putDouble(canonical(req.getBeta())).putDouble(canonical(req.getGamma()))
+                .put((byte) (req.isPeriodic() ? 1 : 0));
+        digest.update(buf.flip());
+        List<Atom> atoms = req.getCustomAtoms();
+        if (atoms != null && !atoms.isEmpty()) {
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(atoms.size());
+            digest.update(count.flip());
+            for (Atom atom : atoms) {
+                update(digest, atom.getElement());
+                buf.clear();
+                buf.putDouble(canonical(atom.getX())).putDouble(canonical(atom.getY())).putDouble(canonical(atom.getZ()));
+                digest.update(buf.flip());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // 超晶胞的哈希：在生成请求的哈希上再加扩展倍数
+    public String supercellKeyOf(CrystalRequest req) {
+        MessageDigest digest = sha256();
+        update(digest, "supercell");
+        update(digest, keyOf(req));
+        ByteBuffer buf = ByteBuffer.allocate(12).putInt(req.getNx()).putInt(req.getNy()).putInt(req.getNz());
+        digest.update(buf.flip());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // 上传文件的内容哈希，流式读取，不整体读入内存
+    public String keyOf(InputStream in, boolean periodic) throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, periodic ? "import:periodic" : "import");
+        update(digest, importSalt);
+        byte[] chunk = new byte[64 * 1024];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            digest.update(chunk, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // 估算结构占用的字节数：坐标 3 个 double + 元素 short，每条键两个 int（周期键另加 3 个 int），
+    // 另加区域查询时按需构建的八叉树索引
+    static long weigh(Structure structure) {
+        BondTable bonds = structure.getBonds();
+        int atoms = structure.getAtoms().size();
+        return 256L + atoms * 26L + bonds.size() * (bonds.isPeriodic() ? 20L : 8L)
+                + StructureIndex.weigh(atoms, bonds.size());
+    }
+
+    private void record(AtomicLong counter) {
+        if (config.isRecordStats()) {
+            counter.incrementAndGet();
+        }
+    }
+
+    private void evictExpired() {
+        long deadline = System.currentTimeMillis() - config.getExpireAfterAccess().toMillis();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.lastAccess < deadline) {
+                weight -= entry.weight;
+                it.remove();
+                record(evictions);
+            }
+        }
+    }
+
+    // -0.0 与 0.0、不同的 NaN 位模式视为相同
+    private static double canonical(double v) {
+        if (Double.isNaN(v)) return Double.NaN;
+        return v == 0.0 ? 0.0 : v;
+    }
+
+    // 字符串带长度前缀写入，避免拼接歧义；null 与空串区分
+    private static void update(MessageDigest digest, String s) {
+        if (s == null) {
+            digest.update((byte) 0xFF);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).flip());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        final Structure structure;
+        final long weight;
+        long lastAccess = System.currentTimeMillis();
+
+        Entry(Structure structure, long weight) {
+            this.structure = structure;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.Atom;
+import com.brother.crystalviz.model.CrystalRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructureCacheTests {
+
+    private final CrystalVizProperties properties = new CrystalVizProperties();
+    private final CrystalService service = new CrystalService(properties);
+
+    private static CrystalRequest request(String type, double a) {
+        CrystalRequest req = new CrystalRequest();
+        req.setLatticeType(type);
+        req.setA(a);
+        req.setB(a);
+        req.setC(a);
+        return req;
+    }
+
+    private Structure generate(CrystalRequest req) {
+        AtomTable atoms = service.generateStructure(req);
+        return new Structure(atoms, service.calculateBonds(atoms, req), service.latticeOf(req));
+    }
+
+    @AfterEach
+    void close() {
+        service.destroy();
+    }
+
+    @Test
+    void requestKeyIsCanonical() {
+        StructureCache cache = new StructureCache(properties);
+        CrystalRequest req = request("FCC", 4.05);
+        assertEquals(cache.keyOf(req), cache.keyOf(request("FCC", 4.05)));
+        // nx/ny/nz 不影响 /generate 的结果
+        CrystalRequest expanded = request("FCC", 4.05);
+        expanded.setNx(3);
+        assertEquals(cache.keyOf(req), cache.keyOf(expanded));
+
+        assertNotEquals(cache.keyOf(req), cache.keyOf(request("BCC", 4.05)));
+        assertNotEquals(cache.keyOf(req), cache.keyOf(request("FCC", 4.06)));
+        CrystalRequest periodic = request("FCC", 4.05);
+        periodic.setPeriodic(true);
+        assertNotEquals(cache.keyOf(req), cache.keyOf(periodic));
+
+        CrystalRequest custom = request("FCC", 4.05);
+        custom.setCustomAtoms(List.of(new Atom("Fe", 0, 0, 0, null, 0)));
+        CrystalRequest moved = request("FCC", 4.05);
+        moved.setCustomAtoms(List.of(new Atom("Fe", 0, 0, 0.1, null, 0)));
+        assertNotEquals(cache.keyOf(custom), cache.keyOf(moved));
+        // 颜色和半径只影响显示，不参与哈希
+        moved.setCustomAtoms(List.of(new Atom("Fe", 0, 0, 0, "#ffffff", 2.0)));
+        assertEquals(cache.keyOf(custom), cache.keyOf(moved));
+    }
+
+    @Test
+    void fileKeyDependsOnContentAndPeriodicFlag() throws Exception {
+        StructureCache cache = new StructureCache(properties);
+        byte[] cif = "data_x\n_cell_length_a 4\n".getBytes(StandardCharsets.UTF_8);
+        String key = cache.keyOf(new ByteArrayInputStream(cif), false);
+        assertEquals(key, cache.keyOf(new ByteArrayInputStream(cif.clone()), false));
+        assertNotEquals(key, cache.keyOf(new ByteArrayInputStream(cif), true));
+        cif[cif.length - 2] = '5';
+        assertNotEquals(key, cache.keyOf(new ByteArrayInputStream(cif), false));
+    }
+
+    @Test
+    void validationConfigChangesKeys() throws Exception {
+        // 快照中保存了校验报告，校验阈值变化后不能再命中旧快照
+        StructureCache cache = new StructureCache(properties);
+        byte[] cif = "data_x\n_cell_length_a 4\n".getBytes(StandardCharsets.UTF_8);
+        properties.getValidation().setMaxCoordination(8);
+        StructureCache changed = new StructureCache(properties);
+        assertNotEquals(cache.keyOf(request("FCC", 4.05)), changed.keyOf(request("FCC", 4.05)));
+        assertNotEquals(cache.keyOf(new ByteArrayInputStream(cif), false), changed.keyOf(new ByteArrayInputStream(cif), false));
+    }
+
+    @Test
+    void evictRemovesEntryAndWeight() {
+        StructureCache cache = new StructureCache(properties);
+        cache.get("a", () -> generate(request("FCC", 4.05)));
+        cache.evict("a");
+        cache.evict("missing");
+        assertFalse(cache.contains("a"));
+        assertEquals(0, cache.stats().getWeightBytes());
+    }
+
+    @Test
+    void hitsReturnCachedStructureWithoutRecomputing() {
+        StructureCache cache = new StructureCache(properties);
+        CrystalRequest req = request("NaCl", 5.64);
+        AtomicInteger loads = new AtomicInteger();
+
+        Structure first = cache.get(cache.keyOf(req), () -> {
+            loads.incrementAndGet();
+            return generate(req);
+        });
+        Structure second = cache.get(cache.keyOf(request("NaCl", 5.64)), () -> {
+            loads.incrementAndGet();
+            return generate(req);
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+        assertEquals(StructureCache.weigh(first), cache.stats().getWeightBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByWeight() {
+        Structure sample = generate(request("FCC", 4.05));
+        long size = StructureCache.weigh(sample);
+        // 只够放两个同样大小的结构
+        properties.getCache().setMaxWeight(DataSize.ofBytes(size * 2 + size / 2));
+        StructureCache cache = new StructureCache(properties);
+
+        cache.get("a", () -> generate(request("FCC", 4.05)));
+        cache.get("b", () -> generate(request("FCC", 4.06)));
+        cache.get("a", () -> generate(request("FCC", 4.05)));
+        cache.get("c", () -> generate(request("FCC", 4.07)));
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(size * 2, cache.stats().getWeightBytes());
+    }
+
+    @Test
+    void respectsEntryLimitAndDisabledFlag() {
+        properties.getCache().setMaxEntries(1);
+        StructureCache cache = new StructureCache(properties);
+        cache.get("a", () -> generate(request("BCC", 3.0)));
+        cache.get("b", () -> generate(request("BCC", 3.1)));
+        assertFalse(cache.contains("a"));
+        assertEquals(1, cache.stats().getEntries());
+
+        properties.getCache().setEnabled(false);
+        StructureCache disabled = new StructureCache(properties);
+        disabled.get("a", () -> generate(request("BCC", 3.0)));
+        assertFalse(disabled.contains("a"));
+    }
+}
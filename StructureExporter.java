@@ -0,0 +1,205 @@
+package com.brother.crystalviz.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 流式结构导出：XYZ / 扩展 XYZ / VASP POSCAR / CIF
+ * 超晶胞在写出时按晶格矢量逐个平移生成，不在内存中构建扩展后的原子列表
+ */
+public final class StructureExporter {
+
+    private static final String TITLE = "Generated by CrystalViz Platform";
+    private static final int DECIMALS = 6;
+
+    private StructureExporter() {
+    }
+
+    public static void write(ExportFormat format, AtomTable atoms, Lattice lattice,
+                             int nx, int ny, int nz, OutputStream out) throws IOException {
+        if (nx < 1 || ny < 1 || nz < 1) {
+            throw new IllegalArgumentException("超晶胞倍数必须为正整数");
+        }
+        boolean supercell = (long) nx * ny * nz > 1;
+        if ((supercell || format.needsLattice()) && (lattice == null || !lattice.isValid())) {
+            throw new IllegalArgumentException("晶格参数无效，无法导出 " + format.getFileName());
+        }
+
+        AsciiOutput ascii = new AsciiOutput(out);
+        switch (format) {
+            case XYZ:
+                writeXyz(ascii, atoms, lattice, nx, ny, nz, TITLE);
+                break;
+            case EXTXYZ:
+                writeXyz(ascii, atoms, lattice, nx, ny, nz, extXyzHeader(lattice, nx, ny, nz));
+                break;
+            case POSCAR:
+                writePoscar(ascii, atoms, lattice, nx, ny, nz);
+                break;
+            default:
+                writeCif(ascii, atoms, lattice, nx, ny, nz);
+                break;
+        }
+        ascii.flush();
+    }
+
+    private static void writeXyz(AsciiOutput out, AtomTable atoms, Lattice lattice,
+                                 int nx, int ny, int nz, String comment) throws IOException {
+        String[] symbols = symbols(atoms);
+        out.write((long) atoms.size() * nx * ny * nz).newline();
+        out.write(comment).newline();
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                for (int k = 0; k < nz; k++) {
+                    double tx = translation(lattice, 0, i, j, k);
+                    double ty = translation(lattice, 1, i, j, k);
+                    double tz = translation(lattice, 2, i, j, k);
+                    for (int s = 0; s < atoms.size(); s++) {
+                        out.write(symbols[atoms.getElementId(s)]).write(' ');
+                        out.fixed(atoms.getX(s) + tx, DECIMALS).write(' ');
+                        out.fixed(atoms.getY(s) + ty, DECIMALS).write(' ');
+                        out.fixed(atoms.getZ(s) + tz, DECIMALS).newline();
+                    }
+                }
+            }
+        }
+    }
+
+    private static String extXyzHeader(Lattice lattice, int nx, int ny, int nz) {
+        StringBuilder sb = new StringBuilder("Lattice=\"");
+        int[] mult = {nx, ny, nz};
+        for (int v = 0; v < 3; v++) {
+            for (int axis = 0; axis < 3; axis++) {
+                if (v > 0 || axis > 0) sb.append(' ');
+                // 只有 9 个数，这里用 String.format 即可；余弦带来的 1e-16 量级噪声被舍入为 0
+                sb.append(String.format(Locale.ROOT, "%." + DECIMALS + "f", latticeComponent(lattice, v, axis) * mult[v]));
+            }
+        }
+        return sb.append("\" Properties=species:S:1:pos:R:3 pbc=\"T T T\"").toString();
+    }
+
+    private static void writePoscar(AsciiOutput out, AtomTable atoms, Lattice lattice,
+                                    int nx, int ny, int nz) throws IOException {
+        // POSCAR 要求同种元素连续排列。元素编号按首次出现顺序分配，按编号做计数排序即可分组
+        String[] symbols = symbols(atoms);
+        int[] start = new int[symbols.length + 1];
+        for (int s = 0; s < atoms.size(); s++) {
+            start[atoms.getElementId(s) + 1]++;
+        }
+        for (int e = 0; e < symbols.length; e++) {
+            start[e + 1] += start[e];
+        }
+        int[] order = new int[atoms.size()];
+        int[] fill = start.clone();
+        for (int s = 0; s < atoms.size(); s++) {
+            order[fill[atoms.getElementId(s)]++] = s;
+        }
+        long images = (long) nx * ny * nz;
+
+        out.write(TITLE).newline();
+        out.write("1.0").newline();
+        int[] mult = {nx, ny, nz};
+        for (int v = 0; v < 3; v++) {
+            for (int axis = 0; axis < 3; axis++) {
+                out.write(' ').write(' ').fixed(latticeComponent(lattice, v, axis) * mult[v], DECIMALS);
+            }
+            out.newline();
+        }
+        for (String symbol : symbols) {
+            out.write(' ').write(symbol);
+        }
+        out.newline();
+        for (int e = 0; e < symbols.length; e++) {
+            out.write(' ').write((start[e + 1] - start[e]) * images);
+        }
+        out.newline();
+        out.write("Cartesian").newline();
+
+        for (int e = 0; e < symbols.length; e++) {
+            for (int i = 0; i < nx; i++) {
+                for (int j = 0; j < ny; j++) {
+                    for (int k = 0; k < nz; k++) {
+                        double tx = translation(lattice, 0, i, j, k);
+                        double ty = translation(lattice, 1, i, j, k);
+                        double tz = translation(lattice, 2, i, j, k);
+                        for (int p = start[e]; p < start[e + 1]; p++) {
+                            int s = order[p];
+                            out.write(' ').write(' ').fixed(atoms.getX(s) + tx, DECIMALS);
+                            out.write(' ').fixed(atoms.getY(s) + ty, DECIMALS);
+                            out.write(' ').fixed(atoms.getZ(s) + tz, DECIMALS).newline();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeCif(AsciiOutput out, AtomTable atoms, Lattice lattice,
+                                 int nx, int ny, int nz) throws IOException {
+        out.write("data_crystalviz").newline();
+        out.write("_symmetry_space_group_name_H-M 'P 1'").newline();
+        out.write("_cell_length_a ").fixed(lattice.getA() * nx, DECIMALS).newline();
+        out.write("_cell_length_b ").fixed(lattice.getB() * ny, DECIMALS).newline();
+        out.write("_cell_length_c ").fixed(lattice.getC() * nz, DECIMALS).newline();
+        out.write("_cell_angle_alpha ").fixed(lattice.getAlpha(), DECIMALS).newline();
+        out.write("_cell_angle_beta ").fixed(lattice.getBeta(), DECIMALS).newline();
+        out.write("_cell_angle_gamma ").fixed(lattice.getGamma(), DECIMALS).newline();
+        out.write("loop_").newline();
+        out.write("_symmetry_equiv_pos_as_xyz").newline();
+        out.write("'x, y, z'").newline();
+        out.write("loop_").newline();
+        out.write("_atom_site_label").newline();
+        out.write("_atom_site_type_symbol").newline();
+        out.write("_atom_site_fract_x").newline();
+        out.write("_atom_site_fract_y").newline();
+        out.write("_atom_site_fract_z").newline();
+
+        // 原胞分数坐标只算一次，超晶胞中的分数坐标为 (f + 平移) / 倍数
+        String[] symbols = symbols(atoms);
+        int n = atoms.size();
+        double[] fu = new double[n], fv = new double[n], fw = new double[n];
+        long[] labelCounter = new long[symbols.length];
+        lattice.toFractional(atoms.xs(), atoms.ys(), atoms.zs(), fu, fv, fw, n);
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                for (int k = 0; k < nz; k++) {
+                    for (int a = 0; a < n; a++) {
+                        int e = atoms.getElementId(a);
+                        out.write(symbols[e]).write(++labelCounter[e]).write(' ').write(symbols[e]).write(' ');
+                        out.fixed((fu[a] + i) / nx, DECIMALS).write(' ');
+                        out.fixed((fv[a] + j) / ny, DECIMALS).write(' ');
+                        out.fixed((fw[a] + k) / nz, DECIMALS).newline();
+                    }
+                }
+            }
+        }
+    }
+
+    // 平移 i*a + j*b + k*c 的第 axis 个笛卡尔分量
+    private static double translation(Lattice lattice, int axis, int i, int j, int k) {
+        if (i == 0 && j == 0 && k == 0) return 0;
+        switch (axis) {
+            case 0: return lattice.toCartesianX(i, j, k);
+            case 1: return lattice.toCartesianY(i, j, k);
+            default: return lattice.toCartesianZ(i, j, k);
+        }
+    }
+
+    // 第 v 个晶格矢量 (a/b/c) 的第 axis 个笛卡尔分量
+    private static double latticeComponent(Lattice lattice, int v, int axis) {
+        return translation(lattice, axis, v == 0 ? 1 : 0, v == 1 ? 1 : 0, v == 2 ? 1 : 0);
+    }
+
+    // 按元素编号排列的符号，缺失的元素写作 X
+    private static String[] symbols(AtomTable atoms) {
+        List<String> table = atoms.getSymbols();
+        String[] symbols = new String[table.size()];
+        for (int e = 0; e < symbols.length; e++) {
+            String s = table.get(e);
+            symbols[e] = s == null || s.isEmpty() ? "X" : s;
+        }
+        return symbols;
+    }
+}
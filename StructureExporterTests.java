@@ -0,0 +1,61 @@
+package com.brother.crystalviz.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructureExporterTests {
+
+    @Test
+    void fixedMatchesStringFormatExceptNegativeZero() throws IOException {
+        Random random = new Random(7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try (AsciiOutput out = new AsciiOutput(bytes)) {
+            for (int k = 0; k < 20000; k++) {
+                double v = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(8) - 2);
+                out.fixed(v, 6).newline();
+                expected.append(String.format(Locale.ROOT, "%.6f", v)).append('\n');
+            }
+            // 唯一的差别：舍入为零的负数不输出 "-0.000000"
+            out.fixed(-0.0000001, 6).newline();
+            expected.append("0.000000\n");
+        }
+        assertEquals(expected.toString(), bytes.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writesSupercellInEveryFormat() throws IOException {
+        Lattice lattice = Lattice.fromParameters(4, 4, 4, 90, 90, 90);
+        AtomTable atoms = new AtomTable(2);
+        atoms.add("Na", 0, 0, 0);
+        atoms.add("Cl", 2, 2, 2);
+
+        String xyz = export(ExportFormat.XYZ, atoms, lattice);
+        String[] lines = xyz.split("\n");
+        assertEquals("16", lines[0]);
+        assertEquals(18, lines.length);
+        assertEquals("Cl 6.000000 6.000000 6.000000", lines[lines.length - 1]);
+        assertTrue(export(ExportFormat.EXTXYZ, atoms, lattice).contains("Lattice=\"8.000000 0.000000 0.000000 0.000000 8.000000 0.000000"));
+
+        String poscar = export(ExportFormat.POSCAR, atoms, lattice);
+        assertTrue(poscar.contains(" Na Cl\n 8 8\nCartesian\n"));
+
+        String cif = export(ExportFormat.CIF, atoms, lattice);
+        assertTrue(cif.contains("_cell_length_a 8.000000"));
+        assertTrue(cif.contains("Cl8 Cl 0.750000 0.750000 0.750000"));
+    }
+
+    private static String export(ExportFormat format, AtomTable atoms, Lattice lattice) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StructureExporter.write(format, atoms, lattice, 2, 2, 2, out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,220 @@
+package com.brother.crystalviz.service;
+
+import java.util.Arrays;
+
+/**
+ * 结构的八叉树空间索引，用于按区域分块加载大结构
+ * 原子下标按叶子顺序重排到 order 中，每个节点对应 order 的一个连续区间并记录区间内原子的紧包围盒；
+ * 子节点连续存放，查询时整体落在区域内的节点直接整段输出，不再逐个判断原子
+ * 另按起点原子建立化学键的 CSR 邻接表，区域内的键不必扫描整张键表
+ */
+public final class StructureIndex {
+
+    // 叶子最多容纳的原子数；重合原子过多时在最大深度处停止划分
+    static final int LEAF_SIZE = 32;
+    private static final int MAX_DEPTH = 21;
+
+    private final AtomTable atoms;
+    private final BondTable bonds;
+    private final int[] order;
+
+    private int nodeCount;
+    private int[] nodeStart = new int[64];
+    private int[] nodeEnd = new int[64];
+    private int[] firstChild = new int[64];
+    private byte[] childCount = new byte[64];
+    private byte[] depth = new byte[64];
+    // 每个节点 6 个值：minX, minY, minZ, maxX, maxY, maxZ
+    private double[] bounds = new double[64 * 6];
+
+    // 以原子 i 为起点的键：bondIds[bondOffset[i] .. bondOffset[i + 1])
+    private final int[] bondOffset;
+    private final int[] bondIds;
+
+    StructureIndex(AtomTable atoms, BondTable bonds) {
+        this.atoms = atoms;
+        this.bonds = bonds;
+        int n = atoms.size();
+        this.order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        build();
+
+        this.bondOffset = new int[n + 1];
+        for (int k = 0; k < bonds.size(); k++) {
+            bondOffset[bonds.getStart(k) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            bondOffset[i + 1] += bondOffset[i];
+        }
+        this.bondIds = new int[bonds.size()];
+        int[] fill = Arrays.copyOf(bondOffset, n);
+        for (int k = 0; k < bonds.size(); k++) {
+            bondIds[fill[bonds.getStart(k)]++] = k;
+        }
+    }
+
+    // 索引占用的估算字节数，计入结构缓存的权重
+    static long weigh(int atoms, int bonds) {
+        // order 与 bondOffset 各 4 字节/原子，bondIds 4 字节/键；每个节点约 62 字节，叶子平均半满，折合不到 3 字节/原子
+        return atoms * 11L + bonds * 4L;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    // 所有原子的包围盒 [minX, minY, minZ, maxX, maxY, maxZ]，空结构为 null
+    public double[] bounds() {
+        return atoms.size() == 0 ? null : Arrays.copyOf(bounds, 6);
+    }
+
+    /**
+     * 区域内的原子下标，stride > 1 时只保留下标为 stride 整数倍的原子（细节层次抽样，跨分块一致）
+     * 最多返回 limit + 1 个，调用方据此判断是否截断；结果按八叉树顺序排列
+     */
+    public int[] query(Region region, int stride, int limit) {
+        if (nodeCount == 0) return new int[0];
+        int[] out = new int[(int) Math.max(16, Math.min(1024, Math.min(atoms.size(), limit + 1L)))];
+        int count = 0;
+        int[] stack = new int[8 * MAX_DEPTH + 8];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 6;
+            Region.Overlap overlap = region.classify(bounds[b], bounds[b + 1], bounds[b + 2],
+                    bounds[b + 3], bounds[b + 4], bounds[b + 5]);
+            if (overlap == Region.Overlap.OUTSIDE) continue;
+            if (overlap == Region.Overlap.PARTIAL && childCount[node] > 0) {
+                for (int c = childCount[node] - 1; c >= 0; c--) {
+                    stack[top++] = firstChild[node] + c;
+                }
+                continue;
+            }
+            boolean inside = overlap == Region.Overlap.INSIDE;
+            for (int p = nodeStart[node]; p < nodeEnd[node]; p++) {
+                int i = order[p];
+                if (i % stride != 0) continue;
+                if (!inside && !region.contains(atoms.getX(i), atoms.getY(i), atoms.getZ(i))) continue;
+                if (count == out.length) out = Arrays.copyOf(out, count * 2);
+                out[count++] = i;
+                if (count > limit) return Arrays.copyOf(out, count);
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /**
+     * 两端都在结果中的化学键编号：起点取自 selected，终点按同样的区域和抽样规则判断
+     * 周期键只看终点在原胞中的位置，像偏移由调用方从键表读取
+     */
+    public int[] bondsWithin(int[] selected, int count, Region region, int stride) {
+        int[] out = new int[16];
+        int n = 0;
+        for (int s = 0; s < count; s++) {
+            int i = selected[s];
+            for (int q = bondOffset[i]; q < bondOffset[i + 1]; q++) {
+                int k = bondIds[q];
+                int j = bonds.getEnd(k);
+                if (j % stride != 0 || !region.contains(atoms.getX(j), atoms.getY(j), atoms.getZ(j))) continue;
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = k;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // 按层处理节点：节点 n 的子节点总是在 n 之后分配，因此顺序扫描即可完成整棵树
+    private void build() {
+        if (order.length == 0) return;
+        allocate(0, order.length, 0);
+        for (int node = 0; node < nodeCount; node++) {
+            int lo = nodeStart[node], hi = nodeEnd[node];
+            fitBounds(node, lo, hi);
+            if (hi - lo <= LEAF_SIZE || depth[node] >= MAX_DEPTH) continue;
+
+            int b = node * 6;
+            double cx = (bounds[b] + bounds[b + 3]) * 0.5;
+            double cy = (bounds[b + 1] + bounds[b + 4]) * 0.5;
+            double cz = (bounds[b + 2] + bounds[b + 5]) * 0.5;
+            // 依次按 x、y、z 二分，得到 8 个连续的子区间
+            int[] cuts = new int[9];
+            cuts[0] = lo;
+            cuts[8] = hi;
+            cuts[4] = partition(lo, hi, 0, cx);
+            cuts[2] = partition(lo, cuts[4], 1, cy);
+            cuts[6] = partition(cuts[4], hi, 1, cy);
+            for (int q = 1; q < 8; q += 2) {
+                cuts[q] = partition(cuts[q - 1], cuts[q + 1], 2, cz);
+            }
+            int first = nodeCount;
+            int children = 0;
+            for (int q = 0; q < 8; q++) {
+                if (cuts[q + 1] > cuts[q]) {
+                    allocate(cuts[q], cuts[q + 1], depth[node] + 1);
+                    children++;
+                }
+            }
+            firstChild[node] = first;
+            childCount[node] = (byte) children;
+        }
+    }
+
+    private void allocate(int lo, int hi, int level) {
+        if (nodeCount == nodeStart.length) {
+            int cap = nodeCount * 2;
+            nodeStart = Arrays.copyOf(nodeStart, cap);
+            nodeEnd = Arrays.copyOf(nodeEnd, cap);
+            firstChild = Arrays.copyOf(firstChild, cap);
+            childCount = Arrays.copyOf(childCount, cap);
+            depth = Arrays.copyOf(depth, cap);
+            bounds = Arrays.copyOf(bounds, cap * 6);
+        }
+        nodeStart[nodeCount] = lo;
+        nodeEnd[nodeCount] = hi;
+        depth[nodeCount] = (byte) level;
+        nodeCount++;
+    }
+
+    private void fitBounds(int node, int lo, int hi) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int p = lo; p < hi; p++) {
+            int i = order[p];
+            double x = atoms.getX(i), y = atoms.getY(i), z = atoms.getZ(i);
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+            if (z < minZ) minZ = z;
+            if (z > maxZ) maxZ = z;
+        }
+        int b = node * 6;
+        bounds[b] = minX;
+        bounds[b + 1] = minY;
+        bounds[b + 2] = minZ;
+        bounds[b + 3] = maxX;
+        bounds[b + 4] = maxY;
+        bounds[b + 5] = maxZ;
+    }
+
+    // 把 order[lo, hi) 中坐标小于 pivot 的原子移到前面，返回分界位置
+    private int partition(int lo, int hi, int axis, double pivot) {
+        int i = lo, j = hi - 1;
+        while (i <= j) {
+            if (coord(order[i], axis) < pivot) {
+                i++;
+            } else {
+                int t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    private double coord(int i, int axis) {
+        return axis == 0 ? atoms.getX(i) : axis == 1 ? atoms.getY(i) : atoms.getZ(i);
+    }
+}
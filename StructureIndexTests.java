@@ -0,0 +1,87 @@
+package com.brother.crystalviz.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructureIndexTests {
+
+    private final CrystalService service = new CrystalService();
+
+    @AfterEach
+    void close() {
+        service.destroy();
+    }
+
+    @Test
+    void boxQueryMatchesBruteForce() {
+        Structure structure = BenchmarkStructures.rockSaltStructure(20_000);
+        AtomTable atoms = structure.getAtoms();
+        StructureIndex index = structure.index();
+        Random random = new Random(7);
+        double extent = BenchmarkStructures.side(20_000) * BenchmarkStructures.SPACING;
+        for (int trial = 0; trial < 50; trial++) {
+            double[] min = new double[3], max = new double[3];
+            for (int axis = 0; axis < 3; axis++) {
+                double a = random.nextDouble() * extent, b = random.nextDouble() * extent;
+                min[axis] = Math.min(a, b);
+                max[axis] = Math.max(a, b);
+            }
+            Region region = Region.box(min, max);
+            int stride = 1 + trial % 3;
+            int[] expected = IntStream.range(0, atoms.size())
+                    .filter(i -> i % stride == 0 && region.contains(atoms.getX(i), atoms.getY(i), atoms.getZ(i)))
+                    .toArray();
+            int[] actual = index.query(region, stride, Integer.MAX_VALUE);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void frustumPlanesAndTruncation() {
+        Structure structure = BenchmarkStructures.rockSaltStructure(8000);
+        AtomTable atoms = structure.getAtoms();
+        // x + y <= 20 且 z >= 5 的半空间交集
+        Region region = Region.halfSpaces(List.of(new double[]{-1, -1, 0, 20}, new double[]{0, 0, 1, -5}));
+        long expected = IntStream.range(0, atoms.size())
+                .filter(i -> atoms.getX(i) + atoms.getY(i) <= 20 && atoms.getZ(i) >= 5).count();
+        assertEquals(expected, structure.index().query(region, 1, Integer.MAX_VALUE).length);
+
+        int[] truncated = structure.index().query(region, 1, 10);
+        assertEquals(11, truncated.length);
+    }
+
+    @Test
+    void bondsWithinRegionHaveBothEndsInside() {
+        Structure structure = BenchmarkStructures.rockSaltStructure(4096);
+        AtomTable atoms = structure.getAtoms();
+        BondTable bonds = structure.getBonds();
+        Region region = Region.box(new double[]{0, 0, 0}, new double[]{12, 12, 12});
+        int[] selected = structure.index().query(region, 1, Integer.MAX_VALUE);
+        int[] ids = structure.index().bondsWithin(selected, selected.length, region, 1);
+
+        long expected = IntStream.range(0, bonds.size())
+                .filter(k -> region.contains(atoms.getX(bonds.getStart(k)), atoms.getY(bonds.getStart(k)), atoms.getZ(bonds.getStart(k)))
+                        && region.contains(atoms.getX(bonds.getEnd(k)), atoms.getY(bonds.getEnd(k)), atoms.getZ(bonds.getEnd(k))))
+                .count();
+        assertEquals(expected, ids.length);
+        assertTrue(ids.length > 0);
+    }
+
+    @Test
+    void coincidentAtomsStopAtMaxDepth() {
+        AtomTable atoms = new AtomTable(100);
+        for (int i = 0; i < 100; i++) atoms.add("Fe", 1, 1, 1);
+        StructureIndex index = new StructureIndex(atoms, service.calculateBonds(atoms));
+        assertEquals(100, index.query(Region.box(new double[]{0, 0, 0}, new double[]{2, 2, 2}), 1, 1000).length);
+    }
+}
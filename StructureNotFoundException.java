@@ -0,0 +1,15 @@
+package com.brother.crystalviz.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * structureId 对应的结构不在缓存中（从未生成或已被淘汰），接口返回 404，客户端应重新提交生成/导入请求
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class StructureNotFoundException extends RuntimeException {
+
+    public StructureNotFoundException(String id) {
+        super("结构不存在或已被淘汰: " + id);
+    }
+}
@@ -0,0 +1,395 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.StoredStructure;
+import com.brother.crystalviz.model.ValidationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 本地结构仓库：导入/生成的结构以二进制快照写入 crystalviz.store.dir，重启后仍可按 id 读取
+ * id 即结构缓存的内容哈希，同一内容只写一次；目录总大小超过 max-size 时按最近访问时间淘汰
+ * 快照布局（小端序，各段按 8 字节对齐）：
+ * <pre>
+ *   0  char[4]    magic "CVZS"
+ *   4  uint16     版本号 (1)
+ *   6  uint16     标志位，bit0 = 周期键（含像偏移）
+ *   8  int32      原子数 N
+ *  12  int32      键数 B
+ *  16  int32      元素种类数 S
+ *  20  int32      字符串区字节数（含对齐填充）
+ *  24  int32      校验报告 JSON 字节数，无报告为 0
+ *  28  int32      保留
+ *  32  float64×6  a, b, c, alpha, beta, gamma
+ *  80  float64×9  晶格矩阵，行向量 a、b、c（笛卡尔坐标，供外部工具直接读取）
+ * 152  字符串区：uint16 len + 名称 (UTF-8)；S × { uint8 len, 元素符号 }
+ *      float64[N] x；float64[N] y；float64[N] z
+ *      int16[N]   元素编号
+ *      int32[2B]  键的原子下标对
+ *      int32[3B]  周期像偏移（仅当 bit0 置位）
+ *      校验报告 JSON (UTF-8)
+ * </pre>
+ * 读取时整个文件以只读方式映射，各数组按块批量拷贝到 AtomTable/BondTable，不做任何文本解析
+ */
+@Component
+public class StructureStore {
+
+    private static final Logger log = LoggerFactory.getLogger(StructureStore.class);
+
+    static final String SUFFIX = ".cvs";
+    private static final int MAGIC = 'C' | 'V' << 8 | 'Z' << 16 | 'S' << 24;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 152;
+    private static final Pattern ID = Pattern.compile("[0-9A-Za-z_-]{1,128}");
+
+    private final CrystalVizProperties.Store config;
+    private final JsonMapper jsonMapper;
+    private final Path dir;
+
+    @Autowired
+    public StructureStore(CrystalVizProperties properties, JsonMapper jsonMapper) {
+        this.config = properties.getStore();
+        this.jsonMapper = jsonMapper;
+        this.dir = Paths.get(config.getDir()).toAbsolutePath();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public boolean contains(String id) {
+        return isEnabled() && ID.matcher(id).matches() && Files.isRegularFile(pathOf(id));
+    }
+
+    /**
+     * 仓库中已有该 id 时直接读取快照，否则调用 loader 计算并写入
+     * 写入失败只记录日志，不影响本次请求
+     */
+    public Structure getOrCreate(String id, String name, Supplier<Structure> loader) {
+        if (!isEnabled()) {
+            return loader.get();
+        }
+        if (contains(id)) {
+            try {
+                return load(id);
+            } catch (UncheckedIOException e) {
+                // 快照损坏时重新计算并覆盖
+                log.warn("结构快照读取失败，重新计算: {}", id, e);
+            }
+        }
+        Structure structure = loader.get();
+        saveQuietly(id, name, structure);
+        return structure;
+    }
+
+    // 仓库中还没有该 id 时写入快照（结构已在内存中，如命中结果缓存的 /generate?persist=true）
+    public void putIfAbsent(String id, String name, Structure structure) {
+        if (isEnabled() && !contains(id)) {
+            saveQuietly(id, name, structure);
+        }
+    }
+
+    private void saveQuietly(String id, String name, Structure structure) {
+        try {
+            save(id, name, structure);
+        } catch (IOException | RuntimeException e) {
+            log.warn("结构快照写入失败: {}", id, e);
+        }
+    }
+
+    public Structure load(String id) {
+        if (!contains(id)) {
+            throw new StructureNotFoundException(id);
+        }
+        Path path = pathOf(id);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("快照超过 2 GB: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Structure structure = read(map.order(ByteOrder.LITTLE_ENDIAN));
+            touch(path);
+            return structure;
+        } catch (NoSuchFileException e) {
+            throw new StructureNotFoundException(id);
+        } catch (IOException | RuntimeException e) {
+            throw new UncheckedIOException(new IOException("无法读取结构快照 " + path + ": " + e.getMessage(), e));
+        }
+    }
+
+    // 写入快照：先写临时文件再原子改名，读者不会看到写了一半的文件
+    public void save(String id, String name, Structure structure) throws IOException {
+        if (!ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("非法的结构 id: " + id);
+        }
+        Files.createDirectories(dir);
+        byte[] report = structure.getReport() != null ? jsonMapper.writeValueAsBytes(structure.getReport()) : new byte[0];
+        Layout layout = new Layout(structure, name, report.length);
+        if (layout.total > Integer.MAX_VALUE) {
+            throw new IOException("结构过大，快照超过 2 GB");
+        }
+        Path tmp = Files.createTempFile(dir, id + "-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.total);
+                write(map.order(ByteOrder.LITTLE_ENDIAN), structure, layout, report);
+                map.force();
+            }
+            Files.move(tmp, pathOf(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        evict();
+    }
+
+    public boolean delete(String id) {
+        if (!isEnabled() || !ID.matcher(id).matches()) {
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(pathOf(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 仓库中的全部结构，最近访问的在前；只读取每个文件的头部
+    public List<StoredStructure> list() {
+        List<StoredStructure> out = new ArrayList<>();
+        if (!isEnabled() || !Files.isDirectory(dir)) {
+            return out;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path path : files) {
+                StoredStructure info = readInfo(path);
+                if (info != null) out.add(info);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.sort(Comparator.comparingLong(StoredStructure::getLastAccess).reversed());
+        return out;
+    }
+
+    // 总大小超过上限时删除最久未访问的快照；最近写入的一个总是保留
+    private synchronized void evict() {
+        List<StoredStructure> all = list();
+        long total = all.stream().mapToLong(StoredStructure::getSizeBytes).sum();
+        long limit = config.getMaxSize().toBytes();
+        for (int k = all.size() - 1; k > 0 && total > limit; k--) {
+            StoredStructure victim = all.get(k);
+            if (delete(victim.getId())) {
+                total -= victim.getSizeBytes();
+            }
+        }
+    }
+
+    private Path pathOf(String id) {
+        return dir.resolve(id + SUFFIX);
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 只影响淘汰顺序
+        }
+    }
+
+    private StoredStructure readInfo(Path path) {
+        String file = path.getFileName().toString();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES + 2 + 65535).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(head, 0);
+            head.flip();
+            if (head.remaining() < HEADER_BYTES + 2 || head.getInt(0) != MAGIC) {
+                return null;
+            }
+            int nameLength = head.getShort(HEADER_BYTES) & 0xFFFF;
+            String name = head.remaining() >= HEADER_BYTES + 2 + nameLength
+                    ? new String(head.array(), HEADER_BYTES + 2, nameLength, StandardCharsets.UTF_8) : "";
+            return new StoredStructure(file.substring(0, file.length() - SUFFIX.length()), name,
+                    head.getInt(8), head.getInt(12), (head.getShort(6) & 1) != 0,
+                    channel.size(), Files.getLastModifiedTime(path).toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // 各段的偏移，均按 8 字节对齐
+    private static final class Layout {
+        final int atoms;
+        final int bonds;
+        final boolean periodic;
+        final byte[] name;
+        final int stringBytes;
+        final long coords;
+        final long elements;
+        final long pairs;
+        final long images;
+        final long report;
+        final long total;
+
+        Layout(Structure structure, String name, int reportBytes) {
+            this.atoms = structure.getAtoms().size();
+            this.bonds = structure.getBonds().size();
+            this.periodic = structure.getBonds().isPeriodic();
+            byte[] bytes = name != null ? name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            this.name = bytes.length > 65535 ? Arrays.copyOf(bytes, 65535) : bytes;
+            int strings = 2 + this.name.length;
+            for (String symbol : structure.getAtoms().getSymbols()) {
+                strings += 1 + symbol.getBytes(StandardCharsets.UTF_8).length;
+            }
+            this.stringBytes = align(strings);
+            this.coords = HEADER_BYTES + stringBytes;
+            this.elements = coords + 24L * atoms;
+            this.pairs = elements + align(2L * atoms);
+            this.images = pairs + align(8L * bonds);
+            this.report = images + (periodic ? align(12L * bonds) : 0);
+            this.total = report + reportBytes;
+        }
+
+        Layout(ByteBuffer buf) {
+            this.atoms = buf.getInt(8);
+            this.bonds = buf.getInt(12);
+            this.periodic = (buf.getShort(6) & 1) != 0;
+            this.name = null;
+            this.stringBytes = buf.getInt(20);
+            this.coords = HEADER_BYTES + stringBytes;
+            this.elements = coords + 24L * atoms;
+            this.pairs = elements + align(2L * atoms);
+            this.images = pairs + align(8L * bonds);
+            this.report = images + (periodic ? align(12L * bonds) : 0);
+            this.total = report + buf.getInt(24);
+        }
+
+        private static int align(int n) {
+            return (n + 7) & ~7;
+        }
+
+        private static long align(long n) {
+            return (n + 7) & ~7L;
+        }
+    }
+
+    private static void write(ByteBuffer buf, Structure structure, Layout layout, byte[] report) {
+        AtomTable atoms = structure.getAtoms();
+        BondTable bonds = structure.getBonds();
+        Lattice lattice = structure.getLattice();
+        List<String> symbols = atoms.getSymbols();
+
+        buf.putInt(0, MAGIC);
+        buf.putShort(4, VERSION);
+        buf.putShort(6, (short) (layout.periodic ? 1 : 0));
+        buf.putInt(8, layout.atoms);
+        buf.putInt(12, layout.bonds);
+        buf.putInt(16, symbols.size());
+        buf.putInt(20, layout.stringBytes);
+        buf.putInt(24, report.length);
+        buf.position(32);
+        buf.putDouble(lattice.getA()).putDouble(lattice.getB()).putDouble(lattice.getC())
+                .putDouble(lattice.getAlpha()).putDouble(lattice.getBeta()).putDouble(lattice.getGamma());
+        for (int row = 0; row < 3; row++) {
+            double u = row == 0 ? 1 : 0, v = row == 1 ? 1 : 0, w = row == 2 ? 1 : 0;
+            buf.putDouble(lattice.toCartesianX(u, v, w)).putDouble(lattice.toCartesianY(u, v, w))
+                    .putDouble(lattice.toCartesianZ(u, v, w));
+        }
+
+        buf.position(HEADER_BYTES);
+        buf.putShort((short) layout.name.length).put(layout.name);
+        for (String symbol : symbols) {
+            byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+            buf.put((byte) bytes.length).put(bytes);
+        }
+
+        int n = layout.atoms;
+        buf.position((int) layout.coords);
+        buf.asDoubleBuffer().put(atoms.xs(), 0, n).put(atoms.ys(), 0, n).put(atoms.zs(), 0, n);
+        buf.position((int) layout.elements);
+        buf.asShortBuffer().put(atoms.elementIds(), 0, n);
+        buf.position((int) layout.pairs);
+        buf.asIntBuffer().put(bonds.ends(), 0, 2 * layout.bonds);
+        if (layout.periodic) {
+            buf.position((int) layout.images);
+            buf.asIntBuffer().put(bonds.images(), 0, 3 * layout.bonds);
+        }
+        buf.position((int) layout.report);
+        buf.put(report);
+    }
+
+    private Structure read(ByteBuffer buf) throws IOException {
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) {
+            throw new IOException("不是结构快照");
+        }
+        if (buf.getShort(4) != VERSION) {
+            throw new IOException("不支持的快照版本 " + buf.getShort(4));
+        }
+        Layout layout = new Layout(buf);
+        if (layout.atoms < 0 || layout.bonds < 0 || layout.total != buf.capacity()) {
+            throw new IOException("快照长度与头部不符");
+        }
+        Lattice lattice = Lattice.fromParameters(buf.getDouble(32), buf.getDouble(40), buf.getDouble(48),
+                buf.getDouble(56), buf.getDouble(64), buf.getDouble(72));
+
+        buf.position(HEADER_BYTES);
+        buf.position(buf.position() + 2 + (buf.getShort() & 0xFFFF));
+        int kinds = buf.getInt(16);
+        List<String> symbols = new ArrayList<>(kinds);
+        for (int s = 0; s < kinds; s++) {
+            byte[] bytes = new byte[buf.get() & 0xFF];
+            buf.get(bytes);
+            symbols.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        int n = layout.atoms;
+        double[] x = new double[n], y = new double[n], z = new double[n];
+        buf.position((int) layout.coords);
+        buf.asDoubleBuffer().get(x).get(y).get(z);
+        short[] elements = new short[n];
+        buf.position((int) layout.elements);
+        buf.asShortBuffer().get(elements);
+        int[] ends = new int[2 * layout.bonds];
+        buf.position((int) layout.pairs);
+        buf.asIntBuffer().get(ends);
+        int[] images = null;
+        if (layout.periodic) {
+            images = new int[3 * layout.bonds];
+            buf.position((int) layout.images);
+            buf.asIntBuffer().get(images);
+        }
+        ValidationReport report = null;
+        int reportBytes = buf.getInt(24);
+        if (reportBytes > 0) {
+            byte[] json = new byte[reportBytes];
+            buf.position((int) layout.report);
+            buf.get(json);
+            report = jsonMapper.readValue(json, ValidationReport.class);
+        }
+        return new Structure(AtomTable.wrap(x, y, z, elements, symbols), BondTable.wrap(ends, images), lattice, report);
+    }
+}
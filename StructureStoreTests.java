@@ -0,0 +1,109 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.StoredStructure;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructureStoreTests {
+
+    @TempDir
+    Path dir;
+
+    private StructureStore store(long maxBytes) {
+        CrystalVizProperties properties = new CrystalVizProperties();
+        properties.getStore().setDir(dir.toString());
+        properties.getStore().setMaxSize(DataSize.ofBytes(maxBytes));
+        return new StructureStore(properties, JsonMapper.builder().build());
+    }
+
+    @Test
+    void snapshotRoundTripsAtomsBondsLatticeAndReport() throws IOException {
+        StructureStore store = store(Long.MAX_VALUE);
+        Structure original = BenchmarkStructures.rockSaltStructure(1000);
+        store.save("rocksalt", "岩盐 1000", original);
+
+        Structure loaded = store.load("rocksalt");
+        AtomTable a = original.getAtoms(), b = loaded.getAtoms();
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.getX(i), b.getX(i));
+            assertEquals(a.getZ(i), b.getZ(i));
+            assertEquals(a.getElement(i), b.getElement(i));
+        }
+        assertEquals(original.getBonds().size(), loaded.getBonds().size());
+        assertEquals(original.getBonds().getEnd(17), loaded.getBonds().getEnd(17));
+        assertEquals(original.getLattice().getA(), loaded.getLattice().getA());
+        assertNotNull(loaded.getReport());
+        assertEquals(original.getReport().getUnderCoordinatedCount(), loaded.getReport().getUnderCoordinatedCount());
+
+        List<StoredStructure> listed = store.list();
+        assertEquals(1, listed.size());
+        assertEquals("岩盐 1000", listed.get(0).getName());
+        assertEquals(1000, listed.get(0).getAtomCount());
+        assertEquals(Files.size(dir.resolve("rocksalt" + StructureStore.SUFFIX)), listed.get(0).getSizeBytes());
+    }
+
+    @Test
+    void periodicImagesSurvive() {
+        StructureStore store = store(Long.MAX_VALUE);
+        CrystalService service = new CrystalService();
+        Structure original = service.importCifLogic(String.join("\n",
+                "data_fe", "_cell_length_a 2.5", "_cell_length_b 2.5", "_cell_length_c 2.5",
+                "loop_", "_atom_site_type_symbol", "_atom_site_fract_x", "_atom_site_fract_y", "_atom_site_fract_z",
+                "Fe 0 0 0", ""), true);
+        AtomicInteger computed = new AtomicInteger();
+        store.getOrCreate("fe", "fe.cif", () -> {
+            computed.incrementAndGet();
+            return original;
+        });
+        Structure loaded = store.getOrCreate("fe", "fe.cif", () -> {
+            computed.incrementAndGet();
+            return original;
+        });
+
+        assertEquals(1, computed.get());
+        assertTrue(loaded.getBonds().isPeriodic());
+        assertEquals(original.getBonds().size(), loaded.getBonds().size());
+        for (int k = 0; k < original.getBonds().size(); k++) {
+            assertEquals(original.getBonds().getImage(k, 2), loaded.getBonds().getImage(k, 2));
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverSize() throws IOException {
+        Structure structure = BenchmarkStructures.rockSaltStructure(500);
+        StructureStore probe = store(Long.MAX_VALUE);
+        probe.save("probe", "", structure);
+        long size = Files.size(dir.resolve("probe" + StructureStore.SUFFIX));
+        probe.delete("probe");
+
+        StructureStore store = store(size * 2 + size / 2);
+        store.save("a", "", structure);
+        store.save("b", "", structure);
+        Files.setLastModifiedTime(dir.resolve("a" + StructureStore.SUFFIX), java.nio.file.attribute.FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(dir.resolve("b" + StructureStore.SUFFIX), java.nio.file.attribute.FileTime.fromMillis(2000));
+        store.save("c", "", structure);
+
+        assertFalse(store.contains("a"));
+        assertTrue(store.contains("b"));
+        assertTrue(store.contains("c"));
+        assertTrue(store.delete("b"));
+        assertThrows(StructureNotFoundException.class, () -> store.load("b"));
+        assertThrows(StructureNotFoundException.class, () -> store.load("../escape"));
+    }
+}
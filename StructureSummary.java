@@ -0,0 +1,26 @@
+package com.brother.crystalviz.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 服务端保留的结构概要（summary=true 时代替完整结构返回），之后按 structureId 做区域查询
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StructureSummary {
+    private String structureId;
+    private int atomCount;
+    private int bondCount;
+    // 全部原子的包围盒，空结构为 null
+    private double[] min;
+    private double[] max;
+    private double a;
+    private double b;
+    private double c;
+    private double alpha;
+    private double beta;
+    private double gamma;
+}
@@ -0,0 +1,15 @@
+package com.brother.crystalviz.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 结构原子数超过配置上限（crystalviz.limits.*）时抛出，接口返回 400
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class StructureTooLargeException extends RuntimeException {
+
+    public StructureTooLargeException(long atoms, long limit) {
+        super("结构包含 " + atoms + " 个原子，超过上限 " + limit);
+    }
+}
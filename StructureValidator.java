@@ -0,0 +1,70 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.ValidationReport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 由成键阶段的结果汇总校验报告：重叠原子对来自成键时的同一次近邻遍历，
+ * 配位数由键表统计，超出晶胞的原子按分数坐标判断，整个过程是 O(N + 键数)
+ */
+final class StructureValidator {
+
+    private StructureValidator() {
+    }
+
+    static ValidationReport report(AtomTable atoms, BondTable bonds, PairBuffer overlaps, Lattice lattice,
+                                   CrystalVizProperties.Validation config) {
+        int limit = Math.max(0, config.getMaxReported());
+        boolean truncated = false;
+
+        List<int[]> overlapList = new ArrayList<>(Math.min(limit, overlaps.size()));
+        for (int k = 0; k < overlaps.size() && k < limit; k++) {
+            overlapList.add(new int[]{overlaps.first(k), overlaps.second(k)});
+        }
+        truncated |= overlaps.size() > limit;
+
+        // 周期像之间的键也计入配位数
+        int[] coordination = new int[atoms.size()];
+        for (int k = 0; k < bonds.size(); k++) {
+            coordination[bonds.getStart(k)]++;
+            coordination[bonds.getEnd(k)]++;
+        }
+        List<Integer> under = new ArrayList<>();
+        List<Integer> over = new ArrayList<>();
+        int underCount = 0, overCount = 0;
+        for (int i = 0; i < atoms.size(); i++) {
+            if (coordination[i] < config.getMinCoordination()) {
+                if (underCount++ < limit) under.add(i);
+            } else if (coordination[i] > config.getMaxCoordination()) {
+                if (overCount++ < limit) over.add(i);
+            }
+        }
+        truncated |= underCount > limit || overCount > limit;
+
+        List<Integer> outside = new ArrayList<>();
+        int outsideCount = -1;
+        if (lattice != null && lattice.isValid()) {
+            outsideCount = 0;
+            double tol = config.getCellTolerance();
+            int n = atoms.size();
+            double[] u = new double[n], v = new double[n], w = new double[n];
+            lattice.toFractional(atoms.xs(), atoms.ys(), atoms.zs(), u, v, w, n);
+            for (int i = 0; i < n; i++) {
+                if (outside(u[i], tol) || outside(v[i], tol) || outside(w[i], tol)) {
+                    if (outsideCount++ < limit) outside.add(i);
+                }
+            }
+            truncated |= outsideCount > limit;
+        }
+
+        return new ValidationReport(overlaps.size(), overlapList, underCount, under, overCount, over,
+                outsideCount, outside, truncated);
+    }
+
+    private static boolean outside(double f, double tol) {
+        return f < -tol || f >= 1 + tol;
+    }
+}
@@ -0,0 +1,287 @@
+package com.brother.crystalviz.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 编译后的空间群对称操作集合
+ * 每个操作形如 "-x+y, y, 1/2+z"，解析一次后存为 3×4 仿射矩阵 (R | t)，连续存放便于紧凑循环
+ */
+public final class SymmetryOperations {
+
+    // 每个操作 12 个数：r00 r01 r02 t0 | r10 r11 r12 t1 | r20 r21 r22 t2
+    private final double[] m;
+    private final int count;
+
+    private SymmetryOperations(double[] m, int count) {
+        this.m = m;
+        this.count = count;
+    }
+
+    /**
+     * 解析 _symmetry_equiv_pos_as_xyz / _space_group_symop_operation_xyz 中的操作
+     * 任一操作无法解析时抛出 CifFormatException（接口返回 400），消息中给出该操作的序号和原文
+     */
+    public static SymmetryOperations compile(List<String> operations) {
+        double[] m = new double[operations.size() * 12];
+        for (int k = 0; k < operations.size(); k++) {
+            try {
+                parseOperation(operations.get(k), m, k * 12);
+            } catch (IllegalArgumentException e) {
+                // 也包括系数中 "1.2.3" 之类数字引起的 NumberFormatException
+                throw new CifFormatException("第 " + (k + 1) + " 个对称操作无法解析: '" + operations.get(k) + "'", e);
+            }
+        }
+        return new SymmetryOperations(m, operations.size());
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 对每个位点应用全部对称操作，结果折回 [0,1)，并用空间哈希去除容差内重复的等效位置
+     *
+     * @param kind      位点的种类编号（通常是元素），只有同种位点才会合并
+     * @param tolerance 判定为同一位置的笛卡尔距离 (Å)
+     */
+    public Expansion expand(double[] fu, double[] fv, double[] fw, int[] kind, int n, Lattice lattice, double tolerance) {
+        Expansion out = new Expansion(Math.max(16, n * count));
+        PeriodicGrid grid = new PeriodicGrid(lattice, tolerance, n * count);
+        double tol2 = tolerance * tolerance;
+
+        for (int s = 0; s < n; s++) {
+            double x = fu[s], y = fv[s], z = fw[s];
+            for (int op = 0; op < count; op++) {
+                int o = op * 12;
+                double u = wrap(m[o] * x + m[o + 1] * y + m[o + 2] * z + m[o + 3]);
+                double v = wrap(m[o + 4] * x + m[o + 5] * y + m[o + 6] * z + m[o + 7]);
+                double w = wrap(m[o + 8] * x + m[o + 9] * y + m[o + 10] * z + m[o + 11]);
+                if (!grid.containsNear(out, u, v, w, kind[s], kind, tol2)) {
+                    grid.add(out.size, u, v, w);
+                    out.add(u, v, w, s);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static double wrap(double f) {
+        double r = f - Math.floor(f);
+        return r >= 1.0 ? 0.0 : r;
+    }
+
+    /**
+     * 展开后的位点：分数坐标及其来源（不对称单元中的位点下标）
+     */
+    public static final class Expansion {
+        public double[] u, v, w;
+        public int[] site;
+        public int size;
+
+        Expansion(int capacity) {
+            u = new double[capacity];
+            v = new double[capacity];
+            w = new double[capacity];
+            site = new int[capacity];
+        }
+
+        void add(double fu, double fv, double fw, int source) {
+            if (size == u.length) {
+                int cap = size + (size >> 1) + 1;
+                u = Arrays.copyOf(u, cap);
+                v = Arrays.copyOf(v, cap);
+                w = Arrays.copyOf(w, cap);
+                site = Arrays.copyOf(site, cap);
+            }
+            u[size] = fu;
+            v[size] = fv;
+            w[size] = fw;
+            site[size] = source;
+            size++;
+        }
+    }
+
+    /**
+     * 分数坐标空间的周期性哈希网格：格子厚度不小于容差，查询时检查相邻 27 个格子（含跨边界）
+     */
+    private static final class PeriodicGrid {
+        private final Lattice lattice;
+        private final int ma, mb, mc;
+        // 开放寻址表：格子键 -> 链表头；next 串起同一格子里的位点
+        private long[] keys;
+        private int[] heads;
+        private int[] next;
+        private int used;
+
+        PeriodicGrid(Lattice lattice, double tolerance, int expected) {
+            this.lattice = lattice;
+            double[] widths = lattice.perpendicularWidths();
+            this.ma = bins(widths[0], tolerance);
+            this.mb = bins(widths[1], tolerance);
+            this.mc = bins(widths[2], tolerance);
+            int cap = Integer.highestOneBit(Math.max(16, expected) * 2);
+            keys = new long[cap];
+            heads = new int[cap];
+            Arrays.fill(heads, -1);
+            next = new int[Math.max(16, expected)];
+        }
+
+        private static int bins(double width, double tolerance) {
+            return (int) Math.max(1, Math.min(1 << 20, Math.floor(width / tolerance)));
+        }
+
+        boolean containsNear(Expansion pts, double u, double v, double w, int kind, int[] kinds, double tol2) {
+            int ia = cell(u, ma), ib = cell(v, mb), ic = cell(w, mc);
+            for (int da = -1; da <= 1; da++) {
+                for (int db = -1; db <= 1; db++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        long key = key(Math.floorMod(ia + da, ma), Math.floorMod(ib + db, mb), Math.floorMod(ic + dc, mc));
+                        for (int p = head(key); p >= 0; p = next[p]) {
+                            if (kinds[pts.site[p]] != kind) continue;
+                            // 最小像距离，0.999 与 0.001 视为相邻
+                            double du = pts.u[p] - u, dv = pts.v[p] - v, dw = pts.w[p] - w;
+                            du -= Math.rint(du);
+                            dv -= Math.rint(dv);
+                            dw -= Math.rint(dw);
+                            double dx = lattice.toCartesianX(du, dv, dw);
+                            double dy = lattice.toCartesianY(du, dv, dw);
+                            double dz = lattice.toCartesianZ(du, dv, dw);
+                            if (dx * dx + dy * dy + dz * dz <= tol2) return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        void add(int index, double u, double v, double w) {
+            if (index >= next.length) {
+                next = Arrays.copyOf(next, next.length * 2);
+            }
+            if ((used + 1) * 2 > keys.length) {
+                rehash();
+            }
+            long key = key(cell(u, ma), cell(v, mb), cell(w, mc));
+            int slot = slot(key);
+            if (heads[slot] < 0) {
+                keys[slot] = key;
+                used++;
+            }
+            next[index] = heads[slot];
+            heads[slot] = index;
+        }
+
+        private int head(long key) {
+            return heads[slot(key)];
+        }
+
+        // 线性探测：返回 key 所在槽位，或第一个空槽位
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int s = (int) (mix(key) & mask);
+            while (heads[s] >= 0 && keys[s] != key) {
+                s = (s + 1) & mask;
+            }
+            return s;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldHeads = heads;
+            keys = new long[oldKeys.length * 2];
+            heads = new int[oldKeys.length * 2];
+            Arrays.fill(heads, -1);
+            for (int s = 0; s < oldKeys.length; s++) {
+                if (oldHeads[s] >= 0) {
+                    int t = slot(oldKeys[s]);
+                    keys[t] = oldKeys[s];
+                    heads[t] = oldHeads[s];
+                }
+            }
+        }
+
+        private long key(int a, int b, int c) {
+            return ((long) a * mb + b) * mc + c;
+        }
+
+        private static int cell(double f, int m) {
+            int k = (int) (f * m);
+            return k >= m ? m - 1 : k;
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 32);
+        }
+    }
+
+    // ---------------- 解析 ----------------
+
+    static void parseOperation(String text, double[] m, int offset) {
+        String[] parts = text.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("对称操作格式错误: " + text);
+        }
+        for (int row = 0; row < 3; row++) {
+            parseComponent(parts[row], text, m, offset + row * 4);
+        }
+    }
+
+    // 解析单个分量，例如 "-x+y"、"1/2+z"、"x-0.25"、"2*x"
+    private static void parseComponent(String s, String op, double[] m, int rowOffset) {
+        int i = 0;
+        int n = s.length();
+        boolean any = false;
+        while (i < n) {
+            char ch = s.charAt(i);
+            if (ch == ' ' || ch == '\'' || ch == '"') {
+                i++;
+                continue;
+            }
+            double sign = 1;
+            if (ch == '+' || ch == '-') {
+                sign = ch == '-' ? -1 : 1;
+                i = skipSpaces(s, i + 1);
+            }
+
+            double coef = Double.NaN;
+            int start = i;
+            while (i < n && (Character.isDigit(s.charAt(i)) || s.charAt(i) == '.')) i++;
+            if (i > start) {
+                coef = Double.parseDouble(s.substring(start, i));
+                i = skipSpaces(s, i);
+                if (i < n && s.charAt(i) == '/') {
+                    i = skipSpaces(s, i + 1);
+                    start = i;
+                    while (i < n && Character.isDigit(s.charAt(i))) i++;
+                    if (i == start) throw new IllegalArgumentException("对称操作格式错误: " + op);
+                    coef /= Double.parseDouble(s.substring(start, i));
+                    i = skipSpaces(s, i);
+                }
+                if (i < n && s.charAt(i) == '*') {
+                    i = skipSpaces(s, i + 1);
+                }
+            }
+
+            int axis = i < n ? "xyz".indexOf(Character.toLowerCase(s.charAt(i))) : -1;
+            if (axis >= 0) {
+                m[rowOffset + axis] += sign * (Double.isNaN(coef) ? 1 : coef);
+                i++;
+            } else if (!Double.isNaN(coef)) {
+                m[rowOffset + 3] += sign * coef;
+            } else {
+                throw new IllegalArgumentException("对称操作格式错误: " + op);
+            }
+            any = true;
+        }
+        if (!any) {
+            throw new IllegalArgumentException("对称操作格式错误: " + op);
+        }
+    }
+
+    private static int skipSpaces(String s, int i) {
+        while (i < s.length() && s.charAt(i) == ' ') i++;
+        return i;
+    }
+}
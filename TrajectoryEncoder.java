@@ -0,0 +1,143 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.model.TrajectoryFrame;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 轨迹帧编码：相对上一帧解码结果的量化增量，与客户端逐帧累加的结果逐位一致，不会累积漂移
+ * 位移超出 int16 量程、到达关键帧间隔或调用方要求时改发关键帧
+ * 化学键只在有原子相对上次成键时的位移超过 rebondDisplacement 时才重新计算，并以增删形式发出
+ */
+final class TrajectoryEncoder {
+
+    private final CrystalService crystalService;
+    private final AtomTable atoms;
+    private final double quantum;
+    private final int keyframeInterval;
+    private final double rebond2;
+    private final boolean withBonds;
+
+    // 客户端当前持有的（解码后的）坐标
+    private final double[] decoded;
+    // 上次成键时的坐标与键（按 start, end 升序的 long 键）
+    private final double[] bonded;
+    private long[] bonds = new long[0];
+    private boolean bondsReady;
+    private int sinceKeyframe = Integer.MAX_VALUE;
+    private final short[] quantized;
+
+    TrajectoryEncoder(CrystalService crystalService, AtomTable elements, double quantum, int keyframeInterval,
+                      double rebondDisplacement, boolean withBonds) {
+        this.crystalService = crystalService;
+        this.atoms = new AtomTable(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            atoms.add(elements.getElement(i), 0, 0, 0);
+        }
+        this.quantum = quantum;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.rebond2 = rebondDisplacement * rebondDisplacement;
+        this.withBonds = withBonds;
+        this.decoded = new double[3 * elements.size()];
+        this.bonded = new double[3 * elements.size()];
+        this.quantized = new short[3 * elements.size()];
+    }
+
+    TrajectoryFrame encode(int frame, double[] xyz, boolean forceKeyframe) {
+        TrajectoryFrame out = new TrajectoryFrame();
+        out.setFrame(frame);
+        boolean keyframe = forceKeyframe || sinceKeyframe >= keyframeInterval || !quantize(xyz);
+        if (keyframe) {
+            float[] positions = new float[xyz.length];
+            for (int i = 0; i < xyz.length; i++) {
+                positions[i] = (float) xyz[i];
+                decoded[i] = positions[i];
+            }
+            out.setPositions(positions);
+            sinceKeyframe = 1;
+        } else {
+            ByteBuffer buf = ByteBuffer.allocate(2 * quantized.length).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < quantized.length; i++) {
+                buf.putShort(quantized[i]);
+                decoded[i] += quantized[i] * quantum;
+            }
+            out.setDeltas(Base64.getEncoder().encodeToString(buf.array()));
+            out.setQuantum(quantum);
+            sinceKeyframe++;
+        }
+
+        if (withBonds) {
+            boolean rebuild = !bondsReady || moved(xyz);
+            long[] next = rebuild ? rebond(xyz) : bonds;
+            if (keyframe) {
+                out.setBonds(pairs(next));
+            } else if (rebuild) {
+                out.setAdded(pairs(difference(next, bonds)));
+                out.setRemoved(pairs(difference(bonds, next)));
+            }
+            bonds = next;
+            bondsReady = true;
+        }
+        return out;
+    }
+
+    // 计算量化增量，任一分量超出 int16 时返回 false
+    private boolean quantize(double[] xyz) {
+        for (int i = 0; i < xyz.length; i++) {
+            long q = Math.round((xyz[i] - decoded[i]) / quantum);
+            if (q < Short.MIN_VALUE || q > Short.MAX_VALUE) {
+                return false;
+            }
+            quantized[i] = (short) q;
+        }
+        return true;
+    }
+
+    private boolean moved(double[] xyz) {
+        for (int i = 0; i < xyz.length; i += 3) {
+            double dx = xyz[i] - bonded[i], dy = xyz[i + 1] - bonded[i + 1], dz = xyz[i + 2] - bonded[i + 2];
+            if (dx * dx + dy * dy + dz * dz > rebond2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] rebond(double[] xyz) {
+        for (int i = 0; i < atoms.size(); i++) {
+            atoms.setPosition(i, xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2]);
+        }
+        System.arraycopy(xyz, 0, bonded, 0, xyz.length);
+        BondTable table = crystalService.calculateBonds(atoms);
+        long[] keys = new long[table.size()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = ((long) table.getStart(k) << 32) | table.getEnd(k);
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    // 有序数组 a 中有而 b 中没有的元素
+    private static long[] difference(long[] a, long[] b) {
+        long[] out = new long[a.length];
+        int n = 0, j = 0;
+        for (long key : a) {
+            while (j < b.length && b[j] < key) j++;
+            if (j == b.length || b[j] != key) out[n++] = key;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static List<int[]> pairs(long[] keys) {
+        List<int[]> out = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            out.add(new int[]{(int) (key >>> 32), (int) key});
+        }
+        return out;
+    }
+}
@@ -0,0 +1,257 @@
+package com.brother.crystalviz.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 多帧 XYZ 轨迹文件的帧索引：导入时顺序扫描一遍，只记录每帧的起始字节偏移，不保留坐标
+ * 每帧格式为「原子数 / 注释行 / 原子数行 元素 x y z ...」，各帧原子数必须相同，元素取自第一帧
+ */
+public final class TrajectoryFile {
+
+    private final String id;
+    private final String name;
+    private final Path path;
+    // offsets[k] 为第 k 帧起始偏移，offsets[frameCount] 为最后一帧的结束位置
+    private final long[] offsets;
+    private final AtomTable elements;
+
+    private TrajectoryFile(String id, String name, Path path, long[] offsets, AtomTable elements) {
+        this.id = id;
+        this.name = name;
+        this.path = path;
+        this.offsets = offsets;
+        this.elements = elements;
+    }
+
+    /**
+     * 扫描文件建立帧索引；格式错误时抛出 IllegalArgumentException
+     */
+    public static TrajectoryFile index(String id, String name, Path path) throws IOException {
+        long[] offsets = new long[64];
+        int frames = 0;
+        AtomTable elements = null;
+        try (InputStream in = Files.newInputStream(path)) {
+            LineScanner lines = new LineScanner(in);
+            while (true) {
+                long start = lines.position();
+                String header = lines.readLine();
+                if (header == null || header.isBlank()) {
+                    // 文件末尾允许有空行
+                    while (header != null && header.isBlank()) header = lines.readLine();
+                    if (header == null) break;
+                    throw new IllegalArgumentException("第 " + (frames + 1) + " 帧之前有多余的空行");
+                }
+                int count;
+                try {
+                    count = Integer.parseInt(header.trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("第 " + (frames + 1) + " 帧的原子数行无法解析: " + header.trim());
+                }
+                if (count <= 0 || (elements != null && count != elements.size())) {
+                    throw new IllegalArgumentException("第 " + (frames + 1) + " 帧的原子数 " + count + " 与第一帧不一致");
+                }
+                if (elements == null) {
+                    elements = new AtomTable(count);
+                    lines.skipLine();
+                    for (int i = 0; i < count; i++) {
+                        String line = lines.readLine();
+                        if (line == null) throw new IllegalArgumentException("第 1 帧不完整");
+                        String[] fields = line.trim().split("\\s+");
+                        elements.add(fields[0], 0, 0, 0);
+                    }
+                } else if (!lines.skipLines(count + 1)) {
+                    throw new IllegalArgumentException("第 " + (frames + 1) + " 帧不完整");
+                }
+                if (frames + 1 == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                offsets[frames++] = start;
+                offsets[frames] = lines.position();
+            }
+        }
+        if (frames == 0) {
+            throw new IllegalArgumentException("轨迹文件中没有帧");
+        }
+        return new TrajectoryFile(id, name, path, Arrays.copyOf(offsets, frames + 1), elements);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int frameCount() {
+        return offsets.length - 1;
+    }
+
+    public int atomCount() {
+        return elements.size();
+    }
+
+    // 各原子的元素（坐标均为 0），元素编号即轨迹中的调色板下标
+    public AtomTable elements() {
+        return elements;
+    }
+
+    public List<String> symbols() {
+        return elements.getSymbols();
+    }
+
+    public Reader openReader() throws IOException {
+        return new Reader();
+    }
+
+    /**
+     * 按帧号随机读取坐标，每个 Reader 独占一个文件通道和读缓冲区，不是线程安全的
+     */
+    public final class Reader implements AutoCloseable {
+
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        private Reader() throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+
+        // 读取第 k 帧的坐标到 xyz（x0 y0 z0 x1 ...，长度 3N）
+        public void readFrame(int k, double[] xyz) throws IOException {
+            long start = offsets[k];
+            int length = (int) (offsets[k + 1] - start);
+            if (buffer.capacity() < length) {
+                buffer = ByteBuffer.allocate(length);
+            }
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("轨迹文件被截断: 第 " + (k + 1) + " 帧");
+                }
+            }
+            byte[] bytes = buffer.array();
+            int p = nextLine(bytes, nextLine(bytes, 0, length), length);
+            int n = xyz.length / 3;
+            for (int i = 0; i < n; i++) {
+                int end = lineEnd(bytes, p, length);
+                int q = skipToken(bytes, p, end);
+                for (int axis = 0; axis < 3; axis++) {
+                    int s = skipSpace(bytes, q, end);
+                    q = skipToken(bytes, s, end);
+                    if (s == q) {
+                        throw new IOException("第 " + (k + 1) + " 帧第 " + (i + 1) + " 个原子缺少坐标");
+                    }
+                    xyz[3 * i + axis] = parse(bytes, s, q, k, i);
+                }
+                p = Math.min(length, end + 1);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static double parse(byte[] bytes, int from, int to, int frame, int atom) throws IOException {
+        try {
+            return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new IOException("第 " + (frame + 1) + " 帧第 " + (atom + 1) + " 个原子坐标无法解析");
+        }
+    }
+
+    private static int lineEnd(byte[] bytes, int p, int limit) {
+        while (p < limit && bytes[p] != '\n') p++;
+        return p;
+    }
+
+    private static int nextLine(byte[] bytes, int p, int limit) {
+        return Math.min(limit, lineEnd(bytes, p, limit) + 1);
+    }
+
+    private static int skipSpace(byte[] bytes, int p, int limit) {
+        while (p < limit && (bytes[p] == ' ' || bytes[p] == '\t' || bytes[p] == '\r')) p++;
+        return p;
+    }
+
+    // 跳过行首空白和一个字段
+    private static int skipToken(byte[] bytes, int p, int limit) {
+        p = skipSpace(bytes, p, limit);
+        while (p < limit && bytes[p] != ' ' && bytes[p] != '\t' && bytes[p] != '\r') p++;
+        return p;
+    }
+
+    // 带字节偏移的按行读取，跳行时不创建字符串
+    private static final class LineScanner {
+        private final InputStream in;
+        private final byte[] buf = new byte[1 << 20];
+        private int pos;
+        private int limit;
+        private long consumed;
+
+        LineScanner(InputStream in) {
+            this.in = in;
+        }
+
+        long position() {
+            return consumed + pos;
+        }
+
+        private boolean fill() throws IOException {
+            consumed += limit;
+            pos = 0;
+            limit = Math.max(0, in.read(buf));
+            return limit > 0;
+        }
+
+        // 文件末尾返回 false
+        boolean skipLine() throws IOException {
+            boolean any = false;
+            while (true) {
+                if (pos == limit && !fill()) return any;
+                any = true;
+                while (pos < limit) {
+                    if (buf[pos++] == '\n') return true;
+                }
+            }
+        }
+
+        boolean skipLines(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                if (!skipLine()) return false;
+            }
+            return true;
+        }
+
+        String readLine() throws IOException {
+            StringBuilder sb = null;
+            while (true) {
+                if (pos == limit && !fill()) {
+                    return sb == null ? null : sb.toString();
+                }
+                int start = pos;
+                while (pos < limit && buf[pos] != '\n') pos++;
+                if (sb == null) sb = new StringBuilder();
+                sb.append(new String(buf, start, pos - start, StandardCharsets.US_ASCII));
+                if (pos < limit) {
+                    pos++;
+                    int len = sb.length();
+                    if (len > 0 && sb.charAt(len - 1) == '\r') sb.setLength(len - 1);
+                    return sb.toString();
+                }
+            }
+        }
+    }
+}
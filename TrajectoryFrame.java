@@ -0,0 +1,28 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 轨迹播放的一帧（SSE 事件 keyframe / delta 的数据）
+ * 关键帧给出 float32 精度的完整坐标 positions 和全部化学键 bonds；
+ * 增量帧给出 deltas：int16 小端数组的 Base64，第 i 个值乘以 quantum 加到上一帧解码后的坐标上（x0 y0 z0 x1 ...）
+ * 键只在重新成键后以 added/removed 给出
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TrajectoryFrame {
+    private int frame;
+    private float[] positions;
+    private String deltas;
+    private Double quantum;
+    private List<int[]> bonds;
+    private List<int[]> added;
+    private List<int[]> removed;
+}
@@ -0,0 +1,27 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 已导入轨迹的概要；播放时作为第一个 SSE 事件 start 发出，此时另带每个原子的调色板下标 elementIds
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TrajectoryInfo {
+    private String trajectoryId;
+    private String name;
+    private int frameCount;
+    private int atomCount;
+    // 调色板：元素符号及对应的颜色、显示半径
+    private List<String> symbols;
+    private List<String> colors;
+    private List<Double> radii;
+    private short[] elementIds;
+}
@@ -0,0 +1,15 @@
+package com.brother.crystalviz.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 轨迹不存在或已被淘汰，接口返回 404，客户端应重新导入轨迹文件
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class TrajectoryNotFoundException extends RuntimeException {
+
+    public TrajectoryNotFoundException(String id) {
+        super("轨迹不存在或已被淘汰: " + id);
+    }
+}
@@ -0,0 +1,129 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.TrajectoryFrame;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轨迹播放：每个播放流占用一个线程，按帧号从文件读取坐标、编码后按固定帧率交给 sink
+ * 内存中只有当前帧和上一帧解码后的坐标；发送落后超过一帧时跳过来不及播放的帧，时间轴保持不变
+ */
+@Component
+public class TrajectoryPlayer implements DisposableBean {
+
+    private final CrystalService crystalService;
+    private final CrystalVizProperties.Trajectory config;
+    private final ThreadPoolExecutor pool;
+
+    @Autowired
+    public TrajectoryPlayer(CrystalService crystalService, CrystalVizProperties properties) {
+        this.crystalService = crystalService;
+        this.config = properties.getTrajectory();
+        AtomicInteger counter = new AtomicInteger();
+        // 不排队：播放流数达到上限时直接拒绝
+        this.pool = new ThreadPoolExecutor(0, Math.max(1, config.getMaxStreams()), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "crystal-trajectory-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 接收播放的帧；frame 抛出 IOException（如客户端断开）时停止播放，不再调用 end/error
+     */
+    public interface Sink {
+        void frame(TrajectoryFrame frame) throws IOException;
+
+        // 播放完毕，frames 为实际发出的帧数
+        void end(int frames) throws IOException;
+
+        void error(Exception e);
+    }
+
+    /**
+     * 在播放线程中从 from 播放到 to（不含），每隔 stride 帧取一帧；取消返回的 Future 即中断播放
+     * 播放流数达到 max-streams 时抛出 ServerBusyException
+     */
+    public Future<?> start(TrajectoryFile trajectory, int from, int to, int stride, double fps, boolean bonds, Sink sink) {
+        try {
+            return pool.submit(() -> {
+                int frames;
+                try {
+                    frames = play(trajectory, from, to, stride, fps, bonds, sink);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    // 客户端断开
+                    return;
+                } catch (RuntimeException e) {
+                    sink.error(e);
+                    return;
+                }
+                try {
+                    sink.end(frames);
+                } catch (IOException ignored) {
+                    // 客户端在最后一帧之后断开
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServerBusyException("同时播放的轨迹过多，请稍后重试");
+        }
+    }
+
+    /**
+     * 播放循环：下一帧的读取和编码在等待上一帧到期的间隙完成；fps <= 0 时不限速
+     * 返回实际发出的帧数
+     */
+    int play(TrajectoryFile trajectory, int from, int to, int stride, double fps, boolean bonds, Sink sink)
+            throws IOException, InterruptedException {
+        boolean withBonds = bonds && trajectory.atomCount() <= config.getMaxBondAtoms();
+        TrajectoryEncoder encoder = new TrajectoryEncoder(crystalService, trajectory.elements(), config.getQuantum(),
+                config.getKeyframeInterval(), config.getRebondDisplacement(), withBonds);
+        double[] xyz = new double[3 * trajectory.atomCount()];
+        long period = fps > 0 ? (long) (1e9 / fps) : 0;
+        int sent = 0;
+        try (TrajectoryFile.Reader reader = trajectory.openReader()) {
+            long start = System.nanoTime();
+            long slot = 0;
+            for (long k = from; k < to; k = from + slot * stride) {
+                reader.readFrame((int) k, xyz);
+                TrajectoryFrame frame = encoder.encode((int) k, xyz, sent == 0);
+                if (period > 0) {
+                    long wait = start + slot * period - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                sink.frame(frame);
+                sent++;
+                slot++;
+                if (period > 0) {
+                    long late = System.nanoTime() - (start + slot * period);
+                    if (late > period) {
+                        slot += late / period;
+                    }
+                }
+            }
+        }
+        return sent;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
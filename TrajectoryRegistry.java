@@ -0,0 +1,109 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 已导入轨迹的注册表：上传内容写入 crystalviz.trajectory.dir 后建立帧索引，按 UUID 保存
+ * 超过数量上限时淘汰最久未使用的轨迹并删除文件（正在播放的流持有已打开的文件通道，不受影响）
+ */
+@Component
+public class TrajectoryRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TrajectoryRegistry.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f-]{36}\\.xyz");
+
+    private final CrystalVizProperties.Trajectory config;
+    private final Path dir;
+    // accessOrder=true：迭代顺序即最近最少使用顺序
+    private final Map<String, TrajectoryFile> trajectories = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public TrajectoryRegistry(CrystalVizProperties properties) {
+        this.config = properties.getTrajectory();
+        this.dir = Paths.get(config.getDir()).toAbsolutePath();
+        removeStale();
+    }
+
+    // 注册表只在内存中，上次运行留下的轨迹文件已无法访问
+    private void removeStale() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path path : files) {
+                if (FILE_NAME.matcher(path.getFileName().toString()).matches()) {
+                    deleteQuietly(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("轨迹目录清理失败: {}", dir, e);
+        }
+    }
+
+    /**
+     * 保存并索引上传的多帧 XYZ；格式错误时删除文件并抛出 IllegalArgumentException
+     */
+    public TrajectoryFile importFile(String name, InputStream in) throws IOException {
+        Files.createDirectories(dir);
+        String id = UUID.randomUUID().toString();
+        Path path = dir.resolve(id + ".xyz");
+        TrajectoryFile trajectory;
+        try {
+            Files.copy(in, path);
+            trajectory = TrajectoryFile.index(id, name, path);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+        synchronized (this) {
+            while (!trajectories.isEmpty() && trajectories.size() >= config.getMaxTrajectories()) {
+                Iterator<TrajectoryFile> eldest = trajectories.values().iterator();
+                deleteQuietly(eldest.next().getPath());
+                eldest.remove();
+            }
+            trajectories.put(id, trajectory);
+        }
+        return trajectory;
+    }
+
+    public synchronized TrajectoryFile get(String id) {
+        TrajectoryFile trajectory = trajectories.get(id);
+        if (trajectory == null) {
+            throw new TrajectoryNotFoundException(id);
+        }
+        return trajectory;
+    }
+
+    public synchronized void delete(String id) {
+        TrajectoryFile trajectory = trajectories.remove(id);
+        if (trajectory == null) {
+            throw new TrajectoryNotFoundException(id);
+        }
+        deleteQuietly(trajectory.getPath());
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("轨迹文件删除失败: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.brother.crystalviz.service;
+
+import com.brother.crystalviz.config.CrystalVizProperties;
+import com.brother.crystalviz.model.TrajectoryFrame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrajectoryTests {
+
+    @TempDir
+    Path dir;
+
+    private final CrystalVizProperties properties = new CrystalVizProperties();
+
+    // 每帧原子在上一帧基础上随机游走，第 jumpFrame 帧整体平移 40 Å：按默认量化步长 0.001 Å 为 40000 个量子，
+    // 超出 int16 量程（±32767），必须改发关键帧
+    private static double[][] randomWalk(int atoms, int frames, int jumpFrame) {
+        Random random = new Random(11);
+        double[][] xyz = new double[frames][3 * atoms];
+        for (int i = 0; i < 3 * atoms; i++) {
+            xyz[0][i] = random.nextDouble() * 12;
+        }
+        for (int k = 1; k < frames; k++) {
+            for (int i = 0; i < 3 * atoms; i++) {
+                xyz[k][i] = xyz[k - 1][i] + random.nextGaussian() * 0.05 + (k == jumpFrame ? 40 : 0);
+            }
+        }
+        return xyz;
+    }
+
+    private static String xyzText(String[] elements, double[][] xyz) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < xyz.length; k++) {
+            sb.append(elements.length).append('\n').append("frame ").append(k).append("\r\n");
+            for (int i = 0; i < elements.length; i++) {
+                sb.append("  ").append(elements[i]).append('\t').append(xyz[k][3 * i]).append(' ')
+                        .append(xyz[k][3 * i + 1]).append(' ').append(xyz[k][3 * i + 2]).append('\n');
+            }
+        }
+        return sb.append("\n\n").toString();
+    }
+
+    private TrajectoryFile importText(String text) throws IOException {
+        properties.getTrajectory().setDir(dir.toString());
+        return new TrajectoryRegistry(properties)
+                .importFile("walk.xyz", new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void indexReadsFramesByOffset() throws IOException {
+        String[] elements = {"Fe", "O", "O", "H"};
+        double[][] xyz = randomWalk(elements.length, 30, 10);
+        TrajectoryFile trajectory = importText(xyzText(elements, xyz));
+
+        assertEquals(30, trajectory.frameCount());
+        assertEquals(4, trajectory.atomCount());
+        assertEquals(List.of("Fe", "O", "H"), trajectory.symbols());
+        double[] frame = new double[12];
+        try (TrajectoryFile.Reader reader = trajectory.openReader()) {
+            for (int k : new int[]{29, 0, 17}) {
+                reader.readFrame(k, frame);
+                for (int i = 0; i < 12; i++) {
+                    assertEquals(xyz[k][i], frame[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void inconsistentAtomCountIsRejected() {
+        String text = "2\n\nC 0 0 0\nC 1 0 0\n3\n\nC 0 0 0\nC 1 0 0\nC 2 0 0\n";
+        assertThrows(IllegalArgumentException.class, () -> importText(text));
+    }
+
+    @Test
+    void decodedDeltasTrackFramesWithinQuantumAndBondsMatch() throws Exception {
+        int atoms = 300;
+        String[] elements = new String[atoms];
+        for (int i = 0; i < atoms; i++) {
+            elements[i] = i % 3 == 0 ? "Fe" : "O";
+        }
+        double[][] xyz = randomWalk(atoms, 40, 25);
+        TrajectoryFile trajectory = importText(xyzText(elements, xyz));
+        CrystalService service = new CrystalService(properties);
+        double quantum = properties.getTrajectory().getQuantum();
+        properties.getTrajectory().setKeyframeInterval(16);
+
+        List<TrajectoryFrame> frames = new ArrayList<>();
+        int sent = new TrajectoryPlayer(service, properties).play(trajectory, 0, 40, 1, 0, true, new TrajectoryPlayer.Sink() {
+            @Override
+            public void frame(TrajectoryFrame frame) {
+                frames.add(frame);
+            }
+
+            @Override
+            public void end(int frames) {
+            }
+
+            @Override
+            public void error(Exception e) {
+            }
+        });
+        assertEquals(40, sent);
+
+        // 按客户端的方式累加解码，并按增删维护键集合
+        double[] decoded = new double[3 * atoms];
+        Set<Long> bonds = new HashSet<>();
+        for (TrajectoryFrame frame : frames) {
+            int k = frame.getFrame();
+            if (frame.getPositions() != null) {
+                for (int i = 0; i < decoded.length; i++) decoded[i] = frame.getPositions()[i];
+                bonds.clear();
+                frame.getBonds().forEach(p -> bonds.add(((long) p[0] << 32) | p[1]));
+            } else {
+                assertNull(frame.getBonds());
+                ByteBuffer buf = ByteBuffer.wrap(Base64.getDecoder().decode(frame.getDeltas())).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < decoded.length; i++) decoded[i] += buf.getShort() * frame.getQuantum();
+                if (frame.getAdded() != null) frame.getAdded().forEach(p -> bonds.add(((long) p[0] << 32) | p[1]));
+                if (frame.getRemoved() != null) frame.getRemoved().forEach(p -> bonds.remove(((long) p[0] << 32) | p[1]));
+            }
+            for (int i = 0; i < decoded.length; i++) {
+                assertEquals(xyz[k][i], decoded[i], quantum, "frame " + k);
+            }
+            // 键只在位移超过阈值时重算，两次重算之间允许滞后；关键帧时的键与当帧完全成键一致
+            if (frame.getPositions() != null && (k == 0 || k == 25)) {
+                AtomTable table = new AtomTable(atoms);
+                for (int i = 0; i < atoms; i++) table.add(elements[i], xyz[k][3 * i], xyz[k][3 * i + 1], xyz[k][3 * i + 2]);
+                assertEquals(service.calculateBonds(table).size(), bonds.size(), "frame " + k);
+            }
+        }
+        assertNotNull(frames.get(0).getPositions());
+        assertNotNull(frames.get(25).getPositions(), "超出 int16 量程的帧应改发关键帧");
+        assertNull(frames.get(1).getPositions());
+        assertTrue(frames.stream().filter(f -> f.getPositions() != null).count() >= 3);
+    }
+}
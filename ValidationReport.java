@@ -0,0 +1,30 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 结构校验报告：各类问题给出总数，并列出至多 crystalviz.validation.max-reported 个原子下标
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+public class ValidationReport {
+    // 距离小于 0.5 Å 的原子对 [i, j]（i < j）
+    private long overlapCount;
+    private List<int[]> overlaps;
+    // 成键数低于 min-coordination 或高于 max-coordination 的原子
+    private int underCoordinatedCount;
+    private List<Integer> underCoordinated;
+    private int overCoordinatedCount;
+    private List<Integer> overCoordinated;
+    // 分数坐标超出 [0, 1) 的原子；晶格无效时为 -1 且列表为空
+    private int outsideCellCount;
+    private List<Integer> outsideCell;
+    // 任一列表因数量上限被截断
+    private boolean truncated;
+}
@@ -0,0 +1,26 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 粉末 X 射线衍射谱：按 2θ 等间距采样的展宽谱（最高点为 100）及 2θ 范围内的衍射峰列表
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+public class XrdPattern {
+    private String structureId;
+    // 入射波长 (Å)
+    private double wavelength;
+    // 高斯峰形的半高宽 (°)
+    private double fwhm;
+    private double[] twoTheta;
+    private double[] intensity;
+    // 相对强度不低于 crystalviz.xrd.min-intensity 的衍射峰，按 2θ 升序
+    private List<XrdReflection> reflections;
+}
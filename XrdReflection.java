@@ -0,0 +1,25 @@
+package com.brother.crystalviz.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一条衍射峰：面间距相同的 (hkl) 合并为一条，hkl 取其中一个代表（优先取指数全部非负的）
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(onConstructor_ = @JsonCreator)
+public class XrdReflection {
+    private int h;
+    private int k;
+    private int l;
+    // 面间距 (Å)
+    private double d;
+    private double twoTheta;
+    // 合并的 (hkl) 个数（含 Friedel 对）
+    private int multiplicity;
+    // 积分强度（含多重度与 Lorentz-偏振因子），最强峰为 100
+    private double intensity;
+}